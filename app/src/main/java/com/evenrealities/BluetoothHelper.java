@@ -13,7 +13,7 @@ import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
 
 import com.evenrealities.even_g1_sdk.api.EvenOsApi;
-import com.evenrealities.even_g1_sdk.connection.ConnectionManager;
+import com.evenrealities.even_g1_sdk.connection.BleConnectionManager;
 
 import java.util.*;
 
@@ -102,10 +102,10 @@ public class BluetoothHelper {
         callback.onLog(TAG, "Checking paired devices...");
         Set<BluetoothDevice> bonded = bluetoothAdapter.getBondedDevices();
         for (BluetoothDevice device : bonded) {
-            if (ConnectionManager.isLeftDevice(device)) {
+            if (BleConnectionManager.isLeftDevice(device)) {
                 leftDevice = device;
                 callback.onPairingStatusUpdate(EvenOsApi.Sides.LEFT, PairingStatus.BONDED);
-            } else if (ConnectionManager.isRightDevice(device)) {
+            } else if (BleConnectionManager.isRightDevice(device)) {
                 rightDevice = device;
                 callback.onPairingStatusUpdate(EvenOsApi.Sides.RIGHT, PairingStatus.BONDED);
             }
@@ -146,10 +146,10 @@ public class BluetoothHelper {
                 String name = device.getName() != null ? device.getName() : "(no name)";
                 callback.onLog(TAG, "Found: " + name);
 
-                if (ConnectionManager.isLeftDevice(device)) {
+                if (BleConnectionManager.isLeftDevice(device)) {
                     callback.onPairingStatusUpdate(EvenOsApi.Sides.LEFT, PairingStatus.BONDING);
                     device.createBond();
-                } else if (ConnectionManager.isRightDevice(device)) {
+                } else if (BleConnectionManager.isRightDevice(device)) {
                     callback.onPairingStatusUpdate(EvenOsApi.Sides.RIGHT, PairingStatus.BONDING);
                     device.createBond();
                 }
@@ -9,8 +9,9 @@ import android.view.View;
 import android.widget.*;
 import androidx.appcompat.app.AppCompatActivity;
 import com.evenrealities.even_g1_sdk.api.*;
+import com.evenrealities.even_g1_sdk.connection.BleConnectionManager;
 import com.evenrealities.even_g1_sdk.connection.ConnectionManager;
-import com.evenrealities.even_g1_sdk.connection.Connection;
+import com.evenrealities.even_g1_sdk.connection.Transport;
 import android.content.DialogInterface;
 import android.content.Intent;
 import androidx.appcompat.app.AlertDialog;
@@ -85,34 +86,34 @@ public class MainActivity extends AppCompatActivity {
                 @Override
                 public void onDevicesBonded(BluetoothDevice left, BluetoothDevice right) {
                     UIHelper.appendLog(TAG, "Devices bonded. Starting connection process...");
-                    connectionManager = new ConnectionManager(MainActivity.this, left, right);
+                    connectionManager = new BleConnectionManager(MainActivity.this, left, right);
                     api = new EvenOsApi(connectionManager);
                     isConnectionError = false;
 
                     // Monitor left device connection state
-                    connectionManager.getLeftConnection().setConnectionStateListener(state -> {
+                    connectionManager.setConnectionStateListener(EvenOsApi.Sides.LEFT, state -> {
                         UIHelper.appendLog(TAG, "Left connection state changed: " + state);
-                        if (state == Connection.ConnectionState.DISCONNECTED) {
+                        if (state == Transport.ConnectionState.DISCONNECTED) {
                             UIHelper.setBleConnectionStatus(EvenOsApi.Sides.LEFT, BluetoothHelper.ConnectionStatus.DISCONNECTED);
-                        } else if (state == Connection.ConnectionState.CONNECTING) {
+                        } else if (state == Transport.ConnectionState.CONNECTING) {
                             UIHelper.setBleConnectionStatus(EvenOsApi.Sides.LEFT, BluetoothHelper.ConnectionStatus.CONNECTING);
-                        } else if (state == Connection.ConnectionState.CONNECTED) {
+                        } else if (state == Transport.ConnectionState.CONNECTED) {
                             UIHelper.setBleConnectionStatus(EvenOsApi.Sides.LEFT, BluetoothHelper.ConnectionStatus.CONNECTED);
-                        } else if (state == Connection.ConnectionState.INITIALIZED) {
+                        } else if (state == Transport.ConnectionState.INITIALIZED) {
                             UIHelper.setBleConnectionStatus(EvenOsApi.Sides.LEFT, BluetoothHelper.ConnectionStatus.INITIALIZED);
                         }
                     });
 
                     // Monitor right device connection state
-                    connectionManager.getRightConnection().setConnectionStateListener(state -> {
+                    connectionManager.setConnectionStateListener(EvenOsApi.Sides.RIGHT, state -> {
                         UIHelper.appendLog(TAG, "Right connection state changed: " + state);
-                        if (state == Connection.ConnectionState.DISCONNECTED) {
+                        if (state == Transport.ConnectionState.DISCONNECTED) {
                             UIHelper.setBleConnectionStatus(EvenOsApi.Sides.RIGHT, BluetoothHelper.ConnectionStatus.DISCONNECTED);
-                        } else if (state == Connection.ConnectionState.CONNECTING) {
+                        } else if (state == Transport.ConnectionState.CONNECTING) {
                             UIHelper.setBleConnectionStatus(EvenOsApi.Sides.RIGHT, BluetoothHelper.ConnectionStatus.CONNECTING);
-                        } else if (state == Connection.ConnectionState.CONNECTED) {
+                        } else if (state == Transport.ConnectionState.CONNECTED) {
                             UIHelper.setBleConnectionStatus(EvenOsApi.Sides.RIGHT, BluetoothHelper.ConnectionStatus.CONNECTED);
-                        } else if (state == Connection.ConnectionState.INITIALIZED) {
+                        } else if (state == Transport.ConnectionState.INITIALIZED) {
                             UIHelper.setBleConnectionStatus(EvenOsApi.Sides.RIGHT, BluetoothHelper.ConnectionStatus.INITIALIZED);
                         }
                     });
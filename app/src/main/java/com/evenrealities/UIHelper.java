@@ -232,9 +232,14 @@ public final class UIHelper {
             color = Color.parseColor("#FF0000");
         }
 
-        target.setText(String.format("%s %s / %s",
-            emoji, sideStatus.bonded.name(), sideStatus.connected.name()));
-        target.setTextColor(color);
+        // Connection states are reported on the event loop of the arm
+        final String text = String.format("%s %s / %s",
+            emoji, sideStatus.bonded.name(), sideStatus.connected.name());
+        final int textColor = color;
+        mainActivity.runOnUiThread(() -> {
+            target.setText(text);
+            target.setTextColor(textColor);
+        });
     }
 
     /* ---------- updateBluetoothStatus ---------- */
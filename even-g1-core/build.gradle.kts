@@ -0,0 +1,40 @@
+plugins {
+    `java-library`
+    alias(libs.plugins.jmh)
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+// Generator of the protocol codecs, not shipped
+val codegen by sourceSets.creating
+
+val protocolSpec = layout.projectDirectory.file("src/main/protocol/g1.spec")
+
+// Encoders, decoders and dispatch table of the protocol, from the spec
+val generateProtocol by tasks.registering(JavaExec::class) {
+    description = "Generates the protocol codecs from src/main/protocol/g1.spec"
+    classpath = codegen.runtimeClasspath
+    mainClass.set("com.evenrealities.even_g1_sdk.codegen.ProtocolGenerator")
+    val output = layout.buildDirectory.dir("generated/sources/protocol/java/main")
+    inputs.file(protocolSpec)
+    outputs.dir(output)
+    args(protocolSpec.asFile.absolutePath, output.get().asFile.absolutePath)
+}
+
+sourceSets.main {
+    java.srcDir(generateProtocol)
+}
+
+dependencies {
+    testImplementation(libs.junit)
+    jmh(libs.jmh.core)
+    jmh(libs.jmh.generator.annprocess)
+}
+
+// Benchmarks: ./gradlew :even-g1-core:jmh
+jmh {
+    jmhVersion.set(libs.versions.jmh.get())
+}
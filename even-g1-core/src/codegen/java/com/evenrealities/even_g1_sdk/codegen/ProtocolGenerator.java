@@ -0,0 +1,394 @@
+/**
+ * ProtocolGenerator turns the protocol spec (src/main/protocol/g1.spec) into Java sources, run by
+ * the generateProtocol task of the build before compiling the main sources.
+ *
+ * - <Name>Encoder for each request: a flyweight writing the packet into a caller-supplied buffer
+ * - <Name>Decoder for each response and event: a flyweight reading the fields of a received packet,
+ *   with the opcode (and subcode) the EventBus indexes its listeners by
+ *
+ * Encoding and decoding don't allocate, the generated code only indexes the arrays.
+ *
+ * Usage: ProtocolGenerator <spec file> <output directory>
+ */
+
+package com.evenrealities.even_g1_sdk.codegen;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+public final class ProtocolGenerator {
+
+    static final String PACKAGE = "com.evenrealities.even_g1_sdk.protocol";
+
+    // Methods of the generated classes, not available as field names
+    static final List<String> RESERVED = Arrays.asList("wrap", "matches", "encodedLength",
+        "packetBuffer", "packetOffset", "packetLength");
+
+    enum Kind { REQUEST, RESPONSE, EVENT }
+
+    enum Type {
+        U8(1), U16LE(2), U16BE(2), U32BE(4), BYTES(0);
+
+        final int size;
+
+        Type(int size) {
+            this.size = size;
+        }
+    }
+
+    static final class Field {
+        final Type type;
+        final String name;
+        final Long constant;
+        final String comment;
+        int offset;
+
+        Field(Type type, String name, Long constant, String comment) {
+            this.type = type;
+            this.name = name;
+            this.constant = constant;
+            this.comment = comment;
+        }
+    }
+
+    static final class Message {
+        final Kind kind;
+        final String name;
+        final int opcode;
+        /** Second byte of the packet, -1 if the message has none */
+        final int subcode;
+        final String comment;
+        final List<Field> fields = new ArrayList<>();
+        /** Bytes before the variable payload */
+        int blockLength;
+        Field payload;
+
+        Message(Kind kind, String name, int opcode, int subcode, String comment) {
+            this.kind = kind;
+            this.name = name;
+            this.opcode = opcode;
+            this.subcode = subcode;
+            this.comment = comment;
+        }
+
+        boolean isInbound() {
+            return kind != Kind.REQUEST;
+        }
+
+        String className() {
+            return name + (isInbound() ? "Decoder" : "Encoder");
+        }
+    }
+
+    private ProtocolGenerator() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("Usage: ProtocolGenerator <spec file> <output directory>");
+        }
+        Path spec = Paths.get(args[0]);
+        List<Message> messages = parse(Files.readAllLines(spec, StandardCharsets.UTF_8), spec.getFileName().toString());
+        Path directory = Paths.get(args[1]).resolve(PACKAGE.replace('.', '/'));
+        // Messages removed from the spec must not leave their classes behind
+        if (Files.isDirectory(directory)) {
+            try (java.util.stream.Stream<Path> stale = Files.list(directory)) {
+                for (Path file : (Iterable<Path>) stale::iterator) {
+                    Files.delete(file);
+                }
+            }
+        }
+        Files.createDirectories(directory);
+        String source = spec.getFileName().toString();
+        for (Message message : messages) {
+            String code = message.isInbound() ? decoder(message, source) : encoder(message, source);
+            write(directory.resolve(message.className() + ".java"), code);
+        }
+    }
+
+    private static void write(Path file, String code) throws IOException {
+        Files.write(file, code.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // ---- Parsing ----
+
+    static List<Message> parse(List<String> lines, String source) {
+        List<Message> messages = new ArrayList<>();
+        Map<String, Message> names = new LinkedHashMap<>();
+        Message current = null;
+        for (int number = 1; number <= lines.size(); number++) {
+            String line = lines.get(number - 1);
+            String comment = null;
+            int hash = line.indexOf('#');
+            if (hash >= 0) {
+                comment = line.substring(hash + 1).trim();
+                line = line.substring(0, hash);
+            }
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            String[] tokens = line.trim().split("\\s+");
+            String where = source + ":" + number + ": ";
+            if (!Character.isWhitespace(line.charAt(0))) {
+                if (tokens.length < 3 || tokens.length > 4) {
+                    throw new IllegalArgumentException(where + "expected <kind> <Name> <opcode> [<subcode>]");
+                }
+                Kind kind = Kind.valueOf(tokens[0].toUpperCase(Locale.ROOT));
+                int subcode = tokens.length == 4 ? (int) number(tokens[3], where) : -1;
+                current = new Message(kind, tokens[1], (int) number(tokens[2], where), subcode, comment);
+                if (names.put(current.name, current) != null) {
+                    throw new IllegalArgumentException(where + "duplicate message " + current.name);
+                }
+                messages.add(current);
+            } else {
+                if (current == null) {
+                    throw new IllegalArgumentException(where + "field outside of a message");
+                }
+                if (current.payload != null) {
+                    throw new IllegalArgumentException(where + "bytes must be the last field of " + current.name);
+                }
+                Long constant = null;
+                if (tokens.length == 4 && tokens[2].equals("=")) {
+                    constant = number(tokens[3], where);
+                } else if (tokens.length != 2) {
+                    throw new IllegalArgumentException(where + "expected <type> <name> [= <constant>]");
+                }
+                if (RESERVED.contains(tokens[1])) {
+                    throw new IllegalArgumentException(where + tokens[1] + " is a method of the generated classes");
+                }
+                Type type = Type.valueOf(tokens[0].toUpperCase(Locale.ROOT));
+                Field field = new Field(type, tokens[1], constant, comment);
+                if (type == Type.BYTES) {
+                    current.payload = field;
+                }
+                current.fields.add(field);
+            }
+        }
+        for (Message message : messages) {
+            int offset = message.subcode >= 0 ? 2 : 1;
+            for (Field field : message.fields) {
+                field.offset = offset;
+                offset += field.type.size;
+            }
+            message.blockLength = offset;
+        }
+        checkDispatch(messages);
+        return messages;
+    }
+
+    private static void checkDispatch(List<Message> messages) {
+        Map<String, Message> keys = new LinkedHashMap<>();
+        for (Message message : messages) {
+            if (!message.isInbound()) {
+                continue;
+            }
+            String key = message.opcode + "/" + message.subcode;
+            Message other = keys.put(key, message);
+            if (other != null) {
+                throw new IllegalArgumentException(message.name + " and " + other.name + " have the same opcode");
+            }
+        }
+    }
+
+    private static long number(String token, String where) {
+        try {
+            return token.startsWith("0x") ? Long.parseLong(token.substring(2), 16) : Long.parseLong(token);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(where + "invalid number " + token);
+        }
+    }
+
+    // ---- Code generation ----
+
+    private static String header(String source, String description) {
+        return "/**\n * " + description + "\n *\n * Generated from " + source + " by ProtocolGenerator, do not edit.\n */\n\n"
+            + "package " + PACKAGE + ";\n\n";
+    }
+
+    private static String hex(long value) {
+        return String.format("0x%02X", value);
+    }
+
+    private static String javadoc(String indent, String comment) {
+        return comment == null || comment.isEmpty() ? "" : indent + "/** " + comment + " */\n";
+    }
+
+    private static String capitalized(String name) {
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    private static void constants(StringBuilder out, Message message) {
+        out.append("    public static final int OPCODE = ").append(hex(message.opcode)).append(";\n");
+        if (message.subcode >= 0) {
+            out.append("    public static final int SUBCODE = ").append(hex(message.subcode)).append(";\n");
+        }
+        out.append("    /** Bytes before the variable payload, the whole packet if it has none */\n");
+        out.append("    public static final int BLOCK_LENGTH = ").append(message.blockLength).append(";\n\n");
+    }
+
+    static String encoder(Message message, String source) {
+        String type = message.className();
+        StringBuilder out = new StringBuilder(header(source, "Flyweight encoder of the " + message.name
+            + " request (" + hex(message.opcode) + (message.comment != null ? ", " + message.comment : "")
+            + "): wrap a buffer, set the fields, send encodedLength() bytes."));
+        out.append("public final class ").append(type).append(" {\n\n");
+        constants(out, message);
+        out.append("    private byte[] buffer;\n    private int offset;\n    private int limit;\n\n");
+
+        out.append("    /**\n     * Start a packet, with its opcode and constants and the other fields zeroed\n");
+        out.append("     * @param buffer receives the packet, at least BLOCK_LENGTH bytes after offset\n     */\n");
+        out.append("    public ").append(type).append(" wrap(byte[] buffer, int offset) {\n");
+        out.append("        this.buffer = buffer;\n        this.offset = offset;\n");
+        out.append("        this.limit = offset + BLOCK_LENGTH;\n");
+        out.append("        buffer[offset] = (byte) OPCODE;\n");
+        if (message.subcode >= 0) {
+            out.append("        buffer[offset + 1] = (byte) SUBCODE;\n");
+        }
+        for (Field field : message.fields) {
+            if (field.type != Type.BYTES) {
+                out.append(put(field, field.constant != null ? field.constant : 0L));
+            }
+        }
+        out.append("        return this;\n    }\n");
+
+        for (Field field : message.fields) {
+            if (field.constant != null) {
+                continue;
+            }
+            out.append('\n').append(javadoc("    ", field.comment));
+            if (field.type == Type.BYTES) {
+                out.append("    public ").append(type).append(' ').append(field.name)
+                    .append("(byte[] src, int srcOffset, int length) {\n");
+                out.append("        System.arraycopy(src, srcOffset, buffer, offset + BLOCK_LENGTH, length);\n");
+                out.append("        limit = offset + BLOCK_LENGTH + length;\n");
+            } else {
+                out.append("    public ").append(type).append(' ').append(field.name)
+                    .append(field.type == Type.U32BE ? "(long value) {\n" : "(int value) {\n");
+                out.append(put(field, null));
+            }
+            out.append("        return this;\n    }\n");
+        }
+
+        out.append("\n    /**\n     * Bytes written since wrap\n     */\n");
+        out.append("    public int encodedLength() {\n        return limit - offset;\n    }\n");
+        out.append("}\n");
+        return out.toString();
+    }
+
+    /**
+     * Statements writing a field, a byte each
+     * @param constant the value to write, null to write the parameter "value"
+     */
+    private static String put(Field field, Long constant) {
+        // Shift of each byte, in packet order
+        int[] shifts;
+        switch (field.type) {
+            case U8:
+                shifts = new int[]{0};
+                break;
+            case U16LE:
+                shifts = new int[]{0, 8};
+                break;
+            case U16BE:
+                shifts = new int[]{8, 0};
+                break;
+            case U32BE:
+                shifts = new int[]{24, 16, 8, 0};
+                break;
+            default:
+                throw new IllegalStateException(field.type.name());
+        }
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; i < shifts.length; i++) {
+            out.append("        buffer[offset + ").append(field.offset + i).append("] = ");
+            if (constant != null) {
+                out.append("(byte) ").append(hex((constant >> shifts[i]) & 0xFF));
+            } else if (shifts[i] == 0) {
+                out.append("(byte) value");
+            } else {
+                out.append("(byte) (value >> ").append(shifts[i]).append(')');
+            }
+            out.append(";\n");
+        }
+        return out.toString();
+    }
+
+    private static String get(Field field) {
+        int at = field.offset;
+        switch (field.type) {
+            case U8:
+                return byteAt(at);
+            case U16LE:
+                return "(" + byteAt(at) + ") | (" + byteAt(at + 1) + ") << 8";
+            case U16BE:
+                return "(" + byteAt(at) + ") << 8 | (" + byteAt(at + 1) + ")";
+            case U32BE:
+                return "(long) (" + byteAt(at) + ") << 24 | (" + byteAt(at + 1) + ") << 16"
+                    + "\n            | (" + byteAt(at + 2) + ") << 8 | (" + byteAt(at + 3) + ")";
+            default:
+                throw new IllegalStateException(field.type.name());
+        }
+    }
+
+    private static String byteAt(int index) {
+        return "buffer[offset + " + index + "] & 0xFF";
+    }
+
+    static String decoder(Message message, String source) {
+        String type = message.className();
+        StringBuilder out = new StringBuilder(header(source, "Flyweight decoder of the " + message.name + " "
+            + message.kind.name().toLowerCase(Locale.ROOT) + " (" + hex(message.opcode)
+            + (message.subcode >= 0 ? " " + hex(message.subcode) : "")
+            + (message.comment != null ? ", " + message.comment : "")
+            + "): reads the fields of the wrapped packet, valid until its buffer is reused."));
+        out.append("public final class ").append(type).append(" {\n\n");
+        constants(out, message);
+        out.append("    private byte[] buffer;\n    private int offset;\n    private int length;\n\n");
+
+        out.append("    /**\n     * True if a packet is this message and holds all its fields\n     */\n");
+        out.append("    public static boolean matches(byte[] data, int offset, int length) {\n");
+        out.append("        return length >= BLOCK_LENGTH && (data[offset] & 0xFF) == OPCODE");
+        if (message.subcode >= 0) {
+            out.append("\n            && (data[offset + 1] & 0xFF) == SUBCODE");
+        }
+        out.append(";\n    }\n\n");
+
+        out.append("    public ").append(type).append(" wrap(byte[] buffer, int offset, int length) {\n");
+        out.append("        this.buffer = buffer;\n        this.offset = offset;\n        this.length = length;\n");
+        out.append("        return this;\n    }\n");
+
+        for (Field field : message.fields) {
+            out.append('\n').append(javadoc("    ", field.comment));
+            if (field.type == Type.BYTES) {
+                String name = capitalized(field.name);
+                out.append("    public int ").append(field.name).append("Offset() {\n");
+                out.append("        return offset + BLOCK_LENGTH;\n    }\n\n");
+                out.append("    public int ").append(field.name).append("Length() {\n");
+                out.append("        return length - BLOCK_LENGTH;\n    }\n\n");
+                out.append("    /**\n     * Copy the ").append(field.name).append(" to dst, ")
+                    .append(field.name).append("Length() bytes\n     */\n");
+                out.append("    public void get").append(name).append("(byte[] dst, int dstOffset) {\n");
+                out.append("        System.arraycopy(buffer, offset + BLOCK_LENGTH, dst, dstOffset, length - BLOCK_LENGTH);\n");
+                out.append("    }\n");
+            } else {
+                out.append("    public ").append(field.type == Type.U32BE ? "long " : "int ").append(field.name).append("() {\n");
+                out.append("        return ").append(get(field)).append(";\n    }\n");
+            }
+        }
+
+        out.append("\n    public byte[] packetBuffer() {\n        return buffer;\n    }\n");
+        out.append("\n    public int packetOffset() {\n        return offset;\n    }\n");
+        out.append("\n    public int packetLength() {\n        return length;\n    }\n");
+        out.append("}\n");
+        return out.toString();
+    }
+}
@@ -0,0 +1,87 @@
+package com.evenrealities.even_g1_sdk.benchmark;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.evenrealities.even_g1_sdk.api.ChunkPlanner;
+import com.evenrealities.even_g1_sdk.api.EvenOsApi;
+
+/**
+ * Text encoding with the fixed 180 bytes chunks used before the ChunkPlanner,
+ * against the planned chunks for the negotiated MTU.
+ *
+ * The "packets" and "oversizedPackets" counters show how many packets a frame needs,
+ * and how many of the fixed size packets would not fit in the MTU.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ChunkPlannerBenchmark {
+
+    @Param({"23", "185", "247", "512"})
+    public int mtu;
+
+    @Param({"200", "1000"})
+    public int textLength;
+
+    private byte[] textBytes;
+    private int maxPacketSize;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Counters {
+        public long packets;
+        public long oversizedPackets;
+    }
+
+    @Setup
+    public void setUp() {
+        char[] text = new char[textLength];
+        Arrays.fill(text, 'a');
+        textBytes = new String(text).getBytes(StandardCharsets.UTF_8);
+        maxPacketSize = mtu - 3;
+    }
+
+    @Benchmark
+    public byte[][] fixedSizes(Counters counters) {
+        final int maxPayloadPerPacket = 180;
+        int totalPackets = (int) Math.ceil((double) textBytes.length / maxPayloadPerPacket);
+        byte[][] packets = new byte[totalPackets][];
+        for (int i = 0; i < totalPackets; i++) {
+            int start = i * maxPayloadPerPacket;
+            int end = Math.min(start + maxPayloadPerPacket, textBytes.length);
+            byte[] chunk = Arrays.copyOfRange(textBytes, start, end);
+            ByteBuffer buffer = ByteBuffer.allocate(9 + chunk.length);
+            buffer.put((byte) 0x4E).put((byte) i).put((byte) totalPackets).put((byte) i).put((byte) 0x71)
+                .put((byte) 0).put((byte) 0).put((byte) (i + 1)).put((byte) totalPackets).put(chunk);
+            packets[i] = buffer.array();
+            if (packets[i].length > maxPacketSize) {
+                counters.oversizedPackets++;
+            }
+        }
+        counters.packets += totalPackets;
+        return packets;
+    }
+
+    @Benchmark
+    public byte[][] planned(Counters counters) {
+        ChunkPlanner.Plan plan = ChunkPlanner.plan(ChunkPlanner.Format.TEXT, textBytes.length, maxPacketSize);
+        counters.packets += plan.count;
+        return EvenOsApi.encodeText(textBytes, plan);
+    }
+
+    @Benchmark
+    public byte[][] plannedLinkLimited(Counters counters) {
+        // Firmware limit raised to the link limit, e.g. with EvenOsApi.setFirmwarePayloadLimit
+        ChunkPlanner.Plan plan = ChunkPlanner.plan(ChunkPlanner.Format.TEXT, textBytes.length, maxPacketSize, Integer.MAX_VALUE);
+        counters.packets += plan.count;
+        return EvenOsApi.encodeText(textBytes, plan);
+    }
+}
@@ -0,0 +1,102 @@
+package com.evenrealities.even_g1_sdk.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.evenrealities.even_g1_sdk.api.EvenOsApi;
+import com.evenrealities.even_g1_sdk.api.EvenOsEventListener;
+import com.evenrealities.even_g1_sdk.connection.EventBus;
+
+/**
+ * Dispatch of a received packet with 1, 10 and 100 registered listeners: the linear scan of
+ * a listener map used before the dispatch table, against the EventBus.
+ *
+ * "event" is a 0xF5 event handled by the last registered listener, "audio" a 0xF1 packet
+ * no listener handles. The indexed dispatch should cost the same for every listener count.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DispatchBenchmark {
+
+    @Param({"1", "10", "100"})
+    public int listeners;
+
+    private final Map<EvenOsEventListener<?>, BiConsumer<?, EvenOsApi.Sides>> linear = new HashMap<>();
+    private final EventBus indexed = new EventBus();
+    private byte[] event;
+    private final byte[] audio = new byte[202];
+    private int handled;
+
+    private static EvenOsEventListener<Boolean> eventListener(final byte code) {
+        return new EvenOsEventListener<Boolean>() {
+            @Override
+            public boolean matches(byte[] data, EvenOsApi.Sides side) {
+                return data.length > 1 && data[0] == (byte) 0xF5 && data[1] == code;
+            }
+
+            @Override
+            public byte[] prefix() {
+                return new byte[]{ (byte) 0xF5, code };
+            }
+
+            @Override
+            public Boolean parse(byte[] data, EvenOsApi.Sides side) {
+                return true;
+            }
+        };
+    }
+
+    @Setup
+    public void setUp() {
+        BiConsumer<Boolean, EvenOsApi.Sides> handler = (value, side) -> handled++;
+        for (int i = 0; i < listeners; i++) {
+            EvenOsEventListener<Boolean> listener = eventListener((byte) i);
+            linear.put(listener, handler);
+            indexed.add(listener, handler);
+        }
+        event = new byte[]{ (byte) 0xF5, (byte) (listeners - 1), 0x01 };
+        audio[0] = (byte) 0xF1;
+    }
+
+    private boolean linearDispatch(byte[] data) {
+        for (Map.Entry<EvenOsEventListener<?>, BiConsumer<?, EvenOsApi.Sides>> entry : linear.entrySet()) {
+            EvenOsEventListener<?> listener = entry.getKey();
+            if (listener.matches(data, EvenOsApi.Sides.LEFT)) {
+                Object parsed = listener.parse(data, EvenOsApi.Sides.LEFT);
+                @SuppressWarnings("unchecked")
+                BiConsumer<Object, EvenOsApi.Sides> handler = (BiConsumer<Object, EvenOsApi.Sides>) entry.getValue();
+                handler.accept(parsed, EvenOsApi.Sides.LEFT);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Benchmark
+    public boolean linearEvent() {
+        return linearDispatch(event);
+    }
+
+    @Benchmark
+    public boolean linearAudio() {
+        return linearDispatch(audio);
+    }
+
+    @Benchmark
+    public boolean indexedEvent() {
+        return indexed.dispatch(event, EvenOsApi.Sides.LEFT);
+    }
+
+    @Benchmark
+    public boolean indexedAudio() {
+        return indexed.dispatch(audio, EvenOsApi.Sides.LEFT);
+    }
+}
@@ -0,0 +1,94 @@
+package com.evenrealities.even_g1_sdk.benchmark;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.evenrealities.even_g1_sdk.api.ChunkPlanner;
+import com.evenrealities.even_g1_sdk.api.EvenOsApi;
+import com.evenrealities.even_g1_sdk.connection.PacketPool;
+import com.evenrealities.even_g1_sdk.protocol.DeviceEventDecoder;
+import com.evenrealities.even_g1_sdk.protocol.GlassesBatteryDecoder;
+import com.evenrealities.even_g1_sdk.protocol.TextEncoder;
+
+/**
+ * Encoding of a text page with ByteBuffer.allocate, as before the protocol spec, against the
+ * generated TextEncoder writing into a reused buffer, and decoding of events with the generated decoders.
+ * The caption benchmarks encode a whole text, into new buffers or into buffers of a PacketPool
+ * recycled once written.
+ *
+ * Run with -prof gc: the generated encoder and decoders don't allocate.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ProtocolCodecBenchmark {
+
+    private final byte[] text = new byte[180];
+    private final byte[] packet = new byte[TextEncoder.BLOCK_LENGTH + 180];
+    private final TextEncoder encoder = new TextEncoder();
+    private final byte[] battery = {(byte) 0xF5, 0x0A, 0x20};
+    private final byte[] gesture = {(byte) 0xF5, 0x01};
+    private final PacketPool pool = new PacketPool();
+    private final ChunkPlanner.Plan plan = ChunkPlanner.plan(ChunkPlanner.Format.TEXT, 400, 244);
+    private final byte[] caption = new byte[400];
+    private final GlassesBatteryDecoder batteryDecoder = new GlassesBatteryDecoder();
+    private final DeviceEventDecoder eventDecoder = new DeviceEventDecoder();
+
+    @Setup
+    public void setUp() {
+        Arrays.fill(text, (byte) 'a');
+        Arrays.fill(caption, (byte) 'a');
+    }
+
+    @Benchmark
+    public byte[] byteBufferEncode() {
+        ByteBuffer buffer = ByteBuffer.allocate(9 + text.length);
+        buffer.put((byte) 0x4E).put((byte) 1).put((byte) 1).put((byte) 0).put((byte) 0x71)
+            .put((byte) 0).put((byte) 0).put((byte) 1).put((byte) 1).put(text);
+        return buffer.array();
+    }
+
+    @Benchmark
+    public int generatedEncode() {
+        return encoder.wrap(packet, 0)
+            .seq(1)
+            .total(1)
+            .index(0)
+            .status(0x71)
+            .page(1)
+            .maxPage(1)
+            .text(text, 0, text.length)
+            .encodedLength();
+    }
+
+    @Benchmark
+    public byte[][] captionAllocated() {
+        return EvenOsApi.encodeText(caption, plan, 1);
+    }
+
+    @Benchmark
+    public byte[][] captionPooled() {
+        byte[][] packets = EvenOsApi.encodeText(caption, plan, 1, pool);
+        // What the ConnectionManager does once the packets are written
+        pool.recycle(packets);
+        return packets;
+    }
+
+    @Benchmark
+    public int decode() {
+        int level = 0;
+        if (GlassesBatteryDecoder.matches(battery, 0, battery.length)) {
+            level = batteryDecoder.wrap(battery, 0, battery.length).level();
+        }
+        if (DeviceEventDecoder.matches(gesture, 0, gesture.length)) {
+            level += eventDecoder.wrap(gesture, 0, gesture.length).code();
+        }
+        return level;
+    }
+}
@@ -0,0 +1,83 @@
+package com.evenrealities.even_g1_sdk.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.evenrealities.even_g1_sdk.connection.RxBufferRing;
+import com.evenrealities.even_g1_sdk.connection.RxConsumer;
+import com.evenrealities.even_g1_sdk.connection.WaitStrategy;
+
+/**
+ * Cost of the transport callback: offering a 202 bytes audio packet to the RX ring, with the event
+ * loop only and with extra consumers using each wait strategy. The loop is simulated by polling
+ * and releasing on the benchmark thread, the extra consumers run on their own threads.
+ *
+ * The "overflows" counter shows the packets a consumer too slow for the rate would have cost.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RxRingBenchmark {
+
+    @Param({"none", "blocking", "yielding", "sleeping"})
+    public String consumer;
+
+    private final byte[] audio = new byte[202];
+    private RxBufferRing ring;
+    private RxConsumer rxConsumer;
+    private long handled;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Counters {
+        public long overflows;
+    }
+
+    @Setup
+    public void setUp() {
+        audio[0] = (byte) 0xF1;
+        ring = new RxBufferRing(RxBufferRing.DEFAULT_CAPACITY);
+        WaitStrategy strategy;
+        switch (consumer) {
+            case "blocking":
+                strategy = WaitStrategy.blocking();
+                break;
+            case "yielding":
+                strategy = WaitStrategy.yielding();
+                break;
+            case "sleeping":
+                strategy = WaitStrategy.sleeping(TimeUnit.MICROSECONDS.toNanos(50));
+                break;
+            default:
+                strategy = null;
+                break;
+        }
+        if (strategy != null) {
+            rxConsumer = new RxConsumer("rx-benchmark", ring, strategy, (data, sequence, endOfBatch) -> handled += data.length).start();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (rxConsumer != null) {
+            rxConsumer.halt();
+        }
+    }
+
+    @Benchmark
+    public boolean offer(Counters counters) {
+        boolean offered = ring.offer(audio);
+        if (!offered) {
+            counters.overflows++;
+        }
+        RxBufferRing.Buffer buffer = ring.poll();
+        if (buffer != null) {
+            ring.release(buffer);
+        }
+        return offered;
+    }
+}
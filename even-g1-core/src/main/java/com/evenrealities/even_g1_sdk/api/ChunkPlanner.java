@@ -0,0 +1,118 @@
+/**
+ * ChunkPlanner splits the payload of a multi-packet command (text, notification JSON, bitmap)
+ * into the fewest packets the link and the firmware accept.
+ *
+ * The chunk size is the smallest of:
+ * - the largest packet of the link (negotiated MTU - 3 bytes of ATT header), minus the command header
+ * - the largest payload the firmware accepts for the command
+ *
+ * Packets never exceed the MTU, so a small negotiated MTU no longer loses packets, and a large one
+ * uses the whole firmware limit instead of a fixed size.
+ */
+
+package com.evenrealities.even_g1_sdk.api;
+
+public final class ChunkPlanner {
+
+    /** A payload is never split in more than 255 chunks (one byte counters) */
+    public static final int MAX_CHUNKS = 255;
+
+    /**
+     * Packet layouts of the chunked commands
+     */
+    public enum Format {
+        /** 0x4E: seq, total, index, status, new_char_pos0, new_char_pos1, page, max page */
+        TEXT(9, 0, 180),
+        /** 0x04: total, index */
+        NOTIFICATION_JSON(3, 0, 180),
+        /** 0x15: seq, the first packet also carries the 4 bytes address */
+        BITMAP(2, 4, 194);
+
+        /** Bytes before the payload in every packet */
+        public final int headerSize;
+        /** Extra header bytes in the first packet only */
+        public final int firstPacketExtraHeader;
+        /** Largest payload per packet known to be accepted by the firmware */
+        public final int firmwareMaxPayload;
+
+        Format(int headerSize, int firstPacketExtraHeader, int firmwareMaxPayload) {
+            this.headerSize = headerSize;
+            this.firstPacketExtraHeader = firstPacketExtraHeader;
+            this.firmwareMaxPayload = firmwareMaxPayload;
+        }
+    }
+
+    /**
+     * Chunk boundaries of one payload
+     */
+    public static final class Plan {
+        public final Format format;
+        public final int totalBytes;
+        /** Payload of the first packet (smaller when the first packet has an extra header) */
+        public final int firstPayload;
+        /** Payload of the other packets */
+        public final int payload;
+        public final int count;
+
+        Plan(Format format, int totalBytes, int firstPayload, int payload) {
+            this.format = format;
+            this.totalBytes = totalBytes;
+            this.firstPayload = firstPayload;
+            this.payload = payload;
+            if (totalBytes <= firstPayload) {
+                this.count = 1;
+            } else {
+                this.count = 1 + (totalBytes - firstPayload + payload - 1) / payload;
+            }
+        }
+
+        /** Offset of the chunk in the payload */
+        public int start(int index) {
+            return index == 0 ? 0 : firstPayload + (index - 1) * payload;
+        }
+
+        /** Length of the chunk */
+        public int length(int index) {
+            int start = start(index);
+            int max = index == 0 ? firstPayload : payload;
+            return Math.min(max, totalBytes - start);
+        }
+
+        /** Size of the packet carrying the chunk, header included */
+        public int packetSize(int index) {
+            return format.headerSize + (index == 0 ? format.firstPacketExtraHeader : 0) + length(index);
+        }
+    }
+
+    private ChunkPlanner() {
+    }
+
+    /**
+     * Plan the chunks of a payload
+     * @param format the packet layout
+     * @param totalBytes size of the payload
+     * @param maxPacketSize largest packet the link accepts (MTU - 3)
+     * @param firmwareMaxPayload largest payload per packet the firmware accepts
+     * @return the plan
+     * @throws IllegalArgumentException if the link is too small or the payload needs more than 255 chunks
+     */
+    public static Plan plan(Format format, int totalBytes, int maxPacketSize, int firmwareMaxPayload) {
+        int payload = Math.min(firmwareMaxPayload, maxPacketSize - format.headerSize);
+        int firstPayload = Math.min(firmwareMaxPayload, maxPacketSize - format.headerSize - format.firstPacketExtraHeader);
+        if (firstPayload <= 0) {
+            throw new IllegalArgumentException("Packet size " + maxPacketSize + " is too small for " + format);
+        }
+        Plan plan = new Plan(format, totalBytes, firstPayload, payload);
+        if (plan.count > MAX_CHUNKS) {
+            throw new IllegalArgumentException(format + " data is too large to send (" + plan.count + " chunks)");
+        }
+        return plan;
+    }
+
+    /**
+     * Plan the chunks of a payload with the firmware limit of the format
+     */
+    public static Plan plan(Format format, int totalBytes, int maxPacketSize) {
+        return plan(format, totalBytes, maxPacketSize, format.firmwareMaxPayload);
+    }
+}
@@ -0,0 +1,995 @@
+/**
+ * Implementation of EvenOsBase for Even Realities smart glasses.
+ * 
+ * This class defines supported commands with request structures, expected response headers,
+ * and response parsers. It abstracts BLE communication into a high-level API (e.g. brightness, 
+ * silent mode, image/text transfer).
+ * 
+ * Based on reverse-engineering of AugmentOS, the Even Realities DemoApp, and shared docs.
+ */
+
+package com.evenrealities.even_g1_sdk.api;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.zip.CRC32;
+import java.util.function.Function;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import com.evenrealities.even_g1_sdk.api.EvenOsCommand;
+import com.evenrealities.even_g1_sdk.api.EvenOsEventListener;
+import com.evenrealities.even_g1_sdk.connection.ConnectionManager;
+import com.evenrealities.even_g1_sdk.connection.DualResult;
+import com.evenrealities.even_g1_sdk.connection.PacketPool;
+import com.evenrealities.even_g1_sdk.gesture.Gesture;
+import com.evenrealities.even_g1_sdk.gesture.GestureEvent;
+import com.evenrealities.even_g1_sdk.gesture.GestureRecognizer;
+import com.evenrealities.even_g1_sdk.log.Log;
+import com.evenrealities.even_g1_sdk.protocol.BatteryQueryEncoder;
+import com.evenrealities.even_g1_sdk.protocol.BitmapChunkEncoder;
+import com.evenrealities.even_g1_sdk.protocol.BitmapCrcEncoder;
+import com.evenrealities.even_g1_sdk.protocol.BitmapFirstChunkEncoder;
+import com.evenrealities.even_g1_sdk.protocol.BrightnessEncoder;
+import com.evenrealities.even_g1_sdk.protocol.CaseBatteryDecoder;
+import com.evenrealities.even_g1_sdk.protocol.CaseChargingDecoder;
+import com.evenrealities.even_g1_sdk.protocol.CaseClosedDecoder;
+import com.evenrealities.even_g1_sdk.protocol.CaseOpenDecoder;
+import com.evenrealities.even_g1_sdk.protocol.DashboardModeEncoder;
+import com.evenrealities.even_g1_sdk.protocol.DashboardPositionEncoder;
+import com.evenrealities.even_g1_sdk.protocol.DeviceEventDecoder;
+import com.evenrealities.even_g1_sdk.protocol.EndBitmapEncoder;
+import com.evenrealities.even_g1_sdk.protocol.ExitAppEncoder;
+import com.evenrealities.even_g1_sdk.protocol.FirmwareInfoEncoder;
+import com.evenrealities.even_g1_sdk.protocol.GlassesBatteryDecoder;
+import com.evenrealities.even_g1_sdk.protocol.HeadUpAngleEncoder;
+import com.evenrealities.even_g1_sdk.protocol.HeartbeatEncoder;
+import com.evenrealities.even_g1_sdk.protocol.InitializeEncoder;
+import com.evenrealities.even_g1_sdk.protocol.MicrophoneEncoder;
+import com.evenrealities.even_g1_sdk.protocol.QuickRestartEncoder;
+import com.evenrealities.even_g1_sdk.protocol.SilentModeEncoder;
+import com.evenrealities.even_g1_sdk.protocol.TextEncoder;
+import com.evenrealities.even_g1_sdk.protocol.UptimeEncoder;
+import com.evenrealities.even_g1_sdk.protocol.UsageInfoEncoder;
+import com.evenrealities.even_g1_sdk.protocol.WearDetectionEncoder;
+import com.evenrealities.even_g1_sdk.protocol.WhitelistEncoder;
+
+public class EvenOsApi {
+
+    public static final String TAG = "EvenOsApi";
+    private static final byte[] TEXT_RESPONSE_HEADER = { 0x4E };
+    private final ConnectionManager connectionManager;
+    private String firmware;
+    private final Map<ChunkPlanner.Format, Integer> firmwarePayloadLimits = new EnumMap<>(ChunkPlanner.Format.class);
+
+    public EvenOsApi(ConnectionManager connectionManager) {
+        this.connectionManager = connectionManager;
+        Log.d(TAG, "EvenOsApi constructor");
+    }
+
+    public enum Sides {
+        LEFT, RIGHT, BOTH;
+        public boolean matchesLeft() {
+            return this == LEFT || this == BOTH;
+        }
+
+        public boolean matchesRight() {
+            return this == RIGHT || this == BOTH;
+        }
+    }
+
+    public enum DashboardMode {
+        FULL(0),
+        DUAL(1),
+        MINIMAL(2);
+        private final int value;
+        DashboardMode(int value) {this.value = value;}
+        public int getValue() {return value;}
+    }
+
+    public enum DashboardSubMode {
+        NOTES(0),
+        STOCK(1),
+        NEWS(2),
+        CALENDAR(3),
+        NAVIGATION(4),
+        EMPTY1(5),
+        EMPTY2(6);
+        private final int value;
+        DashboardSubMode(int value) {this.value = value;}
+        public int getValue() {return value;}
+    }
+
+    public void setFirmware(String firmware) {
+        this.firmware = firmware;
+    }
+
+    /**
+     * Override the largest payload per packet the firmware accepts for a chunked command
+     * @param format the chunked command
+     * @param maxPayload the payload limit, in bytes
+     */
+    public void setFirmwarePayloadLimit(ChunkPlanner.Format format, int maxPayload) {
+        firmwarePayloadLimits.put(format, maxPayload);
+    }
+
+    /**
+     * Buffer for a packet, from the PacketPool of the connection
+     */
+    private byte[] packet(int size) {
+        return connectionManager.getPacketPool().acquire(size);
+    }
+
+    /**
+     * Buffer for a packet, from the pool if there is one
+     */
+    private static byte[] allocate(PacketPool pool, int size) {
+        return pool != null ? pool.acquire(size) : new byte[size];
+    }
+
+    /**
+     * Plan the chunks of a payload for the negotiated MTU of a side
+     */
+    ChunkPlanner.Plan planChunks(ChunkPlanner.Format format, int totalBytes, Sides side) {
+        Integer limit = firmwarePayloadLimits.get(format);
+        return ChunkPlanner.plan(format, totalBytes, connectionManager.getMaxPacketSize(side),
+            limit != null ? limit : format.firmwareMaxPayload);
+    }
+
+    private byte[] sendCommand(byte[] requestBytes, byte[] responseHeader, Sides side) {
+        return sendCommand(requestBytes, responseHeader, side, EvenOsCommand.Priority.INTERACTIVE);
+    }
+
+    private byte[] sendCommand(byte[] requestBytes, byte[] responseHeader, Sides side, EvenOsCommand.Priority priority) {
+        try {
+            Object result = this.connectionManager.sendAndWait(
+                new EvenOsCommand<byte[]>(requestBytes, responseHeader, side, priority), 1000);
+            if (result instanceof byte[]) {
+                return (byte[]) result;
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "sendCommand error", e);
+        }
+        return null;
+    }
+
+    /**
+     * Send a setting to each arm, a setting still waiting to be sent is replaced by this one
+     * (latest wins, the key is the opcode)
+     * @return true only if both arms acknowledged it
+     */
+    private Boolean sendSetting(byte[] requestBytes) {
+        // The buffer may be reused once sent
+        byte opcode = requestBytes[0];
+        try {
+            DualResult<byte[]> result = this.connectionManager.sendBothAndWait(settingCommand(requestBytes), 1000);
+            if (!isAcknowledged(result)) {
+                Log.w(TAG, "sendSetting: Setting 0x" + String.format("%02X", opcode) + " not applied: " + result);
+                return false;
+            }
+            return true;
+        } catch (Exception e) {
+            Log.e(TAG, "sendSetting error", e);
+        }
+        return false;
+    }
+
+    private CompletableFuture<Boolean> sendSettingAsync(byte[] requestBytes) {
+        return this.connectionManager.sendBoth(settingCommand(requestBytes)).allOf()
+            .thenApply(EvenOsApi::isAcknowledged);
+    }
+
+    private static boolean isAcknowledged(DualResult<byte[]> result) {
+        return isAcknowledged(result.left) && isAcknowledged(result.right);
+    }
+
+    private static boolean isAcknowledged(DualResult.ArmResult<byte[]> result) {
+        return result.isSuccess() && result.value != null && result.value.length > 1 && result.value[1] == (byte)0xC9;
+    }
+
+    private static EvenOsCommand<byte[]> settingCommand(byte[] requestBytes) {
+        byte[] responseHeader = { requestBytes[0] };
+        return new EvenOsCommand<byte[]>(new byte[][]{ requestBytes }, responseHeader, Sides.BOTH,
+            EvenOsCommand.Priority.INTERACTIVE, 0, Byte.valueOf(requestBytes[0]));
+    }
+
+    private byte[][] sendCommand(byte[][] requestPackets, byte[] responseHeader, Sides side) {
+        return sendCommand(requestPackets, responseHeader, side, EvenOsCommand.Priority.INTERACTIVE);
+    }
+
+    private byte[][] sendCommand(byte[][] requestPackets, byte[] responseHeader, Sides side, EvenOsCommand.Priority priority) {
+        return sendCommand(requestPackets, responseHeader, side, priority, null);
+    }
+
+    private byte[][] sendCommand(byte[][] requestPackets, byte[] responseHeader, Sides side, EvenOsCommand.Priority priority,
+            EvenOsCommand.ProgressListener listener) {
+        try {
+            Object result = this.connectionManager.sendAndWait(
+                new EvenOsCommand<byte[]>(requestPackets, responseHeader, side, priority).setProgressListener(listener), 1000);
+            if (result instanceof byte[][]) {
+                return (byte[][]) result;
+            } else if (result instanceof byte[]) {
+                return new byte[][]{ (byte[]) result };
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "sendCommand error", e);
+        }
+        return null;
+    }
+
+    /**
+     * Set brightness
+     * @param level (0-100)
+     * @param auto (true/false)
+     */
+    public Boolean setBrightness(int level, boolean auto) {
+        return this.sendSetting(brightnessRequest(level, auto));
+    }
+
+    /**
+     * Set brightness without waiting, for sliders: only the latest value still waiting is sent
+     * @param level (0-100)
+     * @param auto (true/false)
+     */
+    public CompletableFuture<Boolean> setBrightnessAsync(int level, boolean auto) {
+        return this.sendSettingAsync(brightnessRequest(level, auto));
+    }
+
+    private byte[] brightnessRequest(int level, boolean auto) {
+        int fallbackLevel = 30;
+        int safeLevel = (level >= 0 && level <= 100) ? level : fallbackLevel;
+
+        // Scale the level to 0-63
+        int scaledLevel = (safeLevel * 63) / 100;
+
+        byte[] requestBytes = packet(BrightnessEncoder.BLOCK_LENGTH);
+        new BrightnessEncoder().wrap(requestBytes, 0)
+            .level(scaledLevel)
+            .auto(auto ? 1 : 0);
+        return requestBytes;
+    }
+
+    /**
+     * Set silent mode
+     * @param silent (true/false)
+     */
+    public Boolean setSilentMode(boolean silent) {
+        return this.sendSetting(silentModeRequest(silent));
+    }
+
+    /**
+     * Set silent mode without waiting, only the latest value still waiting is sent
+     * @param silent (true/false)
+     */
+    public CompletableFuture<Boolean> setSilentModeAsync(boolean silent) {
+        return this.sendSettingAsync(silentModeRequest(silent));
+    }
+
+    private byte[] silentModeRequest(boolean silent) {
+        byte[] requestBytes = packet(SilentModeEncoder.BLOCK_LENGTH);
+        new SilentModeEncoder().wrap(requestBytes, 0).enabled(silent ? 1 : 0);
+        return requestBytes;
+    }
+
+
+    public void setDashboardPosition(int height, int depth){
+        // clamp height and depth to 0-8 and 1-9 respectively:
+        height = Math.max(0, Math.min(height, 8));
+        depth = Math.max(1, Math.min(depth, 9));
+
+        int globalCounter = connectionManager.nextSequence(Sides.BOTH, 0x26);
+
+        byte[] requestBytes = packet(DashboardPositionEncoder.BLOCK_LENGTH);
+        new DashboardPositionEncoder().wrap(requestBytes, 0)
+            .seq(globalCounter)
+            .height(height)
+            .depth(depth);
+
+        // Latest wins, a position still waiting to be sent is replaced
+        this.connectionManager.sendCommand(new EvenOsCommand<byte[]>(new byte[][]{ requestBytes }, null, Sides.BOTH,
+            EvenOsCommand.Priority.INTERACTIVE, 0, Byte.valueOf((byte) 0x26)));
+    }  
+
+    /** 
+     * Set microphone enabled
+     * @param enabled (true/false)
+     */
+    public Boolean setMicrophoneEnabled(boolean enabled) {
+        byte[] requestBytes = packet(MicrophoneEncoder.BLOCK_LENGTH);
+        new MicrophoneEncoder().wrap(requestBytes, 0).enabled(enabled ? 1 : 0);
+        byte[] responseHeader = { requestBytes[0] };
+        byte[] responseData = this.sendCommand(requestBytes, responseHeader, Sides.BOTH);
+        return responseData != null && responseData.length > 0 && (responseData[0] == (byte)0xC9);
+    }
+
+
+    /**
+     * Heartbeat, numbered by the sequence allocator of the arms
+     */
+    public Boolean heartbeat() {
+        return heartbeat(connectionManager.nextSequence(Sides.BOTH, 0x25));
+    }
+
+    /**
+     * Heartbeat
+     * @param seq (sequence number)
+     * @param length (length of the heartbeat)
+     */
+    public Boolean heartbeat(int seq) {
+        byte[] requestBytes = packet(HeartbeatEncoder.BLOCK_LENGTH);
+        new HeartbeatEncoder().wrap(requestBytes, 0)
+            .seq(seq)
+            .seq2(seq + 1); // Second instance of the sequence number, maybe can split in two packets?
+        // The README lists no response data for the heartbeat (G03), so only its opcode is matched
+        byte[] responseHeader = { requestBytes[0] };
+        byte[] responseData = this.sendCommand(requestBytes, responseHeader, Sides.BOTH, EvenOsCommand.Priority.REALTIME);
+        return responseData != null && responseData.length > 0 && (responseData[0] == (byte)0xC9);
+    }
+
+    /**
+     * Exit app
+     * tell the glasses to exit function to dashboard
+     * @return (byte[] array of bytes)
+     */
+    public Boolean exitApp() {
+        byte[] requestBytes = packet(ExitAppEncoder.BLOCK_LENGTH);
+        new ExitAppEncoder().wrap(requestBytes, 0);
+        byte[] responseHeader = { requestBytes[0] };
+        byte[] responseData = this.sendCommand(requestBytes, responseHeader, Sides.BOTH, EvenOsCommand.Priority.REALTIME);
+        return responseData != null && responseData.length > 0 && (responseData[0] == (byte)0xC9);
+    }
+
+    public Boolean initialize() {
+        byte[] requestBytes = packet(InitializeEncoder.BLOCK_LENGTH);
+        new InitializeEncoder().wrap(requestBytes, 0); // Maybe there is more options to send?
+        byte[] responseHeader = { requestBytes[0] };
+        byte[] responseData = this.sendCommand(requestBytes, responseHeader, Sides.LEFT);
+        return responseData != null && responseData.length > 0 && (responseData[0] == (byte)0xC9);
+    }
+
+    public void quickRestart() {
+        byte[] requestBytes = packet(QuickRestartEncoder.BLOCK_LENGTH);
+        new QuickRestartEncoder().wrap(requestBytes, 0); // Maybe there is more options to send?
+        this.connectionManager.sendCommand(new EvenOsCommand<byte[]>(requestBytes, null, Sides.BOTH));
+    }
+
+    /**
+     * Get firmware info
+     * @return (EvenOsCommand)
+     */
+    public String getFirmwareInfo() {
+        byte[] requestBytes = packet(FirmwareInfoEncoder.BLOCK_LENGTH);
+        new FirmwareInfoEncoder().wrap(requestBytes, 0);
+        byte[] responseHeader = new byte[] {
+            (byte) 0x6E, //n
+            (byte) 0x65, //e
+            (byte) 0x74, //t
+            (byte) 0x20, //
+            (byte) 0x62, //b
+            (byte) 0x75, //u
+            (byte) 0x69, //i
+            (byte) 0x6C, //l
+            (byte) 0x64  //d
+        };
+        byte[] responseData = this.sendCommand(requestBytes, responseHeader, Sides.BOTH, EvenOsCommand.Priority.BACKGROUND);
+        if (responseData == null || responseData.length < 4) return "unknown";
+        return (responseData[0] & 0xFF) + "." + (responseData[1] & 0xFF) + "." + (responseData[2] & 0xFF) + "." + (responseData[3] & 0xFF);
+    } 
+
+    /**
+     * Set wear detection
+     * @param enabled (true/false)
+     * @return (byte[] array of bytes)
+     */
+    public boolean setWearDetection(boolean enabled) {
+        byte[] requestBytes = packet(WearDetectionEncoder.BLOCK_LENGTH);
+        new WearDetectionEncoder().wrap(requestBytes, 0).enabled(enabled ? 1 : 0);
+        byte[] responseHeader = { requestBytes[0] };
+        byte[] responseData = this.sendCommand(requestBytes, responseHeader, Sides.BOTH);
+        return responseData != null && responseData.length > 0 && (responseData[0] == (byte)0xC9);
+    }
+
+    /**
+     * Get battery info for both arms
+     * @return (byte[] array of bytes)
+     */
+    public int getBatteryInfo(Sides side) {
+        byte[] requestBytes = packet(BatteryQueryEncoder.BLOCK_LENGTH);
+        new BatteryQueryEncoder().wrap(requestBytes, 0).platform(0x01); // use 0x02 for iOS
+        byte[] responseHeader = { requestBytes[0] };
+        byte[] responseData = this.sendCommand(requestBytes, responseHeader, side, EvenOsCommand.Priority.BACKGROUND);
+        if (responseData != null && responseData.length > 2) {
+            return responseData[2] & 0xFF;
+        }
+        return -1;
+    }
+
+    /**
+    * Get device (glasses) uptime
+     * @return (byte[] array of bytes)
+     */
+    public Boolean getDeviceUptime() {
+        byte[] requestBytes = packet(UptimeEncoder.BLOCK_LENGTH);
+        new UptimeEncoder().wrap(requestBytes, 0);
+        byte[] responseHeader = { requestBytes[0] };
+        byte[] responseData = this.sendCommand(requestBytes, responseHeader, Sides.BOTH, EvenOsCommand.Priority.BACKGROUND);
+        return responseData != null && responseData.length > 0 && (responseData[0] == (byte)0xC9);
+    }
+
+    /**
+     * Fetch buried point data, which is essentially user usage tracking
+     * @return (byte[] array of bytes)
+     */
+    public Boolean getUsageInfo() {
+        byte[] requestBytes = packet(UsageInfoEncoder.BLOCK_LENGTH);
+        new UsageInfoEncoder().wrap(requestBytes, 0);
+        byte[] responseHeader = { requestBytes[0] };
+        byte[] responseData = this.sendCommand(requestBytes, responseHeader, Sides.BOTH, EvenOsCommand.Priority.BACKGROUND);
+        if (responseData == null) return false;
+        Log.d("EVEN_G1_Debug1", "getUsageInfo: " + Arrays.toString(responseData));
+        List<List<Integer>> blocks = new ArrayList<>();
+        List<Integer> currentBlock = new ArrayList<>();
+        for (int i = 0; i < responseData.length; i++) {
+            int b = responseData[i] & 0xFF;
+            if (i + 2 < responseData.length) {
+                int b1 = responseData[i] & 0xFF;
+                int b2 = responseData[i + 1] & 0xFF;
+                int b3 = responseData[i + 2] & 0xFF;
+                if (b1 == 233 && b2 == 7 && (b3 == 4 || b3 == 5)) {
+                    if (!currentBlock.isEmpty()) {
+                        blocks.add(currentBlock);
+                        currentBlock = new ArrayList<>();
+                    }
+                }
+            }
+            currentBlock.add(b);
+        }
+        if (!currentBlock.isEmpty()) {
+            blocks.add(currentBlock);
+        }
+        Log.d("EVEN_G1_Debug1", "Blocks: " + blocks.size());
+        for (int i = 0; i < blocks.size(); i++) {
+            Log.d("EVEN_G1_Debug1", "Block " + i + ": " + blocks.get(i));
+        }
+        return responseData.length > 1 && (responseData[1] == (byte)0xC9);
+    }
+    
+
+    /**
+     * Set quick note
+     * @TODO: Need more information about this command!
+     * @param note (String)
+     * @return (byte[] array of bytes)
+     */
+    public Boolean setQuickNote(String note) {
+        throw new UnsupportedOperationException("Not implemented yet");
+        /*
+        return new byte[] {
+            (byte) 0x1E,
+            (byte) note.getBytes().length,
+            note.getBytes(),
+        };
+        */
+    }
+    
+
+    /**
+     * Set head up angle
+     * @param angle (0-60)
+     */
+    public Boolean setHeadUpAngle(int angle) {
+        return this.sendSetting(headUpAngleRequest(angle));
+    }
+
+    /**
+     * Set head up angle without waiting, for sliders: only the latest value still waiting is sent
+     * @param angle (0-60)
+     */
+    public CompletableFuture<Boolean> setHeadUpAngleAsync(int angle) {
+        return this.sendSettingAsync(headUpAngleRequest(angle));
+    }
+
+    private byte[] headUpAngleRequest(int angle) {
+        // Validate angle range (0 ~ 60)
+        int clamped = Math.max(0, Math.min(angle, 60));
+        byte[] requestBytes = packet(HeadUpAngleEncoder.BLOCK_LENGTH);
+        new HeadUpAngleEncoder().wrap(requestBytes, 0).angle(clamped);
+        return requestBytes;
+    }
+    
+    
+    /**
+     * Set notification config  
+     * @param jsonData (json data)
+     * @return chunks (byte[][] array of chunks) Multiple sends
+     */
+    public Boolean setNotificationConfig(String jsonData) {
+        byte[] jsonBytes = jsonData.getBytes(StandardCharsets.UTF_8);
+        ChunkPlanner.Plan plan = planChunks(ChunkPlanner.Format.NOTIFICATION_JSON, jsonBytes.length, Sides.LEFT);
+        byte[][] chunks = encodeNotificationConfig(jsonBytes, plan, connectionManager.getPacketPool());
+        byte[] responseHeader = { 0x04 };
+        byte[][] responseData = this.sendCommand(chunks, responseHeader, Sides.LEFT);
+        return responseData != null && responseData.length > 0 && responseData[0].length > 0 && (responseData[0][0] == (byte)0xC9);
+    }
+
+    /**
+     * Encode the notification config packets
+     * @param jsonBytes (UTF-8 json data)
+     * @param plan (chunks of the json data)
+     * @return chunks (byte[][] array of packets)
+     */
+    public static byte[][] encodeNotificationConfig(byte[] jsonBytes, ChunkPlanner.Plan plan) {
+        return encodeNotificationConfig(jsonBytes, plan, null);
+    }
+
+    /**
+     * Encode the notification config packets into buffers of a pool
+     * @param pool (lends the packets, null to allocate them)
+     */
+    public static byte[][] encodeNotificationConfig(byte[] jsonBytes, ChunkPlanner.Plan plan, PacketPool pool) {
+        byte[][] chunks = new byte[plan.count][];
+        WhitelistEncoder encoder = new WhitelistEncoder();
+        for (int i = 0; i < plan.count; i++) {
+            byte[] data = allocate(pool, plan.packetSize(i));
+            encoder.wrap(data, 0)
+                .total(plan.count)
+                .index(i)
+                .json(jsonBytes, plan.start(i), plan.length(i));
+            chunks[i] = data;
+        }
+        return chunks;
+    }
+
+    /**
+     * Set dashboard mode
+     * @param mode DashboardMode enum value
+     * @param subMode DashboardSubMode enum value
+     */
+    public Boolean setDashboardMode(DashboardMode mode, DashboardSubMode subMode) {
+        if (mode == DashboardMode.MINIMAL && subMode != DashboardSubMode.NOTES) {
+            throw new IllegalArgumentException("SubMode not supported for MINIMAL mode");
+        }
+        byte[] requestBytes = packet(DashboardModeEncoder.BLOCK_LENGTH);
+        new DashboardModeEncoder().wrap(requestBytes, 0)
+            .mode(mode.getValue())
+            .subMode(subMode.getValue());
+        byte[] responseHeader = { requestBytes[0] };
+        byte[] responseData = this.sendCommand(requestBytes, responseHeader, Sides.BOTH);
+        return responseData != null && responseData.length > 0 && (responseData[0] == (byte)0xC9);
+    }
+
+    public Boolean sendText(String text) {
+        return sendText(text, null);
+    }
+
+    /**
+     * Send a text, true once every page is acknowledged
+     * @param listener follows the acknowledgement of each page, on the event loop of the arm; may be null
+     */
+    public Boolean sendText(String text, EvenOsCommand.ProgressListener listener) {
+        byte[] textBytes = text.getBytes(StandardCharsets.UTF_8);
+        ChunkPlanner.Plan plan = planChunks(ChunkPlanner.Format.TEXT, textBytes.length, Sides.LEFT);
+        byte[][] packets = encodeText(textBytes, plan, connectionManager.nextSequence(Sides.LEFT, 0x4E),
+            connectionManager.getPacketPool());
+        byte[][] responseData = this.sendCommand(packets, TEXT_RESPONSE_HEADER, Sides.LEFT, EvenOsCommand.Priority.INTERACTIVE, listener);
+        return responseData != null && responseData.length > 0 && responseData[0].length > 0 && (responseData[0][0] == (byte)0xC9);
+    }
+
+    /**
+     * Open a text session, for a text updated often (dashboard, teleprompter): each update
+     * only sends the pages that changed. Call its invalidate after sending anything else to the display.
+     */
+    public TextSession openTextSession() {
+        return new TextSession(this, connectionManager);
+    }
+
+    /**
+     * Open a text stream writer, for a growing text (live captions): each update only sends the
+     * appended characters, at their position on the page. Call its invalidate after sending anything
+     * else to the display.
+     */
+    public TextStreamWriter openTextStreamWriter() {
+        return new TextStreamWriter(this, connectionManager);
+    }
+
+    /**
+     * Encode the text packets
+     * @param textBytes (UTF-8 text)
+     * @param plan (chunks of the text)
+     * @return (byte[][] array of packets)
+     */
+    public static byte[][] encodeText(byte[] textBytes, ChunkPlanner.Plan plan) {
+        return encodeText(textBytes, plan, 0);
+    }
+
+    /**
+     * Encode the text packets
+     * @param textBytes (UTF-8 text)
+     * @param plan (chunks of the text)
+     * @param seq (sequence number of the transfer, shared by its packets)
+     * @return (byte[][] array of packets)
+     */
+    public static byte[][] encodeText(byte[] textBytes, ChunkPlanner.Plan plan, int seq) {
+        return encodeText(textBytes, plan, seq, null);
+    }
+
+    /**
+     * Encode the text packets into buffers of a pool
+     * @param pool (lends the packets, null to allocate them)
+     */
+    public static byte[][] encodeText(byte[] textBytes, ChunkPlanner.Plan plan, int seq, PacketPool pool) {
+        int totalPackets = plan.count;
+        byte[][] packets = new byte[totalPackets][];
+        TextEncoder encoder = new TextEncoder();
+        for (int i = 0; i < totalPackets; i++) {
+            byte[] packet = allocate(pool, TextEncoder.BLOCK_LENGTH + plan.length(i));
+            encoder.wrap(packet, 0)
+                .seq(seq)
+                .total(totalPackets)
+                .index(i)
+                .status(0x71)                                 // newscreen: 0x70 (Text) + 0x01 (New content)
+                .page(i + 1)
+                .maxPage(totalPackets)
+                .text(textBytes, plan.start(i), plan.length(i));
+            packets[i] = packet;
+        }
+        return packets;
+    }
+
+ 
+    /**
+     * Transfer bmp
+     * @param bmpData (byte[] array of bytes)
+     * @return (byte[][] array of chunks)
+     */
+    public Boolean sendBmp(byte[] bmpData) {
+        return sendBmp(bmpData, null);
+    }
+
+    /**
+     * Transfer bmp, true once every chunk is acknowledged
+     * @param listener follows the acknowledgement of each chunk, on the event loop of the arm; may be null
+     */
+    public Boolean sendBmp(byte[] bmpData, EvenOsCommand.ProgressListener listener) {
+        ChunkPlanner.Plan plan = planChunks(ChunkPlanner.Format.BITMAP, bmpData.length, Sides.LEFT);
+        byte[][] result = encodeBmp(bmpData, plan, connectionManager.getPacketPool());
+        byte[] responseHeader = { 0x15 };
+        byte[][] responseData = this.sendCommand(result, responseHeader, Sides.LEFT, EvenOsCommand.Priority.BULK, listener);
+        return responseData != null && responseData.length > 0 && responseData[0].length > 0 && (responseData[0][0] == (byte)0xC9);
+    }
+
+    /**
+     * Encode the bmp packets
+     * @param bmpData (byte[] array of bytes)
+     * @param plan (chunks of the bmp data)
+     * @return (byte[][] array of packets)
+     */
+    public static byte[][] encodeBmp(byte[] bmpData, ChunkPlanner.Plan plan) {
+        return encodeBmp(bmpData, plan, null);
+    }
+
+    /**
+     * Encode the bmp packets into buffers of a pool
+     * @param pool (lends the packets, null to allocate them)
+     */
+    public static byte[][] encodeBmp(byte[] bmpData, ChunkPlanner.Plan plan, PacketPool pool) {
+        int totalChunks = plan.count;
+
+        byte[][] result = new byte[totalChunks][];
+        BitmapFirstChunkEncoder first = new BitmapFirstChunkEncoder();
+        BitmapChunkEncoder next = new BitmapChunkEncoder();
+        for (int i = 0; i < totalChunks; i++) {
+            int start = plan.start(i);
+            int length = plan.length(i);
+            if (i == 0) {
+                // The first chunk carries the address
+                result[i] = allocate(pool, BitmapFirstChunkEncoder.BLOCK_LENGTH + length);
+                first.wrap(result[i], 0).seq(i).data(bmpData, start, length);
+            } else {
+                result[i] = allocate(pool, BitmapChunkEncoder.BLOCK_LENGTH + length);
+                next.wrap(result[i], 0).seq(i).data(bmpData, start, length);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * End transfer bmp, and show the image
+     * @return (byte[][] array of chunks)
+     */
+    public Boolean endTransferBmp() {
+        byte[] requestBytes = packet(EndBitmapEncoder.BLOCK_LENGTH);
+        new EndBitmapEncoder().wrap(requestBytes, 0);
+        byte[] responseHeader = { requestBytes[0] };
+        byte[][] responseData = this.sendCommand(new byte[][]{requestBytes}, responseHeader, Sides.BOTH);
+        return responseData != null && responseData.length > 0 && responseData[0].length > 0 && (responseData[0][0] == (byte)0xC9);
+    }
+
+    /**
+     * CRC check
+     * @param bmpData (byte[] array of bytes)
+     * @return (byte[] array of bytes)
+     */
+    public Boolean crcCheck(byte[] bmpData) {
+        byte[] ADDRESS_HEADER = new byte[]{0x00, 0x1C, 0x00, 0x00}; 
+
+        // CRC of the address followed by the bitmap
+        CRC32 crc32 = new CRC32(); //Maybe we can use CRC32-XZ instead
+        crc32.update(ADDRESS_HEADER);
+        crc32.update(bmpData);
+        long crc = crc32.getValue();
+
+        byte[] requestBytes = packet(BitmapCrcEncoder.BLOCK_LENGTH);
+        new BitmapCrcEncoder().wrap(requestBytes, 0).crc(crc);
+
+        byte[] responseHeader = { requestBytes[0] };
+        byte[][] responseData = this.sendCommand(new byte[][]{requestBytes}, responseHeader, Sides.BOTH);
+        return responseData != null && responseData.length > 0 && responseData[0].length > 0 && (responseData[0][0] == (byte)0xC9);
+    }
+
+    /**
+     * True if a packet is the 0xF5 device event of a code
+     */
+    private static boolean isDeviceEvent(byte[] data, int code) {
+        return DeviceEventDecoder.matches(data, 0, data.length) && deviceEventCode(data) == code;
+    }
+
+    /**
+     * Code of a 0xF5 device event
+     */
+    private static int deviceEventCode(byte[] data) {
+        return new DeviceEventDecoder().wrap(data, 0, data.length).code();
+    }
+
+    /**
+     * Prefix of the 0xF5 device event of a code, to index its listener
+     */
+    private static byte[] deviceEventPrefix(int code) {
+        return new byte[]{ (byte) DeviceEventDecoder.OPCODE, (byte) code };
+    }
+
+    public EvenOsEventListener<Boolean> onDoubleTap() {
+        return new EvenOsEventListener<Boolean>() {
+            @Override
+            public boolean matches(byte[] data, EvenOsApi.Sides side) {
+                return isDeviceEvent(data, Gesture.DOUBLE_TAP.code);
+            }
+            @Override
+            public byte[] prefix() {
+                return deviceEventPrefix(Gesture.DOUBLE_TAP.code);
+            }
+            @Override
+            public Boolean parse(byte[] data, EvenOsApi.Sides side) {
+                return deviceEventCode(data) == 0x00;
+            }
+        };
+    }
+
+    public EvenOsEventListener<Boolean> onSingleTap() {
+        return new EvenOsEventListener<Boolean>() {
+            @Override
+            public boolean matches(byte[] data, EvenOsApi.Sides side) {
+                return isDeviceEvent(data, Gesture.SINGLE_TAP.code);
+            }
+            @Override
+            public byte[] prefix() {
+                return deviceEventPrefix(Gesture.SINGLE_TAP.code);
+            }
+            @Override
+            public Boolean parse(byte[] data, EvenOsApi.Sides side) {
+                return deviceEventCode(data) == 0x00;
+            }
+        };
+    }
+
+     public EvenOsEventListener<byte[]> onAllResponses() {
+        return new EvenOsEventListener<byte[]>() {
+            @Override
+            public boolean matches(byte[] data, EvenOsApi.Sides side) {
+                return true;
+            }
+            @Override
+            public byte[] parse(byte[] data, EvenOsApi.Sides side) {
+                // The packet buffer is reused after the dispatch
+                return data.clone();
+            }
+        };
+    }
+
+    public EvenOsEventListener<Boolean> onTripleTap() {
+        return new EvenOsEventListener<Boolean>() {
+            @Override
+            public boolean matches(byte[] data, EvenOsApi.Sides side) {
+                return isDeviceEvent(data, Gesture.TRIPLE_TAP.code);
+            }
+            @Override
+            public byte[] prefix() {
+                return deviceEventPrefix(Gesture.TRIPLE_TAP.code);
+            }
+            @Override
+            public Boolean parse(byte[] data, EvenOsApi.Sides side) {
+                return deviceEventCode(data) == 0x00;
+            }
+        };
+    }
+
+    public EvenOsEventListener<Boolean> onLongPressHeld() {
+        return new EvenOsEventListener<Boolean>() {
+            @Override
+            public boolean matches(byte[] data, EvenOsApi.Sides side) {
+                return isDeviceEvent(data, Gesture.LONG_PRESS_HELD.code);
+            }
+            @Override
+            public byte[] prefix() {
+                return deviceEventPrefix(Gesture.LONG_PRESS_HELD.code);
+            }
+            @Override
+            public Boolean parse(byte[] data, EvenOsApi.Sides side) {
+                return deviceEventCode(data) == 0x17;
+            }
+        };
+    }
+
+    /**
+     * Every touchpad gesture, as reported by each arm: see recognizeGestures to get each one once
+     */
+    public EvenOsEventListener<Gesture> onGesture() {
+        return new EvenOsEventListener<Gesture>() {
+            @Override
+            public boolean matches(byte[] data, EvenOsApi.Sides side) {
+                return DeviceEventDecoder.matches(data, 0, data.length) && Gesture.of((byte) deviceEventCode(data)) != null;
+            }
+            @Override
+            public byte[] prefix() {
+                return new byte[]{ (byte) DeviceEventDecoder.OPCODE };
+            }
+            @Override
+            public Gesture parse(byte[] data, EvenOsApi.Sides side) {
+                return Gesture.of((byte) deviceEventCode(data));
+            }
+        };
+    }
+
+    /**
+     * Follow the gestures of both arms, each gesture delivered once whichever arms reported it
+     * @param windowMillis reports of the same gesture this close are merged, e.g. GestureRecognizer.DEFAULT_WINDOW_MILLIS
+     * @param executor delivers the events; null to call the listener on the event loop of the arm
+     * @return the recognizer, close it to stop
+     */
+    public GestureRecognizer recognizeGestures(long windowMillis, Executor executor, Consumer<GestureEvent> listener) {
+        return new GestureRecognizer(windowMillis, executor, listener).attach(connectionManager.getEventBus(), this);
+    }
+
+    public EvenOsEventListener<Boolean> onLongPressRelease() {
+        return new EvenOsEventListener<Boolean>() {
+            @Override
+            public boolean matches(byte[] data, EvenOsApi.Sides side) {
+                return isDeviceEvent(data, Gesture.LONG_PRESS_RELEASE.code);
+            }
+            @Override
+            public byte[] prefix() {
+                return deviceEventPrefix(Gesture.LONG_PRESS_RELEASE.code);
+            }
+            @Override
+            public Boolean parse(byte[] data, EvenOsApi.Sides side) {
+                return deviceEventCode(data) == 0x18;
+            }
+        };
+    }
+
+    public EvenOsEventListener<Boolean> onBlePairedSuccess() {
+        return new EvenOsEventListener<Boolean>() {
+            @Override
+            public boolean matches(byte[] data, EvenOsApi.Sides side) {
+                return isDeviceEvent(data, 0x11);
+            }
+            @Override
+            public byte[] prefix() {
+                return deviceEventPrefix(0x11);
+            }
+            @Override
+            public Boolean parse(byte[] data, EvenOsApi.Sides side) {
+                return deviceEventCode(data) == 0x11;
+            }
+        };
+    }
+
+    public EvenOsEventListener<Integer> onCaseBattery() {
+        return new EvenOsEventListener<Integer>() {
+            @Override
+            public boolean matches(byte[] data, EvenOsApi.Sides side) {
+                return CaseBatteryDecoder.matches(data, 0, data.length);
+            }
+            @Override
+            public byte[] prefix() {
+                return new byte[]{ (byte) CaseBatteryDecoder.OPCODE, (byte) CaseBatteryDecoder.SUBCODE };
+            }
+            @Override
+            public Integer parse(byte[] data, EvenOsApi.Sides side) {
+                int rawValue = new CaseBatteryDecoder().wrap(data, 0, data.length).level();
+                int percentage = Math.min(rawValue, 64); //No more than 100%
+                return (percentage * 100) / 64; //scale to 0-100
+            }
+        };
+    }
+
+    public EvenOsEventListener<Integer> onGlassesBattery() {
+        return new EvenOsEventListener<Integer>() {
+            @Override
+            public boolean matches(byte[] data, EvenOsApi.Sides side) {
+                return GlassesBatteryDecoder.matches(data, 0, data.length);
+            }
+            @Override
+            public byte[] prefix() {
+                return new byte[]{ (byte) GlassesBatteryDecoder.OPCODE, (byte) GlassesBatteryDecoder.SUBCODE };
+            }
+            @Override
+            public Integer parse(byte[] data, EvenOsApi.Sides side) {
+                int rawValue = new GlassesBatteryDecoder().wrap(data, 0, data.length).level();
+                int percentage = Math.min(rawValue, 64); //No more than 100%
+                return (percentage * 100) / 64; //scale to 0-100
+            }
+        };
+    }
+    
+    
+    public EvenOsEventListener<Boolean> onCaseCharging() {
+        return new EvenOsEventListener<Boolean>() {
+            @Override
+            public boolean matches(byte[] data, EvenOsApi.Sides side) {
+                return CaseChargingDecoder.matches(data, 0, data.length);
+            }
+            @Override
+            public byte[] prefix() {
+                return new byte[]{ (byte) CaseChargingDecoder.OPCODE, (byte) CaseChargingDecoder.SUBCODE };
+            }
+            @Override
+            public Boolean parse(byte[] data, EvenOsApi.Sides side) {
+                return true;
+            }
+        };
+    }
+
+    public EvenOsEventListener<Boolean> onCaseClosed() {
+        return new EvenOsEventListener<Boolean>() {
+            @Override
+            public boolean matches(byte[] data, EvenOsApi.Sides side) {
+                return CaseClosedDecoder.matches(data, 0, data.length);
+            }
+            @Override
+            public byte[] prefix() {
+                return new byte[]{ (byte) CaseClosedDecoder.OPCODE, (byte) CaseClosedDecoder.SUBCODE };
+            }
+            @Override
+            public Boolean parse(byte[] data, EvenOsApi.Sides side) {
+                return true;
+            }
+        };
+    }
+
+    public EvenOsEventListener<Boolean> onCaseOpen() {
+        return new EvenOsEventListener<Boolean>() {
+            @Override
+            public boolean matches(byte[] data, EvenOsApi.Sides side) {
+                return CaseOpenDecoder.matches(data, 0, data.length);
+            }
+            @Override
+            public byte[] prefix() {
+                return new byte[]{ (byte) CaseOpenDecoder.OPCODE, (byte) CaseOpenDecoder.SUBCODE };
+            }
+            @Override
+            public Boolean parse(byte[] data, EvenOsApi.Sides side) {
+                return true;
+            }
+        };
+    }
+
+
+}
@@ -0,0 +1,115 @@
+package com.evenrealities.even_g1_sdk.api;
+
+import java.util.function.Function;
+import java.util.concurrent.CompletableFuture;
+import com.evenrealities.even_g1_sdk.api.EvenOsApi;
+
+public class EvenOsCommand<T> {
+
+    /**
+     * Scheduling lane of a command, from the most to the least urgent.
+     * Waiting commands of a higher lane are always sent first, and BULK transfers are written
+     * in bursts, so a tap doesn't wait behind a bitmap.
+     */
+    public enum Priority {
+        /** Link keep-alive and immediate reactions (heartbeat, exit) */
+        REALTIME,
+        /** Default: what the user is waiting for (text, settings) */
+        INTERACTIVE,
+        /** Queries nobody is waiting for (battery, firmware info) */
+        BACKGROUND,
+        /** Large transfers (bitmaps), they yield to the other lanes between bursts */
+        BULK
+    }
+
+    /**
+     * Progress of a multi-packet command whose chunks are each acknowledged (text, bitmap),
+     * called on the event loop of the arm: keep it short
+     */
+    public interface ProgressListener {
+        /**
+         * @param side the arm that acknowledged the chunk
+         * @param chunk index of the chunk in requestPackets
+         * @param success false if the glasses rejected the chunk, it may be sent again
+         * @param acknowledged chunks confirmed so far by this arm
+         * @param total chunks of the command
+         */
+        void onChunk(EvenOsApi.Sides side, int chunk, boolean success, int acknowledged, int total);
+    }
+
+    public final byte[][] requestPackets;
+    public final byte[] responseHeader;
+    public final EvenOsApi.Sides sides;
+    /**
+     * Deadline of the command, from the time it is sent with ConnectionManager: once it expires
+     * the command leaves the queue and its future fails with a TimeoutException.
+     * 0 lets the scheduler apply its response timeout once the command is written.
+     */
+    public final long timeoutMillis;
+    public final Priority priority;
+    /**
+     * Key of a setting whose latest value is all that matters (e.g. the brightness): a command
+     * still waiting to be sent is replaced by the next one with an equal key, latest wins, and
+     * completes with its result. null for commands that must all be sent.
+     */
+    public final Object coalesceKey;
+    public final CompletableFuture<T> future = new CompletableFuture<>();
+    private volatile ProgressListener progressListener;
+
+    public EvenOsCommand(byte[][] requestPackets, byte[] responseHeader, EvenOsApi.Sides sides, Priority priority, long timeoutMillis, Object coalesceKey) {
+        this.requestPackets = requestPackets;
+        this.responseHeader = responseHeader;
+        this.sides = sides;
+        this.priority = priority;
+        this.timeoutMillis = timeoutMillis;
+        this.coalesceKey = coalesceKey;
+    }
+
+    public EvenOsCommand(byte[][] requestPackets, byte[] responseHeader, EvenOsApi.Sides sides, Priority priority, long timeoutMillis) {
+        this(requestPackets, responseHeader, sides, priority, timeoutMillis, null);
+    }
+
+    public EvenOsCommand(byte[][] requestPackets, byte[] responseHeader, EvenOsApi.Sides sides, Priority priority) {
+        this(requestPackets, responseHeader, sides, priority, 0);
+    }
+
+    public EvenOsCommand(byte[][] requestPackets, byte[] responseHeader, EvenOsApi.Sides sides, long timeoutMillis) {
+        this(requestPackets, responseHeader, sides, Priority.INTERACTIVE, timeoutMillis);
+    }
+
+    public EvenOsCommand(byte[][] requestPackets, byte[] responseHeader, EvenOsApi.Sides sides) {
+        this(requestPackets, responseHeader, sides, 0);
+    }
+
+    public EvenOsCommand(byte[] singleRequest, byte[] responseHeader, EvenOsApi.Sides sides, Priority priority) {
+        this(new byte[][]{ singleRequest }, responseHeader, sides, priority, 0);
+    }
+
+    public EvenOsCommand(byte[] singleRequest, byte[] responseHeader, EvenOsApi.Sides sides, long timeoutMillis) {
+        this(new byte[][]{ singleRequest }, responseHeader, sides, timeoutMillis);
+    }
+
+    public EvenOsCommand(byte[] singleRequest, byte[] responseHeader, EvenOsApi.Sides sides) {
+        this(new byte[][]{ singleRequest }, responseHeader, sides, 0);
+    }
+
+    /**
+     * Same command for another side, with its own future
+     */
+    public EvenOsCommand<T> forSide(EvenOsApi.Sides side) {
+        return new EvenOsCommand<T>(requestPackets, responseHeader, side, priority, timeoutMillis, coalesceKey)
+            .setProgressListener(progressListener);
+    }
+
+    /**
+     * Follow the acknowledgement of each chunk, set before sending the command
+     */
+    public EvenOsCommand<T> setProgressListener(ProgressListener progressListener) {
+        this.progressListener = progressListener;
+        return this;
+    }
+
+    public ProgressListener getProgressListener() {
+        return progressListener;
+    }
+}
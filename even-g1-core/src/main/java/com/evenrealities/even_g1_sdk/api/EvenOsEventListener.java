@@ -13,6 +13,15 @@ public interface EvenOsEventListener<T> {
      */
     boolean matches(byte[] data, EvenOsApi.Sides side);
 
+    /**
+     * Bytes every matching packet starts with (opcode, sub-opcode...), used to index the listener.
+     * The packets starting with it are still checked with matches.
+     * @return the prefix, or null if the listener may match any packet
+     */
+    default byte[] prefix() {
+        return null;
+    }
+
     /**
      * Parse the event data
      * @param data The data to parse
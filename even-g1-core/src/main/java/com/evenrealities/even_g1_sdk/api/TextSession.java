@@ -0,0 +1,210 @@
+/**
+ * TextSession keeps a text on the display and updates it page by page.
+ *
+ * The text is split in pages of LINES_PER_PAGE lines, a page longer than a packet takes several
+ * pages. The session remembers what each page of the display shows: an update only sends the
+ * pages whose content changed, in the transfer (sequence number) already displayed, so a
+ * dashboard or a teleprompter that changes one line resends one page instead of the whole text.
+ *
+ * The whole text is sent again, in a new transfer, when the number of pages changes, after a
+ * failed update, or after invalidate (something else was displayed, the glasses reconnected).
+ *
+ * The bytes saved are the bytes a full resend of the pages would have written.
+ *
+ * Thread safe, updates are sent one at a time.
+ */
+
+package com.evenrealities.even_g1_sdk.api;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import com.evenrealities.even_g1_sdk.connection.ConnectionManager;
+import com.evenrealities.even_g1_sdk.connection.PacketPool;
+import com.evenrealities.even_g1_sdk.log.Log;
+import com.evenrealities.even_g1_sdk.protocol.TextAckDecoder;
+import com.evenrealities.even_g1_sdk.protocol.TextEncoder;
+
+public class TextSession {
+
+    private static final String TAG = "EVEN_G1_TextSession";
+
+    /** Lines shown at once by the display */
+    public static final int LINES_PER_PAGE = 5;
+
+    private static final byte[] RESPONSE_HEADER = { TextEncoder.OPCODE };
+
+    private final EvenOsApi api;
+    private final ConnectionManager connectionManager;
+    private final TextEncoder encoder = new TextEncoder();
+    private final TextAckDecoder ack = new TextAckDecoder();
+
+    // Content of each page of the display, null once it is unknown
+    private byte[][] shown;
+    private int seq;
+
+    private long updates;
+    private long pagesSent;
+    private long pagesSkipped;
+    private long bytesSent;
+    private long bytesSaved;
+
+    TextSession(EvenOsApi api, ConnectionManager connectionManager) {
+        this.api = api;
+        this.connectionManager = connectionManager;
+    }
+
+    /**
+     * Display a text, sending only the pages that changed since the last update
+     * @return true once every page sent is acknowledged (or nothing changed)
+     */
+    public synchronized boolean update(String text) {
+        byte[][] pages = paginate(text.getBytes(StandardCharsets.UTF_8), maxPayload());
+        boolean refresh = shown == null || shown.length != pages.length;
+        boolean[] changed = new boolean[pages.length];
+        int count = 0;
+        int fullBytes = 0;
+        for (int i = 0; i < pages.length; i++) {
+            changed[i] = refresh || !Arrays.equals(shown[i], pages[i]);
+            if (changed[i]) {
+                count++;
+            }
+            fullBytes += TextEncoder.BLOCK_LENGTH + pages[i].length;
+        }
+        updates++;
+        if (count == 0) {
+            pagesSkipped += pages.length;
+            bytesSaved += fullBytes;
+            return true;
+        }
+        if (refresh) {
+            seq = connectionManager.nextSequence(EvenOsApi.Sides.LEFT, TextEncoder.OPCODE);
+        }
+
+        PacketPool pool = connectionManager.getPacketPool();
+        byte[][] packets = new byte[count][];
+        int sentBytes = 0;
+        for (int i = 0, p = 0; i < pages.length; i++) {
+            if (!changed[i]) {
+                continue;
+            }
+            byte[] packet = pool.acquire(TextEncoder.BLOCK_LENGTH + pages[i].length);
+            encoder.wrap(packet, 0)
+                .seq(seq)
+                .total(pages.length)
+                .index(i)
+                .status(0x71)
+                .charPos(0)
+                .page(i + 1)
+                .maxPage(pages.length)
+                .text(pages[i], 0, pages[i].length);
+            packets[p++] = packet;
+            sentBytes += packet.length;
+        }
+
+        // The display is unknown until the glasses confirm it
+        shown = null;
+        try {
+            byte[] response = connectionManager.sendAndWait(
+                new EvenOsCommand<byte[]>(packets, RESPONSE_HEADER, EvenOsApi.Sides.LEFT), 1000);
+            if (response == null || !TextAckDecoder.matches(response, 0, response.length)
+                    || ack.wrap(response, 0, response.length).status() != 0xC9) {
+                Log.w(TAG, "update: Pages not acknowledged, the next update sends the whole text");
+                return false;
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "update error", e);
+            return false;
+        }
+        shown = pages;
+        pagesSent += count;
+        pagesSkipped += pages.length - count;
+        bytesSent += sentBytes;
+        bytesSaved += fullBytes - sentBytes;
+        return true;
+    }
+
+    /**
+     * The display no longer shows the text of the session: the next update sends every page
+     */
+    public synchronized void invalidate() {
+        shown = null;
+    }
+
+    private int maxPayload() {
+        // Same chunk size as EvenOsApi.sendText, for the link and the firmware
+        return api.planChunks(ChunkPlanner.Format.TEXT, 0, EvenOsApi.Sides.LEFT).payload;
+    }
+
+    /**
+     * Split a text in pages of LINES_PER_PAGE lines, a page of more than maxPayload bytes is split
+     * at maxPayload, or before the character it would cut. An empty text is one empty page, that clears the display.
+     */
+    static byte[][] paginate(byte[] text, int maxPayload) {
+        if (text.length == 0) {
+            return new byte[][]{ text };
+        }
+        byte[][] pages = new byte[8][];
+        int count = 0;
+        int start = 0;
+        while (start < text.length) {
+            int end = start;
+            int lines = 0;
+            while (end < text.length && lines < LINES_PER_PAGE) {
+                if (text[end++] == '\n') {
+                    lines++;
+                }
+            }
+            int chunk = start;
+            while (chunk < end) {
+                if (count == ChunkPlanner.MAX_CHUNKS) {
+                    throw new IllegalArgumentException("Text is too large to send (more than " + ChunkPlanner.MAX_CHUNKS + " pages)");
+                }
+                if (count == pages.length) {
+                    pages = Arrays.copyOf(pages, count * 2);
+                }
+                // A character is never split between two pages
+                int chunkEnd = Math.min(chunk + maxPayload, end);
+                while (chunkEnd < end && chunkEnd > chunk + 1 && (text[chunkEnd] & 0xC0) == 0x80) {
+                    chunkEnd--;
+                }
+                pages[count++] = Arrays.copyOfRange(text, chunk, chunkEnd);
+                chunk = chunkEnd;
+            }
+            start = end;
+        }
+        return Arrays.copyOf(pages, count);
+    }
+
+    public synchronized long getUpdates() {
+        return updates;
+    }
+
+    /**
+     * Pages written to the glasses
+     */
+    public synchronized long getPagesSent() {
+        return pagesSent;
+    }
+
+    /**
+     * Pages left out of an update because the display already shows them
+     */
+    public synchronized long getPagesSkipped() {
+        return pagesSkipped;
+    }
+
+    /**
+     * Packet bytes written to the glasses, headers included
+     */
+    public synchronized long getBytesSent() {
+        return bytesSent;
+    }
+
+    /**
+     * Packet bytes a full resend of every update would have written on top of getBytesSent
+     */
+    public synchronized long getBytesSaved() {
+        return bytesSaved;
+    }
+}
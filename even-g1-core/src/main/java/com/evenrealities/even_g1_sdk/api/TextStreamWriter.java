@@ -0,0 +1,233 @@
+/**
+ * TextStreamWriter displays a growing text (live captions, transcription) by sending only the
+ * characters appended since the last update.
+ *
+ * The display shows the page (LINES_PER_PAGE lines) holding the end of the text. While the text
+ * only grows within that page, an update sends the appended characters with the new_char_pos
+ * field of the 0x4E header set to the number of characters already on the page (status 0x70,
+ * without the new content flag): the glasses add them at that position.
+ *
+ * The page is sent in full, in a new transfer (status 0x71, new_char_pos 0), when:
+ * - the text moves to the next page (scroll)
+ * - the text no longer starts with the displayed one (e.g. a corrected word)
+ * - the position doesn't fit the 16 bits field, after a failed update, or after invalidate
+ *
+ * Thread safe, updates are sent one at a time.
+ */
+
+package com.evenrealities.even_g1_sdk.api;
+
+import java.nio.charset.StandardCharsets;
+
+import com.evenrealities.even_g1_sdk.connection.ConnectionManager;
+import com.evenrealities.even_g1_sdk.connection.PacketPool;
+import com.evenrealities.even_g1_sdk.log.Log;
+import com.evenrealities.even_g1_sdk.protocol.TextAckDecoder;
+import com.evenrealities.even_g1_sdk.protocol.TextEncoder;
+
+public class TextStreamWriter {
+
+    private static final String TAG = "EVEN_G1_TextStreamWriter";
+
+    /** Largest value of new_char_pos */
+    public static final int MAX_CHAR_POS = 0xFFFF;
+
+    private static final int STATUS_APPEND = 0x70;
+    private static final int STATUS_NEW_CONTENT = 0x71;
+    private static final byte[] RESPONSE_HEADER = { TextEncoder.OPCODE };
+
+    private final EvenOsApi api;
+    private final ConnectionManager connectionManager;
+    private final TextEncoder encoder = new TextEncoder();
+    private final TextAckDecoder ack = new TextAckDecoder();
+
+    // Text of the writer, and the text displayed (null once the display is unknown)
+    private String text = "";
+    private String shown;
+    // Page of the displayed text, and the offset of its first character in the text
+    private int page;
+    private int pageStart;
+    private int seq;
+
+    private long appends;
+    private long refreshes;
+    private long bytesSent;
+    private long bytesSaved;
+
+    TextStreamWriter(EvenOsApi api, ConnectionManager connectionManager) {
+        this.api = api;
+        this.connectionManager = connectionManager;
+    }
+
+    /**
+     * Display a text, usually the previous one with characters appended
+     * @return true once the glasses acknowledged what was sent (or nothing changed)
+     */
+    public synchronized boolean update(String text) {
+        this.text = text;
+        int lines = 0;
+        int start = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n' && ++lines % TextSession.LINES_PER_PAGE == 0) {
+                start = i + 1;
+            }
+        }
+        int textPage = lines / TextSession.LINES_PER_PAGE;
+
+        if (shown != null && textPage == page && text.startsWith(shown)) {
+            if (text.length() == shown.length()) {
+                return true;
+            }
+            int charPos = shown.codePointCount(pageStart, shown.length());
+            byte[] appended = text.substring(shown.length()).getBytes(StandardCharsets.UTF_8);
+            if (charPos + appended.length <= MAX_CHAR_POS) {
+                // A full refresh would send the whole page
+                int pageBytes = utf8Length(text, pageStart) + TextEncoder.BLOCK_LENGTH;
+                int sent = send(appended, charPos, STATUS_APPEND);
+                if (sent < 0) {
+                    return false;
+                }
+                appends++;
+                bytesSent += sent;
+                bytesSaved += Math.max(0, pageBytes - sent);
+                shown = text;
+                return true;
+            }
+        }
+
+        seq = connectionManager.nextSequence(EvenOsApi.Sides.LEFT, TextEncoder.OPCODE);
+        page = textPage;
+        pageStart = start;
+        int sent = send(text.substring(start).getBytes(StandardCharsets.UTF_8), 0, STATUS_NEW_CONTENT);
+        if (sent < 0) {
+            return false;
+        }
+        refreshes++;
+        bytesSent += sent;
+        shown = text;
+        return true;
+    }
+
+    /**
+     * Append characters to the text
+     */
+    public synchronized boolean append(String characters) {
+        return update(text + characters);
+    }
+
+    /**
+     * The display no longer shows the text of the writer: the next update sends the whole page
+     */
+    public synchronized void invalidate() {
+        shown = null;
+    }
+
+    /**
+     * Send characters in as many packets as needed: appended at a position of the page, each packet
+     * at its own position, or as the new content of the page, in a transfer like sendText
+     * @return the bytes sent, -1 if the glasses didn't acknowledge them
+     */
+    private int send(byte[] characters, int charPos, int status) {
+        int maxPayload = api.planChunks(ChunkPlanner.Format.TEXT, characters.length, EvenOsApi.Sides.LEFT).payload;
+        // Ends of the packets, a character is never split between two positions
+        int[] ends = new int[characters.length / Math.max(1, maxPayload - 3) + 1];
+        int count = 0;
+        int offset = 0;
+        do {
+            int end = Math.min(offset + maxPayload, characters.length);
+            while (end < characters.length && end > offset + 1 && (characters[end] & 0xC0) == 0x80) {
+                end--;
+            }
+            ends[count++] = end;
+            offset = end;
+        } while (offset < characters.length);
+
+        PacketPool pool = connectionManager.getPacketPool();
+        byte[][] packets = new byte[count][];
+        int sent = 0;
+        offset = 0;
+        for (int p = 0; p < count; p++) {
+            int end = ends[p];
+            byte[] packet = pool.acquire(TextEncoder.BLOCK_LENGTH + end - offset);
+            encoder.wrap(packet, 0)
+                .seq(seq)
+                .total(count)
+                .index(p)
+                .status(status)
+                .charPos(charPos)
+                .page(page + 1)
+                .maxPage(page + 1)
+                .text(characters, offset, end - offset);
+            packets[p] = packet;
+            sent += packet.length;
+            for (int i = offset; status == STATUS_APPEND && i < end; i++) {
+                if ((characters[i] & 0xC0) != 0x80) {
+                    charPos++;
+                }
+            }
+            offset = end;
+        }
+
+        // The display is unknown until the glasses confirm it
+        shown = null;
+        try {
+            byte[] response = connectionManager.sendAndWait(
+                new EvenOsCommand<byte[]>(packets, RESPONSE_HEADER, EvenOsApi.Sides.LEFT), 1000);
+            if (response == null || !TextAckDecoder.matches(response, 0, response.length)
+                    || ack.wrap(response, 0, response.length).status() != 0xC9) {
+                Log.w(TAG, "send: Text not acknowledged, the next update sends the whole page");
+                return -1;
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "send error", e);
+            return -1;
+        }
+        return sent;
+    }
+
+    private static int utf8Length(String text, int from) {
+        int length = 0;
+        for (int i = from; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c)) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Updates sent as appended characters
+     */
+    public synchronized long getAppends() {
+        return appends;
+    }
+
+    /**
+     * Updates that sent the whole page
+     */
+    public synchronized long getRefreshes() {
+        return refreshes;
+    }
+
+    /**
+     * Packet bytes written to the glasses, headers included
+     */
+    public synchronized long getBytesSent() {
+        return bytesSent;
+    }
+
+    /**
+     * Packet bytes a full refresh of the page would have written on top of each append
+     */
+    public synchronized long getBytesSaved() {
+        return bytesSaved;
+    }
+}
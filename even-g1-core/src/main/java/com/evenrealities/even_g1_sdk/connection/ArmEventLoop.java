@@ -0,0 +1,179 @@
+/**
+ * ArmEventLoop is the I/O thread of one arm of the glasses (actor style).
+ *
+ * Every command sent to the arm, every packet received from it and every connection state change
+ * runs on this thread, in submission order. Left and right have their own loop, so both arms
+ * progress in parallel, and no SDK work runs on the caller's thread (e.g. the UI thread) or
+ * on the Bluetooth binder threads.
+ *
+ * Tasks are handed off through a lock-free queue: producers never block, the loop parks when
+ * the queue is empty and is woken up by the next task.
+ *
+ * Hot paths that can't afford a task object per event (e.g. received packets) register a Source
+ * instead: the loop drains every source on each iteration, and producers only call wakeup().
+ *
+ * The loop also drives a TimingWheel for its timers (command deadlines): while timers are pending
+ * it parks until the next tick instead of indefinitely.
+ */
+
+package com.evenrealities.even_g1_sdk.connection;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import com.evenrealities.even_g1_sdk.log.Log;
+
+public class ArmEventLoop implements Executor {
+
+    private static final String TAG = "EVEN_G1_ArmEventLoop";
+
+    /**
+     * Work polled by the loop, without allocating a task per event
+     */
+    public interface Source {
+        /**
+         * Run the work available now
+         * @return true if there was any
+         */
+        boolean drain();
+    }
+
+    private final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private volatile Source[] sources = new Source[0];
+    private final TimingWheel timers = new TimingWheel();
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    /**
+     * Create and start the loop
+     * @param name name of the thread
+     */
+    public ArmEventLoop(String name) {
+        this.thread = new Thread(this::run, name);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Hand a task off to the loop, never blocks
+     * @param task the task
+     * @throws RejectedExecutionException if the loop was shut down: a task accepted is always run
+     */
+    @Override
+    public void execute(Runnable task) {
+        if (!running) {
+            throw new RejectedExecutionException(thread.getName() + " is shut down");
+        }
+        tasks.offer(task);
+        // The loop may have stopped since the check, and exited without seeing the task
+        if (!running && tasks.remove(task)) {
+            throw new RejectedExecutionException(thread.getName() + " is shut down");
+        }
+        if (Thread.currentThread() != thread) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * Register a source drained on every iteration of the loop
+     * @param source the source, its producers call wakeup() when it has work
+     */
+    public synchronized void addSource(Source source) {
+        Source[] current = sources;
+        Source[] updated = new Source[current.length + 1];
+        System.arraycopy(current, 0, updated, 0, current.length);
+        updated[current.length] = source;
+        sources = updated;
+    }
+
+    /**
+     * Wake the loop up to drain its sources, never blocks nor allocates
+     */
+    public void wakeup() {
+        if (Thread.currentThread() != thread) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * Run a task on the loop after a delay. Must be called from the loop.
+     * @return the timer, cancel it from the loop too
+     */
+    public TimingWheel.Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        if (!inEventLoop()) {
+            throw new IllegalStateException("Timers must be scheduled from " + thread.getName());
+        }
+        return timers.schedule(task, delay, unit);
+    }
+
+    /**
+     * Number of timers pending on the loop. Must be called from the loop.
+     */
+    public int pendingTimers() {
+        return timers.size();
+    }
+
+    /**
+     * True if the caller runs on this loop
+     */
+    public boolean inEventLoop() {
+        return Thread.currentThread() == thread;
+    }
+
+    /**
+     * Number of tasks waiting to run
+     */
+    public int pendingTasks() {
+        return tasks.size();
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Stop the loop, tasks already queued are still run
+     */
+    public void shutdown() {
+        running = false;
+        LockSupport.unpark(thread);
+    }
+
+    private void run() {
+        while (true) {
+            boolean busy = false;
+            Runnable task = tasks.poll();
+            if (task != null) {
+                busy = true;
+                try {
+                    task.run();
+                } catch (Throwable t) {
+                    Log.e(TAG, thread.getName() + ": Task failed", t);
+                }
+            }
+            for (Source source : sources) {
+                try {
+                    busy |= source.drain();
+                } catch (Throwable t) {
+                    Log.e(TAG, thread.getName() + ": Source failed", t);
+                }
+            }
+            long now = System.nanoTime();
+            busy |= timers.advance(now);
+            if (!busy) {
+                if (!running) {
+                    return;
+                }
+                long timeout = timers.nanosToNextTick(now);
+                if (timeout < 0) {
+                    LockSupport.park(this);
+                } else {
+                    LockSupport.parkNanos(this, timeout);
+                }
+            }
+        }
+    }
+}
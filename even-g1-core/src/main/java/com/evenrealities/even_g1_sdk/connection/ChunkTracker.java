@@ -0,0 +1,173 @@
+/**
+ * ChunkTracker records the acknowledgement of every chunk of a multi-packet transfer
+ * (text pages, bitmap chunks), so the transfer completes only once every chunk
+ * is confirmed, and a chunk the glasses rejected is known exactly.
+ *
+ * The acknowledgements (e.g. 0x15 C9, 0x15 00) carry no chunk index. The link delivers the
+ * packets and their acknowledgements in order, so each acknowledgement answers the oldest chunk
+ * written and not acknowledged yet: the tracker keeps the chunks in the order they were written,
+ * retransmissions included.
+ *
+ * Owned by the event loop of the arm, not thread safe.
+ */
+
+package com.evenrealities.even_g1_sdk.connection;
+
+import java.util.BitSet;
+
+public class ChunkTracker {
+
+    /** Status byte of a rejected chunk, after the opcode */
+    public static final byte STATUS_FAIL = (byte) 0x00;
+
+    // Opcodes whose chunks are each acknowledged (Table G of the README)
+    private static final int[] ACKNOWLEDGED_OPCODES = {0x15, 0x4E};
+
+    private final int total;
+    private final BitSet acknowledged;
+    private final BitSet failed;
+    private final int[] retries;
+    // Chunks written and not acknowledged yet, in writing order (ring buffer)
+    private int[] outstanding = new int[8];
+    private int head;
+    private int outstandingCount;
+
+    /**
+     * @param total number of chunks of the transfer
+     */
+    public ChunkTracker(int total) {
+        this.total = total;
+        this.acknowledged = new BitSet(total);
+        this.failed = new BitSet(total);
+        this.retries = new int[total];
+    }
+
+    /**
+     * True if the glasses acknowledge each chunk of the multi-packet commands of an opcode
+     */
+    public static boolean acknowledgesEachChunk(int opcode) {
+        for (int acknowledgedOpcode : ACKNOWLEDGED_OPCODES) {
+            if (acknowledgedOpcode == opcode) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * True if an acknowledgement reports a rejected chunk
+     */
+    public static boolean isFailure(byte[] ack) {
+        return ack.length > 1 && ack[1] == STATUS_FAIL;
+    }
+
+    /**
+     * A chunk was handed to the link
+     */
+    public void onSent(int chunk) {
+        if (outstandingCount == outstanding.length) {
+            int[] grown = new int[outstanding.length * 2];
+            for (int i = 0; i < outstandingCount; i++) {
+                grown[i] = outstanding[(head + i) % outstanding.length];
+            }
+            outstanding = grown;
+            head = 0;
+        }
+        outstanding[(head + outstandingCount) % outstanding.length] = chunk;
+        outstandingCount++;
+    }
+
+    /**
+     * An acknowledgement was received
+     * @param success false if the glasses rejected the chunk
+     * @return the chunk it answers, -1 if no chunk was waiting for one
+     */
+    public int onAck(boolean success) {
+        if (outstandingCount == 0) {
+            return -1;
+        }
+        int chunk = outstanding[head];
+        head = (head + 1) % outstanding.length;
+        outstandingCount--;
+        if (success) {
+            acknowledged.set(chunk);
+            failed.clear(chunk);
+        } else if (!acknowledged.get(chunk)) {
+            failed.set(chunk);
+        }
+        return chunk;
+    }
+
+    /**
+     * The link failed to write a chunk it had taken: no acknowledgement will answer it
+     * @return false if the chunk wasn't waiting for an acknowledgement
+     */
+    public boolean onWriteFailed(int chunk) {
+        for (int i = 0; i < outstandingCount; i++) {
+            if (outstanding[(head + i) % outstanding.length] != chunk) {
+                continue;
+            }
+            // The chunks written after it keep their order
+            for (int j = i; j < outstandingCount - 1; j++) {
+                outstanding[(head + j) % outstanding.length] = outstanding[(head + j + 1) % outstanding.length];
+            }
+            outstandingCount--;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Chunks written but never acknowledged, e.g. lost, to write them again.
+     * They are no longer waiting for an acknowledgement.
+     */
+    public int[] takeOutstanding() {
+        int[] chunks = new int[outstandingCount];
+        for (int i = 0; i < outstandingCount; i++) {
+            chunks[i] = outstanding[(head + i) % outstanding.length];
+        }
+        head = 0;
+        outstandingCount = 0;
+        return chunks;
+    }
+
+    /**
+     * Give up a chunk that was never acknowledged, its retries are used up
+     */
+    public void fail(int chunk) {
+        if (!acknowledged.get(chunk)) {
+            failed.set(chunk);
+        }
+    }
+
+    /**
+     * Count a retry of a chunk
+     * @return retries of the chunk so far, this one included
+     */
+    public int retry(int chunk) {
+        return ++retries[chunk];
+    }
+
+    public boolean isComplete() {
+        return acknowledged.cardinality() == total;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getAcknowledgedCount() {
+        return acknowledged.cardinality();
+    }
+
+    public int getOutstandingCount() {
+        return outstandingCount;
+    }
+
+    /**
+     * Chunks whose last acknowledgement was a rejection
+     */
+    public int[] getFailedChunks() {
+        return failed.stream().toArray();
+    }
+}
@@ -0,0 +1,27 @@
+/**
+ * ChunkTransferException fails a multi-packet command when some of its chunks were still rejected
+ * by the glasses once their retries were used up. It carries the exact chunks that failed,
+ * so the caller can report them or send only those again.
+ */
+
+package com.evenrealities.even_g1_sdk.connection;
+
+import java.util.Arrays;
+
+import com.evenrealities.even_g1_sdk.api.EvenOsApi;
+
+public class ChunkTransferException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    public final EvenOsApi.Sides side;
+    public final int[] failedChunks;
+    public final int totalChunks;
+
+    public ChunkTransferException(EvenOsApi.Sides side, int[] failedChunks, int totalChunks) {
+        super("Chunks " + Arrays.toString(failedChunks) + " of " + totalChunks + " rejected by " + side);
+        this.side = side;
+        this.failedChunks = failedChunks;
+        this.totalChunks = totalChunks;
+    }
+}
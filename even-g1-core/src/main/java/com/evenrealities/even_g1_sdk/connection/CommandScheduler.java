@@ -0,0 +1,953 @@
+/**
+ * CommandScheduler pipelines the commands of one arm of the glasses.
+ *
+ * Responses are matched to commands by their header, so two commands whose response headers
+ * overlap (one is a prefix of the other) can't be pending at the same time. Instead of rejecting
+ * such a command, the scheduler queues it (FIFO) and sends it once the previous one got its
+ * response or timed out. Commands that don't conflict are sent right away, up to a window of
+ * commands in flight, so e.g. a battery query doesn't wait behind a text page.
+ *
+ * A queued command is never overtaken by a later command of its lane it conflicts with, the order
+ * of conflicting commands is the submission order.
+ *
+ * Waiting commands are kept in one lane per EvenOsCommand.Priority, and the higher lanes are always
+ * sent first. BACKGROUND and BULK commands never take the last slot of the window, so a tap or a
+ * heartbeat always finds room. BULK transfers are written in bursts of a few packets: between two
+ * bursts the scheduler goes back to the loop, so commands submitted meanwhile are sent first, and
+ * it waits for the link to write the previous burst, so their packets aren't queued behind the
+ * whole transfer. A transfer only accepts its response once every packet is written.
+ *
+ * Text pages and bitmap chunks are each acknowledged by the glasses: their transfers keep a
+ * ChunkTracker, take the acknowledgements while they are written, and complete once every chunk
+ * is confirmed. A rejected or lost chunk is sent again alone, a chunk still rejected once its
+ * retries are used up fails the command with a ChunkTransferException naming every failed chunk.
+ * EvenOsCommand.ProgressListener follows the chunks.
+ *
+ * Each lane records the time its commands waited before being sent (getQueueWait).
+ *
+ * Failures are retried as the RetryPolicy allows: an idempotent command without response is sent
+ * again after a backoff, while it keeps its place in the window; a packet the link refused is
+ * written again from that packet on, and a packet it took and then failed to write (onWriteFailed)
+ * is sent again alone, so a transfer isn't restarted for one chunk. The retries of each opcode are
+ * counted in the RetryMetrics.
+ *
+ * Settings that only need their latest value (EvenOsCommand.coalesceKey) are coalesced: a waiting
+ * command is replaced in place by the next one with the same key, and completes with its result.
+ * A slider dragged while the window is busy costs one write instead of one per position.
+ *
+ * Deadlines are timers of the TimingWheel of the arm loop: a command with its own deadline
+ * (EvenOsCommand.timeoutMillis) expires from the queue or in flight, the others get the response
+ * timeout once written. Expiring or cancelling a command unlinks it from the queue and the wheel
+ * in O(1), nothing is left behind to block the next command with the same header. The deadline of
+ * a command bounds its retries.
+ *
+ * With a PacketPool, the scheduler owns the packets of each command it takes until the command
+ * leaves it (completed, failed, cancelled or coalesced), so pooled buffers are reused only then.
+ *
+ * The scheduler is confined to the event loop of its arm: every method must be called from it.
+ */
+
+package com.evenrealities.even_g1_sdk.connection;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+
+import com.evenrealities.even_g1_sdk.api.EvenOsApi;
+import com.evenrealities.even_g1_sdk.api.EvenOsCommand;
+import com.evenrealities.even_g1_sdk.log.Log;
+
+public class CommandScheduler {
+
+    private static final String TAG = "EVEN_G1_CommandScheduler";
+
+    public static final int DEFAULT_MAX_IN_FLIGHT = 4;
+    public static final long DEFAULT_RESPONSE_TIMEOUT_MILLIS = 1000;
+    public static final int DEFAULT_BULK_BURST_PACKETS = 4;
+
+    private static final EvenOsCommand.Priority[] LANES = EvenOsCommand.Priority.values();
+
+    /**
+     * Writes the packets of a command to the arm
+     */
+    public interface Sender {
+        /**
+         * Write some packets of a command
+         * @param command the command
+         * @param fromPacket first packet, inclusive
+         * @param toPacket last packet, exclusive
+         * @return number of packets handed to the link, the first refused packet stops the write
+         */
+        int send(EvenOsCommand<?> command, int fromPacket, int toPacket);
+
+        /**
+         * Packets handed to the link but not written yet
+         */
+        default int pendingWrites() {
+            return 0;
+        }
+    }
+
+    private static final class Pending {
+        final EvenOsCommand<?> command;
+        final int opcode;
+        final int lane;
+        final long deadlineMillis;
+        final long submitNanos;
+        TimingWheel.Timeout deadline;
+        // Response timeout of the current attempt, or backoff before a retry
+        TimingWheel.Timeout timeout;
+        boolean inFlight;
+        // Packets written so far, a BULK transfer is written in bursts
+        int sentPackets;
+        // Retries after a response timeout
+        int retries;
+        // Refused writes in a row
+        int refusals;
+        // Failed writes of each packet the link took, null until one failed
+        int[] failedWrites;
+        // Acknowledgement of each chunk, null if the command has a single response
+        final ChunkTracker chunks;
+        // Chunks waiting for their backoff before being sent again
+        int chunkResends;
+        int chunkRetries;
+        // In inFlightIndex
+        boolean indexed;
+        // Links of the waiting queue of the lane
+        Pending prev;
+        Pending next;
+
+        Pending(EvenOsCommand<?> command, long deadlineMillis) {
+            this.command = command;
+            this.opcode = RetryPolicy.opcodeOf(command);
+            this.lane = (command.priority != null ? command.priority : EvenOsCommand.Priority.INTERACTIVE).ordinal();
+            this.deadlineMillis = deadlineMillis;
+            this.submitNanos = System.nanoTime();
+            int packets = command.requestPackets.length;
+            this.chunks = packets > 1 && command.responseHeader != null && ChunkTracker.acknowledgesEachChunk(opcode)
+                ? new ChunkTracker(packets) : null;
+        }
+
+        boolean isWritten() {
+            return sentPackets == command.requestPackets.length;
+        }
+    }
+
+    private final EvenOsApi.Sides side;
+    private final Sender sender;
+    private final ArmEventLoop loop;
+    private final RetryPolicy retryPolicy;
+    private final PacketPool packetPool;
+    private final RetryMetrics retryMetrics = new RetryMetrics();
+
+    // Waiting queue of each lane, linked lists so an expired command leaves them in O(1)
+    private final Pending[] heads = new Pending[LANES.length];
+    private final Pending[] tails = new Pending[LANES.length];
+    private int waitingCount;
+    private final List<Pending> inFlight = new ArrayList<>();
+    // BULK transfers in flight with packets left to write, written in turn
+    private final ArrayDeque<Pending> streaming = new ArrayDeque<>();
+    private boolean resumeScheduled;
+    private DispatchTable<Pending> inFlightIndex = DispatchTable.empty();
+    private final Map<EvenOsCommand<?>, Pending> pendingByCommand = new IdentityHashMap<>();
+    // Waiting commands with a coalesce key
+    private final Map<Object, Pending> waitingByKey = new HashMap<>();
+
+    private int maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+    private long responseTimeoutMillis = DEFAULT_RESPONSE_TIMEOUT_MILLIS;
+    private int bulkBurstPackets = DEFAULT_BULK_BURST_PACKETS;
+
+    private long completed;
+    private long timedOut;
+    private long coalesced;
+    private final LatencyHistogram[] queueWait = new LatencyHistogram[LANES.length];
+
+    /**
+     * @param side the arm
+     * @param sender writes the packets of a command
+     * @param loop event loop of the arm, its timing wheel runs the deadlines
+     */
+    public CommandScheduler(EvenOsApi.Sides side, Sender sender, ArmEventLoop loop) {
+        this(side, sender, loop, new RetryPolicy());
+    }
+
+    /**
+     * @param side the arm
+     * @param sender writes the packets of a command
+     * @param loop event loop of the arm, its timing wheel runs the deadlines
+     * @param retryPolicy which commands are retried, and when
+     */
+    public CommandScheduler(EvenOsApi.Sides side, Sender sender, ArmEventLoop loop, RetryPolicy retryPolicy) {
+        this(side, sender, loop, retryPolicy, null);
+    }
+
+    /**
+     * @param side the arm
+     * @param sender writes the packets of a command
+     * @param loop event loop of the arm, its timing wheel runs the deadlines
+     * @param retryPolicy which commands are retried, and when
+     * @param packetPool gets back the packets of the commands once they leave the scheduler, each
+     *                   command must have been claimed for it; null if the packets are not pooled
+     */
+    public CommandScheduler(EvenOsApi.Sides side, Sender sender, ArmEventLoop loop, RetryPolicy retryPolicy,
+            PacketPool packetPool) {
+        this.side = side;
+        this.sender = sender;
+        this.loop = loop;
+        this.retryPolicy = retryPolicy;
+        this.packetPool = packetPool;
+        for (int i = 0; i < queueWait.length; i++) {
+            queueWait[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * Send a command now, or queue it behind the commands it conflicts with
+     */
+    public void submit(EvenOsCommand<?> command) {
+        submit(command, command.timeoutMillis);
+    }
+
+    /**
+     * Send a command now, or queue it in its lane
+     * @param command the command
+     * @param deadlineMillis time the command may wait for its response, queue included;
+     *                       0 to apply the response timeout once it is written
+     */
+    public void submit(EvenOsCommand<?> command, long deadlineMillis) {
+        if (pendingByCommand.containsKey(command)) {
+            Log.w(TAG, "submit: Command already scheduled on " + side);
+            recycle(command);
+            return;
+        }
+        Pending pending = new Pending(command, deadlineMillis);
+        pendingByCommand.put(command, pending);
+        if (deadlineMillis > 0) {
+            pending.deadline = loop.schedule(() -> expire(pending), deadlineMillis, TimeUnit.MILLISECONDS);
+        }
+        Object key = command.coalesceKey;
+        Pending replaced = key != null ? waitingByKey.get(key) : null;
+        if (replaced != null) {
+            replace(replaced, pending);
+        } else {
+            append(pending);
+        }
+        if (key != null) {
+            waitingByKey.put(key, pending);
+        }
+        pump();
+    }
+
+    /**
+     * Latest wins: a waiting setting takes the place of the previous one with the same key,
+     * which completes with its result
+     */
+    @SuppressWarnings("unchecked")
+    private void replace(Pending replaced, Pending pending) {
+        if (replaced.lane == pending.lane) {
+            pending.prev = replaced.prev;
+            pending.next = replaced.next;
+            if (pending.prev != null) {
+                pending.prev.next = pending;
+            } else {
+                heads[pending.lane] = pending;
+            }
+            if (pending.next != null) {
+                pending.next.prev = pending;
+            } else {
+                tails[pending.lane] = pending;
+            }
+            replaced.prev = null;
+            replaced.next = null;
+        } else {
+            unlink(replaced);
+            append(pending);
+        }
+        pendingByCommand.remove(replaced.command);
+        cancelTimers(replaced);
+        recycle(replaced.command);
+        coalesced++;
+        CompletableFuture<Object> previous = (CompletableFuture<Object>) replaced.command.future;
+        pending.command.future.whenComplete((result, error) -> {
+            if (error != null) {
+                previous.completeExceptionally(error);
+            } else {
+                previous.complete(result);
+            }
+        });
+    }
+
+    /**
+     * Match a received packet with the command in flight waiting for it and complete the command
+     * @param data the packet, only valid during the call
+     * @return the command, or null if the packet doesn't answer a command
+     */
+    @SuppressWarnings("unchecked")
+    public EvenOsCommand<?> onResponse(byte[] data) {
+        Object[] matches = inFlightIndex.lookup(data);
+        if (matches.length == 0) {
+            return null;
+        }
+        Pending pending = (Pending) matches[0];
+        if (pending.chunks != null) {
+            onChunkAck(pending, data);
+            return pending.command;
+        }
+        complete(pending, data);
+        return pending.command;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void complete(Pending pending, byte[] data) {
+        remove(pending);
+        completed++;
+        if (pending.retries > 0 || pending.chunkRetries > 0) {
+            retryMetrics.onRecovered(pending.opcode);
+        }
+        // The packet buffer is reused, the response outlives the dispatch.
+        // With BOTH, the first arm to answer completes the future.
+        ((EvenOsCommand<Object>) pending.command).future.complete(data.clone());
+        pump();
+    }
+
+    /**
+     * Acknowledgement of the oldest chunk waiting for one: the command completes with the last one
+     */
+    private void onChunkAck(Pending pending, byte[] data) {
+        ChunkTracker chunks = pending.chunks;
+        boolean success = !ChunkTracker.isFailure(data);
+        int chunk = chunks.onAck(success);
+        if (chunk < 0) {
+            Log.d(TAG, "onChunkAck: Acknowledgement from " + side + " without chunk waiting for it");
+            return;
+        }
+        EvenOsCommand.ProgressListener listener = pending.command.getProgressListener();
+        if (listener != null) {
+            try {
+                listener.onChunk(side, chunk, success, chunks.getAcknowledgedCount(), chunks.getTotal());
+            } catch (RuntimeException e) {
+                Log.e(TAG, "onChunkAck: Progress listener failed", e);
+            }
+        }
+        if (chunks.isComplete()) {
+            complete(pending, data);
+            return;
+        }
+        if (!success) {
+            // The glasses rejected the chunk, sending it again is always safe
+            retryChunk(pending, chunk);
+        }
+        checkChunksFailed(pending);
+    }
+
+    /**
+     * Send one chunk again after a backoff, or give it up once its retries are used up
+     */
+    private void retryChunk(final Pending pending, final int chunk) {
+        int retry = pending.chunks.retry(chunk);
+        if (retry > retryPolicy.getMaxRetries()) {
+            Log.w(TAG, String.format("retryChunk: %s gave up chunk %d of 0x%02X after %d retries", side, chunk, pending.opcode, retry - 1));
+            pending.chunks.fail(chunk);
+            return;
+        }
+        retryMetrics.onPacketRetry(pending.opcode);
+        Log.i(TAG, String.format("retryChunk: Chunk %d of 0x%02X to %s, retry %d", chunk, pending.opcode, side, retry));
+        pending.chunkRetries++;
+        pending.chunkResends++;
+        loop.schedule(() -> resendChunk(pending, chunk), retryPolicy.backoffMillis(retry), TimeUnit.MILLISECONDS);
+    }
+
+    private void resendChunk(Pending pending, int chunk) {
+        pending.chunkResends--;
+        if (pendingByCommand.get(pending.command) != pending) {
+            return;
+        }
+        int accepted;
+        try {
+            accepted = sender.send(pending.command, chunk, chunk + 1);
+        } catch (RuntimeException e) {
+            fail(pending, e);
+            return;
+        }
+        if (accepted == 1) {
+            pending.chunks.onSent(chunk);
+        } else {
+            retryChunk(pending, chunk);
+            checkChunksFailed(pending);
+        }
+    }
+
+    /**
+     * Fail the command once every chunk is answered and some were given up
+     */
+    private void checkChunksFailed(Pending pending) {
+        ChunkTracker chunks = pending.chunks;
+        if (!pending.isWritten() || chunks.getOutstandingCount() > 0 || pending.chunkResends > 0
+                || pendingByCommand.get(pending.command) != pending) {
+            return;
+        }
+        int[] failed = chunks.getFailedChunks();
+        if (failed.length == 0) {
+            return;
+        }
+        remove(pending);
+        retryMetrics.onExhausted(pending.opcode);
+        pending.command.future.completeExceptionally(new ChunkTransferException(side, failed, chunks.getTotal()));
+        pump();
+    }
+
+    /**
+     * The link failed to write a packet it had accepted (e.g. a GATT write completed with an
+     * error), the glasses never got it. The packet is sent again alone after a backoff, a chunk
+     * also stops waiting for its acknowledgement.
+     * @param packet the array of the command that was handed to the link
+     */
+    public void onWriteFailed(byte[] packet) {
+        for (int i = 0; i < inFlight.size(); i++) {
+            Pending pending = inFlight.get(i);
+            byte[][] packets = pending.command.requestPackets;
+            int index = 0;
+            while (index < pending.sentPackets && packets[index] != packet) {
+                index++;
+            }
+            if (index == pending.sentPackets) {
+                continue;
+            }
+            if (pending.chunks != null) {
+                if (pending.chunks.onWriteFailed(index)) {
+                    Log.i(TAG, String.format("onWriteFailed: Link of %s failed to write chunk %d of 0x%02X", side, index, pending.opcode));
+                    retryChunk(pending, index);
+                    checkChunksFailed(pending);
+                }
+                return;
+            }
+            rewritePacket(pending, index);
+            return;
+        }
+    }
+
+    /**
+     * Write again, after a backoff, a packet whose write failed. The packets after it were
+     * accepted by the link and are written in turn, only this one is sent again.
+     */
+    private void rewritePacket(final Pending pending, final int packet) {
+        if (pending.failedWrites == null) {
+            pending.failedWrites = new int[pending.command.requestPackets.length];
+        }
+        int retry = ++pending.failedWrites[packet];
+        if (retry > retryPolicy.getMaxRetries()) {
+            retryMetrics.onExhausted(pending.opcode);
+            fail(pending, new IllegalStateException("Link of " + side + " failed to write packet " + packet));
+            pump();
+            return;
+        }
+        retryMetrics.onPacketRetry(pending.opcode);
+        Log.i(TAG, "rewritePacket: Link of " + side + " failed to write packet " + packet + ", retry " + retry);
+        final int attempt = pending.retries;
+        loop.schedule(() -> resendPacket(pending, packet, attempt), retryPolicy.backoffMillis(retry), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Send one packet again, unless the whole command was sent again meanwhile (retry)
+     */
+    private void resendPacket(Pending pending, int packet, int attempt) {
+        if (pendingByCommand.get(pending.command) != pending || pending.retries != attempt) {
+            return;
+        }
+        int accepted;
+        try {
+            accepted = sender.send(pending.command, packet, packet + 1);
+        } catch (RuntimeException e) {
+            fail(pending, e);
+            pump();
+            return;
+        }
+        if (accepted == 0) {
+            rewritePacket(pending, packet);
+        }
+    }
+
+    /**
+     * Drop a command whose future was cancelled, e.g. by sendAndWait after its timeout
+     */
+    public void cancel(EvenOsCommand<?> command) {
+        Pending pending = pendingByCommand.get(command);
+        if (pending != null) {
+            remove(pending);
+            pump();
+        }
+    }
+
+    /**
+     * Fail every queued and in flight command, e.g. when the arm disconnects
+     */
+    public void clear(Throwable reason) {
+        List<Pending> dropped = new ArrayList<>(pendingByCommand.values());
+        for (Pending pending : dropped) {
+            remove(pending);
+        }
+        for (Pending pending : dropped) {
+            pending.command.future.completeExceptionally(reason);
+        }
+    }
+
+    /**
+     * The deadline of the command expired
+     */
+    private void expire(Pending pending) {
+        pending.deadline = null;
+        if (pendingByCommand.get(pending.command) != pending) {
+            return;
+        }
+        timeOut(pending, pending.inFlight ? "" : ", command was still queued");
+    }
+
+    /**
+     * The current attempt got no response: retry an idempotent command, or give up
+     */
+    private void onResponseTimeout(Pending pending) {
+        pending.timeout = null;
+        if (pendingByCommand.get(pending.command) != pending) {
+            return;
+        }
+        if (pending.chunks != null && canRetry(pending)) {
+            retryChunks(pending);
+        } else if (canRetry(pending)) {
+            retry(pending);
+        } else if (pending.deadline == null) {
+            timeOut(pending, pending.retries > 0 ? ", after " + pending.retries + " retries" : "");
+        }
+        // Otherwise the command waits for its response until its deadline
+    }
+
+    private void timeOut(Pending pending, String detail) {
+        Log.w(TAG, "timeOut: No response from " + side + detail);
+        remove(pending);
+        timedOut++;
+        if (pending.retries > 0) {
+            retryMetrics.onExhausted(pending.opcode);
+        }
+        pending.command.future.completeExceptionally(new TimeoutException("No response from " + side));
+        pump();
+    }
+
+    private boolean canRetry(Pending pending) {
+        return pending.retries < retryPolicy.getMaxRetries() && retryPolicy.isIdempotent(pending.command);
+    }
+
+    /**
+     * Send the command again after a backoff. It keeps its place in the window meanwhile,
+     * so conflicting commands still wait for it.
+     */
+    private void retry(final Pending pending) {
+        pending.retries++;
+        retryMetrics.onRetry(pending.opcode);
+        Log.i(TAG, String.format("retry: No response from %s to 0x%02X, retry %d", side, pending.opcode, pending.retries));
+        unindex(pending);
+        pending.sentPackets = 0;
+        pending.timeout = loop.schedule(() -> resumeTransfer(pending),
+            retryPolicy.backoffMillis(pending.retries), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Send again the chunks written and never acknowledged, the others stay confirmed
+     */
+    private void retryChunks(final Pending pending) {
+        pending.retries++;
+        retryMetrics.onRetry(pending.opcode);
+        int[] lost = pending.chunks.takeOutstanding();
+        Log.i(TAG, String.format("retryChunks: No acknowledgement from %s of %d chunks of 0x%02X, retry %d",
+            side, lost.length, pending.opcode, pending.retries));
+        for (int chunk : lost) {
+            retryChunk(pending, chunk);
+        }
+        checkChunksFailed(pending);
+        if (pendingByCommand.get(pending.command) == pending) {
+            pending.timeout = loop.schedule(() -> onResponseTimeout(pending),
+                retryPolicy.backoffMillis(pending.retries) + attemptTimeoutMillis(pending), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Write the rest of a command after a backoff
+     */
+    private void resumeTransfer(Pending pending) {
+        pending.timeout = null;
+        if (pendingByCommand.get(pending.command) != pending) {
+            return;
+        }
+        int packets = pending.command.requestPackets.length;
+        if (pending.lane == EvenOsCommand.Priority.BULK.ordinal() && packets - pending.sentPackets > bulkBurstPackets) {
+            streaming.add(pending);
+            scheduleResume();
+        } else if (writePackets(pending, packets)) {
+            written(pending);
+        }
+    }
+
+    /**
+     * Forget a command, queued or in flight, and cancel its timers
+     */
+    private void remove(Pending pending) {
+        pendingByCommand.remove(pending.command);
+        if (pending.inFlight) {
+            pending.inFlight = false;
+            inFlight.remove(pending);
+            unindex(pending);
+            streaming.remove(pending);
+        } else {
+            unlink(pending);
+        }
+        cancelTimers(pending);
+        recycle(pending.command);
+    }
+
+    private void recycle(EvenOsCommand<?> command) {
+        if (packetPool != null) {
+            packetPool.recycle(command.requestPackets);
+        }
+    }
+
+    private static void cancelTimers(Pending pending) {
+        if (pending.deadline != null) {
+            pending.deadline.cancel();
+            pending.deadline = null;
+        }
+        if (pending.timeout != null) {
+            pending.timeout.cancel();
+            pending.timeout = null;
+        }
+    }
+
+    private void append(Pending pending) {
+        int lane = pending.lane;
+        pending.prev = tails[lane];
+        if (tails[lane] != null) {
+            tails[lane].next = pending;
+        } else {
+            heads[lane] = pending;
+        }
+        tails[lane] = pending;
+        waitingCount++;
+    }
+
+    private void unlink(Pending pending) {
+        Object key = pending.command.coalesceKey;
+        if (key != null && waitingByKey.get(key) == pending) {
+            waitingByKey.remove(key);
+        }
+        int lane = pending.lane;
+        if (pending.prev != null) {
+            pending.prev.next = pending.next;
+        } else {
+            heads[lane] = pending.next;
+        }
+        if (pending.next != null) {
+            pending.next.prev = pending.prev;
+        } else {
+            tails[lane] = pending.prev;
+        }
+        pending.prev = null;
+        pending.next = null;
+        waitingCount--;
+    }
+
+    /**
+     * Send the waiting commands that don't conflict, highest lane first, in order, while the window has room
+     */
+    private void pump() {
+        List<Pending> blocked = null;
+        for (int lane = 0; lane < LANES.length; lane++) {
+            int limit = windowOf(lane);
+            Pending pending = heads[lane];
+            while (pending != null && inFlight.size() < limit) {
+                Pending next = pending.next;
+                if (conflictsWith(pending, inFlight) || (blocked != null && conflictsWith(pending, blocked))) {
+                    if (blocked == null) {
+                        blocked = new ArrayList<>();
+                    }
+                    blocked.add(pending);
+                } else {
+                    unlink(pending);
+                    start(pending);
+                }
+                pending = next;
+            }
+        }
+    }
+
+    /**
+     * Commands in flight a lane may fill: the last slot is kept for the realtime and interactive lanes
+     */
+    private int windowOf(int lane) {
+        if (lane <= EvenOsCommand.Priority.INTERACTIVE.ordinal()) {
+            return maxInFlight;
+        }
+        return Math.max(1, maxInFlight - 1);
+    }
+
+    private void start(final Pending pending) {
+        pending.inFlight = true;
+        inFlight.add(pending);
+        queueWait[pending.lane].record(System.nanoTime() - pending.submitNanos);
+        if (pending.chunks != null) {
+            // The first chunks are acknowledged while the next ones are written
+            index(pending);
+        }
+        int packets = pending.command.requestPackets.length;
+        if (pending.lane == EvenOsCommand.Priority.BULK.ordinal() && packets > bulkBurstPackets) {
+            streaming.add(pending);
+            writeBurst(pending);
+            scheduleResume();
+        } else if (writePackets(pending, packets)) {
+            written(pending);
+        }
+    }
+
+    /**
+     * Write the next burst of a BULK transfer
+     */
+    private void writeBurst(Pending pending) {
+        int to = Math.min(pending.command.requestPackets.length, pending.sentPackets + bulkBurstPackets);
+        if (writePackets(pending, to) && pending.isWritten()) {
+            streaming.remove(pending);
+            written(pending);
+        }
+    }
+
+    /**
+     * Write the packets of a command from the first one not written yet
+     * @return true if the link took every packet; false if one was refused (it is retried after
+     *         a backoff) or the command failed
+     */
+    private boolean writePackets(final Pending pending, int to) {
+        int from = pending.sentPackets;
+        int accepted;
+        try {
+            accepted = sender.send(pending.command, from, to);
+        } catch (RuntimeException e) {
+            fail(pending, e);
+            return false;
+        }
+        pending.sentPackets = from + accepted;
+        if (pending.chunks != null) {
+            for (int i = from; i < from + accepted; i++) {
+                pending.chunks.onSent(i);
+            }
+        }
+        if (accepted > 0) {
+            pending.refusals = 0;
+        }
+        if (pending.sentPackets == to) {
+            return true;
+        }
+        // The refused packet never reached the glasses, retrying it is always safe
+        pending.refusals++;
+        if (pending.refusals > retryPolicy.getMaxRetries()) {
+            retryMetrics.onExhausted(pending.opcode);
+            fail(pending, new IllegalStateException("Link of " + side + " refused packet " + pending.sentPackets));
+            return false;
+        }
+        retryMetrics.onPacketRetry(pending.opcode);
+        Log.i(TAG, "writePackets: Link of " + side + " refused packet " + pending.sentPackets + ", retry " + pending.refusals);
+        streaming.remove(pending);
+        pending.timeout = loop.schedule(() -> resumeTransfer(pending),
+            retryPolicy.backoffMillis(pending.refusals), TimeUnit.MILLISECONDS);
+        return false;
+    }
+
+    /**
+     * Every packet of the command is written: it can take its response
+     */
+    private void written(final Pending pending) {
+        index(pending);
+        pending.timeout = loop.schedule(() -> onResponseTimeout(pending), attemptTimeoutMillis(pending), TimeUnit.MILLISECONDS);
+        if (pending.chunks != null) {
+            checkChunksFailed(pending);
+        }
+    }
+
+    private long attemptTimeoutMillis(Pending pending) {
+        long timeoutMillis = responseTimeoutMillis;
+        if (canRetry(pending)) {
+            timeoutMillis = Math.min(timeoutMillis, retryPolicy.getAttemptTimeoutMillis());
+        }
+        return timeoutMillis;
+    }
+
+    private void index(Pending pending) {
+        if (!pending.indexed && pending.command.responseHeader != null) {
+            inFlightIndex = inFlightIndex.with(pending.command.responseHeader, pending);
+            pending.indexed = true;
+        }
+    }
+
+    private void unindex(Pending pending) {
+        if (pending.indexed) {
+            inFlightIndex = inFlightIndex.without(pending);
+            pending.indexed = false;
+        }
+    }
+
+    private void fail(Pending pending, RuntimeException e) {
+        Log.e(TAG, "fail: Failed to send command to " + side, e);
+        remove(pending);
+        pending.command.future.completeExceptionally(e);
+    }
+
+    /**
+     * Continue the BULK transfers after the tasks already queued on the loop
+     */
+    private void scheduleResume() {
+        if (resumeScheduled || streaming.isEmpty()) {
+            return;
+        }
+        resumeScheduled = true;
+        try {
+            loop.execute(this::resume);
+        } catch (RejectedExecutionException e) {
+            Log.d(TAG, "scheduleResume: Event loop of " + side + " is shut down");
+        }
+    }
+
+    private void resume() {
+        resumeScheduled = false;
+        // Commands submitted since the last burst go first
+        pump();
+        Pending pending = streaming.peekFirst();
+        if (pending == null) {
+            return;
+        }
+        if (sender.pendingWrites() >= bulkBurstPackets) {
+            // The link hasn't written the previous burst yet, check again on the next tick
+            resumeScheduled = true;
+            loop.schedule(this::resume, 1, TimeUnit.MILLISECONDS);
+            return;
+        }
+        // Transfers take turns
+        streaming.pollFirst();
+        streaming.addLast(pending);
+        writeBurst(pending);
+        scheduleResume();
+    }
+
+    private static boolean conflictsWith(Pending pending, List<Pending> others) {
+        for (int i = 0; i < others.size(); i++) {
+            if (hasByteConflict(pending.command.responseHeader, others.get(i).command.responseHeader)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * True if the response of one command could be taken for the response of the other
+     * (one header is a prefix of the other)
+     */
+    static boolean hasByteConflict(byte[] a, byte[] b) {
+        if (a == null || b == null) {
+            return false;
+        }
+        int minLen = Math.min(a.length, b.length);
+        for (int i = 0; i < minLen; i++) {
+            if (a[i] != b[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public EvenOsApi.Sides getSide() {
+        return side;
+    }
+
+    /**
+     * Maximum number of commands waiting for their response at the same time
+     */
+    public void setMaxInFlight(int maxInFlight) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be at least 1");
+        }
+        this.maxInFlight = maxInFlight;
+        pump();
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    /**
+     * Time a command in flight waits for its response before the next conflicting command is sent
+     */
+    public void setResponseTimeoutMillis(long responseTimeoutMillis) {
+        this.responseTimeoutMillis = responseTimeoutMillis;
+    }
+
+    public long getResponseTimeoutMillis() {
+        return responseTimeoutMillis;
+    }
+
+    /**
+     * Packets of a BULK transfer written before yielding to the other lanes
+     */
+    public void setBulkBurstPackets(int bulkBurstPackets) {
+        if (bulkBurstPackets < 1) {
+            throw new IllegalArgumentException("bulkBurstPackets must be at least 1");
+        }
+        this.bulkBurstPackets = bulkBurstPackets;
+    }
+
+    public int getBulkBurstPackets() {
+        return bulkBurstPackets;
+    }
+
+    // Statistics, approximate when read outside of the event loop
+
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    public int getWaitingCount() {
+        return waitingCount;
+    }
+
+    public long getCompletedCount() {
+        return completed;
+    }
+
+    public long getTimedOutCount() {
+        return timedOut;
+    }
+
+    /**
+     * Settings replaced by a newer value before being sent, i.e. writes saved
+     */
+    public long getCoalescedCount() {
+        return coalesced;
+    }
+
+    /**
+     * Retries of the arm, per opcode
+     */
+    public RetryMetrics getRetryMetrics() {
+        return retryMetrics;
+    }
+
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * Time the commands of a lane waited before being sent
+     */
+    public LatencyHistogram getQueueWait(EvenOsCommand.Priority priority) {
+        return queueWait[priority.ordinal()];
+    }
+}
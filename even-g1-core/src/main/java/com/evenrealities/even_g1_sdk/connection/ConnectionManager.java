@@ -0,0 +1,729 @@
+/**
+ * ConnectionManager is responsible for orchestrating communication between the Even Realities smart glasses
+ * and the application. It manages the left and right links (Transport, on Android the BLE `Connection`),
+ * sends commands to the correct arm (left/right/both) and resolves their responses, asynchronously
+ * (`sendCommand`) or synchronously (`sendAndWait`).
+ *
+ * Each arm has its own ArmEventLoop and CommandScheduler: packets are sent, responses dispatched and
+ * connection state changes reported on the loop of the arm, so left and right progress in parallel
+ * and no work runs on the caller's thread or on the Bluetooth callback threads. The scheduler
+ * pipelines the commands, queues those whose responses conflict instead of rejecting them, serves
+ * the EvenOsCommand.Priority lanes in order and retries failures as the RetryPolicy allows.
+ * Sequence numbers are allocated per arm and per opcode (nextSequence).
+ *
+ * A command sent to BOTH arms completes with the first arm to answer; sendBoth reports each arm
+ * (DualResult) instead. Both arms are driven in parallel, or one after the other when the
+ * application orders the opcode in the OrderingPolicy.
+ *
+ * Received packets reach the loops through an RxBufferRing per arm and go to every matching
+ * subscriber of the EventBus without allocating. Packets can be encoded into buffers of the
+ * PacketPool (getPacketPool), reused once every scheduler is done with the command and the
+ * transports reported its writes.
+ *
+ * Designed to serve as the main communication bridge for SDK-like integrations with Even Realities G1 (firmware 1.5.0).
+ */
+
+package com.evenrealities.even_g1_sdk.connection;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
+
+import com.evenrealities.even_g1_sdk.api.EvenOsApi;
+import com.evenrealities.even_g1_sdk.api.EvenOsCommand;
+import com.evenrealities.even_g1_sdk.connection.Transport;
+import com.evenrealities.even_g1_sdk.api.EvenOsEventListener;
+import com.evenrealities.even_g1_sdk.log.Log;
+import com.evenrealities.even_g1_sdk.log.Logger;
+import com.evenrealities.even_g1_sdk.stream.BufferPolicy;
+import com.evenrealities.even_g1_sdk.stream.EventStream;
+
+
+public class ConnectionManager {
+
+    private static final String TAG = "EVEN_G1_ConnectionManager";
+
+    private final Transport leftConnection;
+    private final Transport rightConnection;
+    private final ArmEventLoop leftEventLoop;
+    private final ArmEventLoop rightEventLoop;
+    private final RxBufferRing leftRxRing = new RxBufferRing();
+    private final RxBufferRing rightRxRing = new RxBufferRing();
+    private final Transport.OnRxDataListener leftRxListener;
+    private final Transport.OnRxDataListener rightRxListener;
+    private volatile BiConsumer<byte[], EvenOsApi.Sides> leftRxHandler;
+    private volatile BiConsumer<byte[], EvenOsApi.Sides> rightRxHandler;
+    private final RetryPolicy retryPolicy = new RetryPolicy();
+    private final OrderingPolicy orderingPolicy = new OrderingPolicy();
+    // Ordered commands accepted by their first arm, on their way to the second one
+    private final OrderedHandoff<OrderedSend<?>> leftToRight = new OrderedHandoff<>(this::sendSecond);
+    private final OrderedHandoff<OrderedSend<?>> rightToLeft = new OrderedHandoff<>(this::sendSecond);
+    private final SequenceAllocator leftSequences = new SequenceAllocator();
+    private final SequenceAllocator rightSequences = new SequenceAllocator();
+    private final PacketPool packetPool = new PacketPool();
+
+    private final CommandScheduler leftScheduler;
+    private final CommandScheduler rightScheduler;
+    private final EventBus eventBus = new EventBus();
+    private final List<RxConsumer> rxConsumers = new CopyOnWriteArrayList<>();
+    private volatile Transport.OnConnectionStateChangeListener leftStateListener;
+    private volatile Transport.OnConnectionStateChangeListener rightStateListener;
+
+    public ConnectionManager(Transport leftConnection, Transport rightConnection) {
+        this.leftConnection = leftConnection;
+        this.rightConnection = rightConnection;
+        this.leftEventLoop = new ArmEventLoop("EvenG1-LEFT");
+        this.rightEventLoop = new ArmEventLoop("EvenG1-RIGHT");
+        // Pooled packets are reused once the transport wrote them, failed writes are sent again
+        boolean leftReportsWrites = leftConnection.setOnPacketWrittenListener(
+            (packet, success) -> onPacketWritten(EvenOsApi.Sides.LEFT, packet, success));
+        boolean rightReportsWrites = rightConnection.setOnPacketWrittenListener(
+            (packet, success) -> onPacketWritten(EvenOsApi.Sides.RIGHT, packet, success));
+        this.leftScheduler = new CommandScheduler(EvenOsApi.Sides.LEFT,
+            new TransportSender(leftConnection, EvenOsApi.Sides.LEFT, packetPool, leftReportsWrites),
+            leftEventLoop, retryPolicy, packetPool);
+        this.rightScheduler = new CommandScheduler(EvenOsApi.Sides.RIGHT,
+            new TransportSender(rightConnection, EvenOsApi.Sides.RIGHT, packetPool, rightReportsWrites),
+            rightEventLoop, retryPolicy, packetPool);
+
+        // Received packets are copied in the ring of the arm and drained by its loop
+        this.leftRxListener = data -> receive(leftRxRing, leftEventLoop, data, EvenOsApi.Sides.LEFT);
+        this.rightRxListener = data -> receive(rightRxRing, rightEventLoop, data, EvenOsApi.Sides.RIGHT);
+        this.leftEventLoop.addSource(() -> drain(leftRxRing, EvenOsApi.Sides.LEFT));
+        this.rightEventLoop.addSource(() -> drain(rightRxRing, EvenOsApi.Sides.RIGHT));
+
+        // Connection state changes are reported on the loop of the arm
+        this.leftConnection.setConnectionStateListener(state -> dispatch(leftEventLoop, () -> {
+            onConnectionStateChanged(leftScheduler, state);
+            Transport.OnConnectionStateChangeListener listener = leftStateListener;
+            if (listener != null) {
+                listener.onConnectionStateChanged(state);
+            }
+        }));
+        this.rightConnection.setConnectionStateListener(state -> dispatch(rightEventLoop, () -> {
+            onConnectionStateChanged(rightScheduler, state);
+            Transport.OnConnectionStateChangeListener listener = rightStateListener;
+            if (listener != null) {
+                listener.onConnectionStateChanged(state);
+            }
+        }));
+    }
+
+    public Transport getLeftConnection() {
+        return leftConnection;
+    }
+
+    public Transport getRightConnection() {
+        return rightConnection;
+    }
+
+    /**
+     * Event loop of an arm. Applications can hand work off to it, e.g. to run code after
+     * every response of the arm already queued has been dispatched.
+     */
+    public ArmEventLoop getEventLoop(EvenOsApi.Sides side) {
+        if (side == EvenOsApi.Sides.BOTH) {
+            throw new IllegalArgumentException("Each arm has its own event loop");
+        }
+        return side == EvenOsApi.Sides.LEFT ? leftEventLoop : rightEventLoop;
+    }
+
+    /**
+     * Command scheduler of an arm. Its statistics can be read from any thread,
+     * the other methods must be called on the event loop of the arm.
+     */
+    public CommandScheduler getScheduler(EvenOsApi.Sides side) {
+        if (side == EvenOsApi.Sides.BOTH) {
+            throw new IllegalArgumentException("Each arm has its own scheduler");
+        }
+        return side == EvenOsApi.Sides.LEFT ? leftScheduler : rightScheduler;
+    }
+
+    /**
+     * Retry policy of both arms: which opcodes are idempotent, how many retries, which backoff.
+     * The retries of each arm are counted by getScheduler(side).getRetryMetrics().
+     */
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * Ordering of the commands sent to both arms, per opcode
+     */
+    public OrderingPolicy getOrderingPolicy() {
+        return orderingPolicy;
+    }
+
+    /**
+     * Maximum number of commands waiting for their response on each arm
+     */
+    public void setMaxInFlight(int maxInFlight) {
+        leftEventLoop.execute(() -> leftScheduler.setMaxInFlight(maxInFlight));
+        rightEventLoop.execute(() -> rightScheduler.setMaxInFlight(maxInFlight));
+    }
+
+    /**
+     * Time a command without its own deadline waits for its response, once written,
+     * before the next conflicting command is sent
+     */
+    public void setResponseTimeoutMillis(long responseTimeoutMillis) {
+        leftEventLoop.execute(() -> leftScheduler.setResponseTimeoutMillis(responseTimeoutMillis));
+        rightEventLoop.execute(() -> rightScheduler.setResponseTimeoutMillis(responseTimeoutMillis));
+    }
+
+    private static void onConnectionStateChanged(CommandScheduler scheduler, Transport.ConnectionState state) {
+        if (state == Transport.ConnectionState.DISCONNECTED) {
+            scheduler.clear(new IllegalStateException("Side " + scheduler.getSide() + " disconnected"));
+        }
+    }
+
+    /**
+     * Ring carrying the packets received from an arm to its event loop
+     */
+    public RxBufferRing getRxBufferRing(EvenOsApi.Sides side) {
+        if (side == EvenOsApi.Sides.BOTH) {
+            throw new IllegalArgumentException("Each arm has its own ring");
+        }
+        return side == EvenOsApi.Sides.LEFT ? leftRxRing : rightRxRing;
+    }
+
+    /**
+     * Follow every packet received from an arm on a thread of its own (logging, audio...),
+     * without running on the event loop. A consumer a full ring behind makes the arm drop packets.
+     * @param side LEFT or RIGHT
+     * @param waitStrategy how the consumer waits for packets, e.g. WaitStrategy.blocking()
+     * @param handler gets the packets in order, the array is reused once it returns
+     * @return the running consumer, halt it to stop; halted by shutdown
+     */
+    public RxConsumer addRxConsumer(EvenOsApi.Sides side, WaitStrategy waitStrategy, RxConsumer.Handler handler) {
+        RxConsumer consumer = new RxConsumer("EvenG1-" + side + "-rx-" + rxConsumers.size(),
+            getRxBufferRing(side), waitStrategy, handler);
+        rxConsumers.add(consumer);
+        return consumer.start();
+    }
+
+    /**
+     * Set the listener for the connection state of an arm, called on the event loop of the arm
+     * @param side LEFT, RIGHT or BOTH
+     * @param listener
+     */
+    public void setConnectionStateListener(EvenOsApi.Sides side, Transport.OnConnectionStateChangeListener listener) {
+        if (side.matchesLeft()) {
+            this.leftStateListener = listener;
+        }
+        if (side.matchesRight()) {
+            this.rightStateListener = listener;
+        }
+    }
+
+    public void connect() {
+        this.leftConnection.setOnRxDataListener(leftRxListener);
+        this.rightConnection.setOnRxDataListener(rightRxListener);
+
+        this.leftConnection.connect();
+        this.rightConnection.connect();
+    }
+
+    public void reconnect() {
+        this.leftConnection.reconnect();
+        this.rightConnection.reconnect();
+    }
+
+    public void destroy() {
+        Log.i(TAG, "destroy: Disconnecting both connections.");
+        this.leftConnection.disconnect();
+        this.rightConnection.disconnect();
+    }
+
+    /**
+     * Hand a transport callback off to the loop of the arm.
+     * Callbacks arriving after shutdown (e.g. the final DISCONNECTED) are dropped.
+     */
+    private static void dispatch(ArmEventLoop loop, Runnable task) {
+        try {
+            loop.execute(task);
+        } catch (RejectedExecutionException e) {
+            Log.d(TAG, "dispatch: Event loop is shut down, dropping callback");
+        }
+    }
+
+    /**
+     * A transport is done with a packet, on its callback thread
+     */
+    private void onPacketWritten(EvenOsApi.Sides side, byte[] packet, boolean success) {
+        if (success) {
+            packetPool.onWritten(packet);
+            return;
+        }
+        // The buffer stays lent until the scheduler looked it up, so it isn't reused meanwhile
+        CommandScheduler scheduler = getScheduler(side);
+        try {
+            getEventLoop(side).execute(() -> {
+                scheduler.onWriteFailed(packet);
+                packetPool.onWritten(packet);
+            });
+        } catch (RejectedExecutionException e) {
+            packetPool.onWritten(packet);
+        }
+    }
+
+    /**
+     * Copy a received packet in the ring of the arm, on the transport callback thread
+     */
+    private static void receive(RxBufferRing ring, ArmEventLoop loop, byte[] data, EvenOsApi.Sides side) {
+        if (data == null || data.length == 0) {
+            return;
+        }
+        if (ring.offer(data)) {
+            loop.wakeup();
+        } else {
+            Log.w(TAG, "receive: RX ring of " + side + " is full, packet dropped");
+        }
+    }
+
+    /**
+     * Dispatch the packets received from an arm, on its event loop
+     * @return true if there was any packet
+     */
+    private boolean drain(RxBufferRing ring, EvenOsApi.Sides side) {
+        RxBufferRing.Buffer buffer = ring.poll();
+        if (buffer == null) {
+            return false;
+        }
+        do {
+            try {
+                BiConsumer<byte[], EvenOsApi.Sides> handler = side == EvenOsApi.Sides.LEFT ? leftRxHandler : rightRxHandler;
+                if (handler != null) {
+                    handler.accept(buffer.data(), side);
+                } else {
+                    onDataReceived(buffer.data(), side);
+                }
+            } catch (RuntimeException e) {
+                Log.e(TAG, "drain: Error dispatching packet from " + side, e);
+            } finally {
+                ring.release(buffer);
+            }
+            buffer = ring.poll();
+        } while (buffer != null);
+        return true;
+    }
+
+    /**
+     * Disconnect both arms and stop their event loops, the manager can't be used afterwards
+     */
+    public void shutdown() {
+        destroy();
+        for (RxConsumer consumer : rxConsumers) {
+            consumer.halt();
+        }
+        rxConsumers.clear();
+        this.leftEventLoop.shutdown();
+        this.rightEventLoop.shutdown();
+    }
+
+    private void setupHeartbeat() {
+        //@TODO: implement heartbeat response/reply handler?
+    }
+
+    public boolean isSideInitialized(EvenOsApi.Sides side) {
+        if (side == EvenOsApi.Sides.LEFT) {
+            return leftConnection.getConnectionState() == Transport.ConnectionState.INITIALIZED;
+        } else if (side == EvenOsApi.Sides.RIGHT) { 
+            return rightConnection.getConnectionState() == Transport.ConnectionState.INITIALIZED;
+        } else {
+            return leftConnection.getConnectionState() == Transport.ConnectionState.INITIALIZED &&
+                   rightConnection.getConnectionState() == Transport.ConnectionState.INITIALIZED;
+        }
+    }
+
+    /**
+     * Allocate the sequence number of a command. A command sent to BOTH arms gets a number
+     * that is new for each of them.
+     * @param side LEFT, RIGHT or BOTH
+     * @param opcode the command, each opcode has its own numbering
+     * @return the sequence number, 0-255
+     */
+    public int nextSequence(EvenOsApi.Sides side, int opcode) {
+        if (side == EvenOsApi.Sides.LEFT) {
+            return leftSequences.next(opcode);
+        } else if (side == EvenOsApi.Sides.RIGHT) {
+            return rightSequences.next(opcode);
+        }
+        return SequenceAllocator.next(leftSequences, rightSequences, opcode);
+    }
+
+    /**
+     * Negotiated MTU of a side, for BOTH the smallest of the two
+     */
+    public int getMtu(EvenOsApi.Sides side) {
+        if (side == EvenOsApi.Sides.LEFT) {
+            return leftConnection.getMtu();
+        } else if (side == EvenOsApi.Sides.RIGHT) {
+            return rightConnection.getMtu();
+        }
+        return Math.min(leftConnection.getMtu(), rightConnection.getMtu());
+    }
+
+    /**
+     * Largest packet that can be sent to a side (MTU minus the ATT header)
+     */
+    public int getMaxPacketSize(EvenOsApi.Sides side) {
+        return getMtu(side) - Transport.ATT_HEADER_SIZE;
+    }
+
+    /**
+     * Send Command to the device and return the response
+     * @param sendCommand
+     * @return
+     */
+    public <T> CompletableFuture<T> sendCommand(EvenOsCommand<T> sendCommand) {
+        CompletableFuture<T> future = sendCommand(sendCommand, sendCommand.timeoutMillis);
+        // The schedulers own the packets now
+        packetPool.recycle(sendCommand.requestPackets);
+        return future;
+    }
+
+    /**
+     * Send a command with a deadline
+     * @param deadlineMillis time the command may wait for its response, queue included;
+     *                       0 to apply the response timeout once it is written
+     */
+    private <T> CompletableFuture<T> sendCommand(EvenOsCommand<T> sendCommand, long deadlineMillis) {
+
+        if (!isSideInitialized(sendCommand.sides)) {
+            Log.w(TAG, "sendCommand: Side " + sendCommand.sides + " not initialized yet");
+            CompletableFuture<T> future = new CompletableFuture<>();
+            future.completeExceptionally(new IllegalStateException("Side " + sendCommand.sides + " not initialized"));
+            return future;
+        }
+        
+
+        Log.d(TAG, "sendCommand: Scheduling command: " + sendCommand + ", sides: " + sendCommand.sides);
+
+        // A cancelled command (e.g. sendAndWait timed out) frees its place for the next conflicting one
+        sendCommand.future.whenComplete((result, error) -> {
+            if (sendCommand.future.isCancelled()) {
+                if (sendCommand.sides.matchesLeft()) {
+                    dispatch(leftEventLoop, () -> leftScheduler.cancel(sendCommand));
+                }
+                if (sendCommand.sides.matchesRight()) {
+                    dispatch(rightEventLoop, () -> rightScheduler.cancel(sendCommand));
+                }
+            }
+        });
+
+        OrderingPolicy.Ordering ordering = orderingPolicy.getOrdering(sendCommand);
+        if (ordering != OrderingPolicy.Ordering.PARALLEL) {
+            sendOrdered(sendCommand, deadlineMillis, ordering);
+            return sendCommand.future;
+        }
+
+        // The schedulers run on the loop of each arm, the caller never blocks
+        if (sendCommand.sides.matchesLeft()) {
+            packetPool.claim(sendCommand.requestPackets);
+            leftEventLoop.execute(() -> leftScheduler.submit(sendCommand, deadlineMillis));
+        }
+        if (sendCommand.sides.matchesRight()) {
+            packetPool.claim(sendCommand.requestPackets);
+            rightEventLoop.execute(() -> rightScheduler.submit(sendCommand, deadlineMillis));
+        }
+
+        return sendCommand.future;
+    }
+
+    /**
+     * A command sent to one arm after the other
+     */
+    private static final class OrderedSend<T> {
+        final EvenOsCommand<T> command;
+        final EvenOsApi.Sides second;
+        final long deadlineMillis;
+        final long startNanos = System.nanoTime();
+
+        OrderedSend(EvenOsCommand<T> command, EvenOsApi.Sides second, long deadlineMillis) {
+            this.command = command;
+            this.second = second;
+            this.deadlineMillis = deadlineMillis;
+        }
+    }
+
+    /**
+     * Send a command to its first arm as a command of its own. Once that arm accepted it, the
+     * command goes to the second arm, which completes it; a failure of the first arm fails it.
+     * Meanwhile the first arm goes on with the next commands.
+     */
+    private <T> void sendOrdered(EvenOsCommand<T> command, long deadlineMillis, OrderingPolicy.Ordering ordering) {
+        EvenOsApi.Sides first = ordering.first();
+        EvenOsCommand<T> leg = command.forSide(first);
+        OrderedHandoff<OrderedSend<?>> handoff = first == EvenOsApi.Sides.LEFT ? leftToRight : rightToLeft;
+        OrderedHandoff.Entry<OrderedSend<?>> entry = handoff.add(new OrderedSend<>(command, ordering.second(), deadlineMillis));
+        ArmEventLoop loop = getEventLoop(first);
+        CommandScheduler scheduler = getScheduler(first);
+        // Both arms own the packets from now on, the second one before it gets the command
+        packetPool.claim(command.requestPackets);
+        packetPool.claim(command.requestPackets);
+        leg.future.whenComplete((result, error) -> {
+            if (leg.future.isCancelled()) {
+                dispatch(loop, () -> scheduler.cancel(leg));
+            }
+            if (error != null) {
+                command.future.completeExceptionally(error);
+            }
+            boolean accepted = error == null && !command.future.isDone();
+            if (!accepted) {
+                packetPool.recycle(command.requestPackets);
+            }
+            handoff.settle(entry, accepted);
+        });
+        command.future.whenComplete((result, error) -> {
+            if (command.future.isCancelled()) {
+                leg.future.cancel(false);
+            }
+        });
+        loop.execute(() -> scheduler.submit(leg, deadlineMillis));
+    }
+
+    /**
+     * Drive the second arm of an ordered command, with what is left of its deadline
+     */
+    private void sendSecond(OrderedSend<?> send) {
+        long deadlineMillis = send.deadlineMillis;
+        if (deadlineMillis > 0) {
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - send.startNanos);
+            deadlineMillis = Math.max(1, deadlineMillis - elapsedMillis);
+        }
+        long remainingMillis = deadlineMillis;
+        CommandScheduler scheduler = getScheduler(send.second);
+        dispatch(getEventLoop(send.second), () -> scheduler.submit(send.command, remainingMillis));
+    }
+
+    /**
+     * Send a command to both arms as two independent commands, each completing with its own arm
+     * @param command the command, its sides are ignored
+     * @return the commands of both arms, combine them with FanOut.allOf or FanOut.anyOf
+     */
+    public <T> FanOut<T> sendBoth(EvenOsCommand<T> command) {
+        return sendBoth(command, command.timeoutMillis);
+    }
+
+    private <T> FanOut<T> sendBoth(EvenOsCommand<T> command, long deadlineMillis) {
+        long startNanos = System.nanoTime();
+        CompletableFuture<T> left = sendCommand(command.forSide(EvenOsApi.Sides.LEFT), deadlineMillis);
+        CompletableFuture<T> right = sendCommand(command.forSide(EvenOsApi.Sides.RIGHT), deadlineMillis);
+        packetPool.recycle(command.requestPackets);
+        return new FanOut<>(left, right, startNanos);
+    }
+
+    /**
+     * Send a command to both arms and wait for both of them
+     * @param timeoutMillis deadline of each arm; an arm still without response is cancelled
+     * @return the result of each arm, successful only if both answered
+     */
+    public <T> DualResult<T> sendBothAndWait(EvenOsCommand<T> command, long timeoutMillis) throws Exception {
+        if (leftEventLoop.inEventLoop() || rightEventLoop.inEventLoop()) {
+            throw new IllegalStateException("sendBothAndWait can't be called from an arm event loop, use sendBoth");
+        }
+        FanOut<T> fanOut = sendBoth(command, command.timeoutMillis > 0 ? command.timeoutMillis : timeoutMillis);
+        CompletableFuture<DualResult<T>> all = fanOut.allOf();
+        try {
+            return all.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Both futures are done once cancelled, the result reports the late arm
+            fanOut.cancel();
+            return all.get();
+        }
+    }
+
+    /**
+     * Writes the packets of the commands of an arm, multi-packet commands use the bulk mode of the transport
+     */
+    private static final class TransportSender implements CommandScheduler.Sender {
+        private final Transport connection;
+        private final EvenOsApi.Sides side;
+        private final PacketPool packetPool;
+        private final boolean reportsWrites;
+
+        TransportSender(Transport connection, EvenOsApi.Sides side, PacketPool packetPool, boolean reportsWrites) {
+            this.connection = connection;
+            this.side = side;
+            this.packetPool = packetPool;
+            this.reportsWrites = reportsWrites;
+        }
+
+        @Override
+        public int send(EvenOsCommand<?> command, int fromPacket, int toPacket) {
+            byte[][] packets = command.requestPackets;
+            // Taken by the link before it can report them written
+            for (int i = fromPacket; i < toPacket; i++) {
+                if (reportsWrites) {
+                    packetPool.retain(packets[i]);
+                } else {
+                    packetPool.abandon(packets[i]);
+                }
+            }
+            int accepted = 0;
+            try {
+                if (packets.length > 1) {
+                    if (Log.isLoggable(Logger.DEBUG)) {
+                        Log.d(TAG, "sendCommand: Sending packets " + fromPacket + ".." + toPacket + "/" + packets.length + " to " + side + " in bulk mode");
+                    }
+                    accepted = connection.sendBulk(packets, fromPacket, toPacket);
+                } else {
+                    for (int i = fromPacket; i < toPacket; i++) {
+                        if (Log.isLoggable(Logger.DEBUG)) {
+                            Log.d(TAG, "sendCommand: Sending packet to " + side + ": " + Arrays.toString(packets[i]));
+                        }
+                        if (!connection.send(packets[i])) {
+                            break;
+                        }
+                        accepted++;
+                    }
+                }
+                return accepted;
+            } finally {
+                if (reportsWrites) {
+                    // The refused packets were never taken
+                    for (int i = fromPacket + accepted; i < toPacket; i++) {
+                        packetPool.onWritten(packets[i]);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public int pendingWrites() {
+            return connection.getPendingWrites();
+        }
+    }
+
+    public <T> T sendAndWait(EvenOsCommand<T> command, long timeoutMillis) throws Exception {
+        if (leftEventLoop.inEventLoop() || rightEventLoop.inEventLoop()) {
+            // The response would be dispatched by the loop we are blocking
+            throw new IllegalStateException("sendAndWait can't be called from an arm event loop, use sendCommand");
+        }
+        Log.d(TAG, "sendAndWait: Sending command: " + command);
+        // The wait is also the deadline of the command, it leaves the queue when the caller gives up
+        CompletableFuture<T> future = sendCommand(command, command.timeoutMillis > 0 ? command.timeoutMillis : timeoutMillis);
+        packetPool.recycle(command.requestPackets);
+        Log.d(TAG, "sendAndWait: Waiting for command to complete: " + command);
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(false);
+            throw e;
+        }
+    }
+
+    /**
+     * Replace the response dispatch of a side with a raw handler.
+     * The array is reused after the handler returns, copy it to keep it.
+     */
+    public <T> void setOnDataReceived(EvenOsApi.Sides side, BiConsumer<byte[], EvenOsApi.Sides> handler) {
+        if (side == EvenOsApi.Sides.LEFT) {
+            this.leftRxHandler = handler;
+        } else if (side == EvenOsApi.Sides.RIGHT) {
+            this.rightRxHandler = handler;
+        }
+    }
+
+    /**
+     * Set the handler of a listener for the packets of one side, replacing its previous handlers
+     */
+    public <T> void setOnResponse(EvenOsApi.Sides side, EvenOsEventListener<T> listener, BiConsumer<T, EvenOsApi.Sides> handler) {
+        eventBus.add(listener, side, handler);
+    }
+
+    /**
+     * Add a response listener for a specific event, replacing its previous handlers.
+     * The packet given to the listener is reused once the handler returns, parse it instead of keeping it.
+     * @param listener The event listener to add.
+     * @param handler The handler to call when the event occurs, on the event loop of the arm.
+     */
+    public void addResponseListener(EvenOsEventListener<?> listener, BiConsumer<?, EvenOsApi.Sides> handler) {
+        eventBus.add(listener, handler);
+    }
+
+    /**
+     * Remove a response listener for a specific event.
+     * @param listener The event listener to remove.
+     */
+    public void removeResponseListener(EvenOsEventListener<?> listener) {
+        eventBus.remove(listener);
+    }
+
+    /**
+     * Subscribe to an event on both arms, every subscriber gets it.
+     * @param executor runs the handler, so a slow subscriber doesn't stall the arm; null to call it on the event loop
+     */
+    public <T> EventBus.Subscription subscribe(EvenOsEventListener<T> listener, Executor executor,
+            BiConsumer<? super T, EvenOsApi.Sides> handler) {
+        return eventBus.subscribe(listener, EvenOsApi.Sides.BOTH, executor, handler);
+    }
+
+    /**
+     * Stream of an event with backpressure, delivered on the common pool: each subscriber gets the
+     * events it requested, the latest DEFAULT_CAPACITY ones wait while it is busy.
+     * @param listener e.g. EvenOsApi.onGlassesBattery()
+     */
+    public <T> EventStream<T> events(EvenOsEventListener<T> listener) {
+        return events(listener, EvenOsApi.Sides.BOTH, ForkJoinPool.commonPool(),
+            EventStream.DEFAULT_CAPACITY, BufferPolicy.DROP_OLDEST);
+    }
+
+    /**
+     * Stream of an event with backpressure
+     * @param side LEFT, RIGHT or BOTH
+     * @param executor delivers the events to the subscribers
+     * @param capacity events buffered per subscriber
+     * @param policy what to do with a new event when the buffer of a subscriber is full
+     */
+    public <T> EventStream<T> events(EvenOsEventListener<T> listener, EvenOsApi.Sides side, Executor executor,
+            int capacity, BufferPolicy policy) {
+        return EventStream.from(eventBus, listener, side, executor, capacity, policy);
+    }
+
+    /**
+     * Buffers for the packets of the commands, see PacketPool
+     */
+    public PacketPool getPacketPool() {
+        return packetPool;
+    }
+
+    /**
+     * Bus of the received packets, shared by both arms
+     */
+    public EventBus getEventBus() {
+        return eventBus;
+    }
+
+    private void onDataReceived(byte[] data, EvenOsApi.Sides side) {
+        boolean isUnknownCommand = true;
+        boolean matchedCommand = false;
+
+        // Check if the command is in flight
+        EvenOsCommand<?> matching = getScheduler(side).onResponse(data);
+        if (matching != null) {
+            matchedCommand = true;
+            if (Log.isLoggable(Logger.DEBUG)) {
+                Log.d(TAG, "onDataReceived: Processed command: " + matching);
+            }
+        }
+
+        if (eventBus.dispatch(data, side)) {
+            isUnknownCommand = false;
+        }
+
+        if (!matchedCommand && isUnknownCommand && Log.isLoggable(Logger.DEBUG)) {
+            StringBuilder hex = new StringBuilder();
+            for (byte b : data) hex.append(String.format("%02X ", b));
+            Log.d(TAG, "onDataReceived: Unknown Command received on side " + side + ": [" + hex.toString().trim() + "]");
+        }
+    }
+    
+}
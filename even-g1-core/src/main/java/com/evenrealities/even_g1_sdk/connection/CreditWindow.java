@@ -0,0 +1,155 @@
+/**
+ * CreditWindow is the flow control of the bulk (write without response) transfers of one link.
+ *
+ * Each unacknowledged write consumes a credit, and the credit is returned when the link reports
+ * the write as delivered to the radio. The window follows an AIMD scheme: it grows by one credit
+ * after a full window of successful writes and is halved on every failure or busy signal.
+ * When failures keep happening with the smallest window, the link is considered degraded and the
+ * caller should fall back to acknowledged writes until enough of them succeed again.
+ */
+
+package com.evenrealities.even_g1_sdk.connection;
+
+public class CreditWindow {
+
+    public static final int DEFAULT_INITIAL_WINDOW = 4;
+    public static final int DEFAULT_MAX_WINDOW = 16;
+    public static final int DEFAULT_DEGRADE_THRESHOLD = 3;
+    public static final int DEFAULT_RECOVERY_THRESHOLD = 32;
+
+    private final int maxWindow;
+    private final int degradeThreshold;
+    private final int recoveryThreshold;
+
+    private int window;
+    private int inFlight;
+    private int successStreak;
+    private int failureStreak;
+    private boolean degraded;
+
+    public CreditWindow() {
+        this(DEFAULT_INITIAL_WINDOW, DEFAULT_MAX_WINDOW, DEFAULT_DEGRADE_THRESHOLD, DEFAULT_RECOVERY_THRESHOLD);
+    }
+
+    /**
+     * @param initialWindow credits available when the transfer starts
+     * @param maxWindow maximum number of credits
+     * @param degradeThreshold consecutive failures with a single credit before the link is degraded
+     * @param recoveryThreshold consecutive successes needed to leave the degraded mode
+     */
+    public CreditWindow(int initialWindow, int maxWindow, int degradeThreshold, int recoveryThreshold) {
+        if (initialWindow < 1 || maxWindow < initialWindow) {
+            throw new IllegalArgumentException("Invalid window: initial=" + initialWindow + ", max=" + maxWindow);
+        }
+        this.window = initialWindow;
+        this.maxWindow = maxWindow;
+        this.degradeThreshold = degradeThreshold;
+        this.recoveryThreshold = recoveryThreshold;
+    }
+
+    /**
+     * Take a credit for an unacknowledged write
+     * @return false if the window is full
+     */
+    public synchronized boolean tryAcquire() {
+        if (inFlight >= window) {
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    /**
+     * Return the credit of a completed write
+     * @param success true if the link delivered the write
+     */
+    public synchronized void onFeedback(boolean success) {
+        if (inFlight > 0) {
+            inFlight--;
+        }
+        if (success) {
+            onSuccess();
+        } else {
+            onFailure();
+        }
+    }
+
+    /**
+     * Result of an acknowledged write of a bulk transfer, sent instead of a write without response
+     * while the link is degraded: it takes no credit, its successes count toward the recovery
+     * @param success true if the link delivered the write
+     */
+    public synchronized void onAcknowledged(boolean success) {
+        if (!degraded) {
+            return;
+        }
+        if (success) {
+            onSuccess();
+        } else {
+            onFailure();
+        }
+    }
+
+    /**
+     * The link refused a write because it was busy, the credit is returned and the window shrinks
+     */
+    public synchronized void onRefused() {
+        if (inFlight > 0) {
+            inFlight--;
+        }
+        shrink();
+    }
+
+    /**
+     * Forget the writes in flight, e.g. when the link is lost
+     */
+    public synchronized void reset() {
+        inFlight = 0;
+    }
+
+    private void onSuccess() {
+        failureStreak = 0;
+        successStreak++;
+        if (degraded) {
+            if (successStreak >= recoveryThreshold) {
+                degraded = false;
+                successStreak = 0;
+                window = 1;
+            }
+        } else if (successStreak >= window && window < maxWindow) {
+            window++;
+            successStreak = 0;
+        }
+    }
+
+    private void onFailure() {
+        successStreak = 0;
+        boolean atMinimum = window == 1;
+        shrink();
+        if (atMinimum) {
+            failureStreak++;
+            if (failureStreak >= degradeThreshold) {
+                degraded = true;
+            }
+        }
+    }
+
+    private void shrink() {
+        window = Math.max(1, window / 2);
+    }
+
+    /**
+     * True if the link lost too many writes and acknowledged writes should be used
+     */
+    public synchronized boolean isDegraded() {
+        return degraded;
+    }
+
+    public synchronized int getWindow() {
+        return window;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+}
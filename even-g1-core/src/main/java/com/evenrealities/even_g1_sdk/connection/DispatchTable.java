@@ -0,0 +1,183 @@
+/**
+ * DispatchTable finds the values (pending commands, response listeners) registered for the
+ * prefix of a received packet, in constant time.
+ *
+ * The first byte (opcode) indexes a 256 entries array, the following bytes (sub-opcode,
+ * e.g. 0xF5 xx, or longer prefixes like the "net build" firmware header) walk a small trie.
+ * The table is compiled when it changes: every node already holds the values of its own prefix
+ * followed by those of its shorter prefixes and of the values without prefix, so a lookup is
+ * one walk down the packet bytes and returns a precomputed array, without allocating.
+ *
+ * Tables are immutable, `with` and `without` return a new table. They change rarely (a listener
+ * or a command is added) compared to lookups (every received packet).
+ */
+
+package com.evenrealities.even_g1_sdk.connection;
+
+import java.util.Arrays;
+
+public final class DispatchTable<V> {
+
+    private static final Object[] NO_VALUES = new Object[0];
+    private static final DispatchTable<?> EMPTY = new DispatchTable<>(new byte[0][], new Object[0]);
+
+    /**
+     * Trie node. Children are sorted by key, the root uses the opcode array instead.
+     */
+    private static final class Node {
+        byte[] keys = new byte[0];
+        Node[] children = new Node[0];
+        // Values registered with exactly this prefix
+        Object[] own = NO_VALUES;
+        // Compiled: own values, then the values of the parent
+        Object[] values = NO_VALUES;
+
+        Node child(byte key) {
+            int index = Arrays.binarySearch(keys, key);
+            return index >= 0 ? children[index] : null;
+        }
+
+        Node getOrAddChild(byte key) {
+            int index = Arrays.binarySearch(keys, key);
+            if (index >= 0) {
+                return children[index];
+            }
+            int insert = -index - 1;
+            Node child = new Node();
+            byte[] newKeys = new byte[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, insert);
+            System.arraycopy(children, 0, newChildren, 0, insert);
+            newKeys[insert] = key;
+            newChildren[insert] = child;
+            System.arraycopy(keys, insert, newKeys, insert + 1, keys.length - insert);
+            System.arraycopy(children, insert, newChildren, insert + 1, children.length - insert);
+            keys = newKeys;
+            children = newChildren;
+            return child;
+        }
+    }
+
+    // Registration order, kept to recompile the table
+    private final byte[][] prefixes;
+    private final Object[] registered;
+
+    // Values without prefix, they match every packet
+    private final Object[] wildcards;
+    // Indexed by opcode
+    private final Node[] opcodes = new Node[256];
+
+    @SuppressWarnings("unchecked")
+    public static <V> DispatchTable<V> empty() {
+        return (DispatchTable<V>) EMPTY;
+    }
+
+    private DispatchTable(byte[][] prefixes, Object[] registered) {
+        this.prefixes = prefixes;
+        this.registered = registered;
+
+        Object[] any = NO_VALUES;
+        for (int i = 0; i < registered.length; i++) {
+            byte[] prefix = prefixes[i];
+            if (prefix == null || prefix.length == 0) {
+                any = append(any, registered[i]);
+                continue;
+            }
+            int opcode = prefix[0] & 0xFF;
+            Node node = opcodes[opcode];
+            if (node == null) {
+                node = opcodes[opcode] = new Node();
+            }
+            for (int j = 1; j < prefix.length; j++) {
+                node = node.getOrAddChild(prefix[j]);
+            }
+            node.own = append(node.own, registered[i]);
+        }
+        this.wildcards = any;
+        for (Node node : opcodes) {
+            if (node != null) {
+                compile(node, wildcards);
+            }
+        }
+    }
+
+    private static void compile(Node node, Object[] inherited) {
+        if (node.own.length == 0) {
+            node.values = inherited;
+        } else {
+            Object[] values = Arrays.copyOf(node.own, node.own.length + inherited.length);
+            System.arraycopy(inherited, 0, values, node.own.length, inherited.length);
+            node.values = values;
+        }
+        for (Node child : node.children) {
+            compile(child, node.values);
+        }
+    }
+
+    private static Object[] append(Object[] values, Object value) {
+        Object[] result = Arrays.copyOf(values, values.length + 1);
+        result[values.length] = value;
+        return result;
+    }
+
+    /**
+     * A new table with one more value
+     * @param prefix bytes the packets of the value start with, null or empty to match every packet
+     * @param value the value
+     */
+    public DispatchTable<V> with(byte[] prefix, V value) {
+        byte[][] newPrefixes = Arrays.copyOf(prefixes, prefixes.length + 1);
+        newPrefixes[prefixes.length] = prefix != null ? prefix.clone() : null;
+        return new DispatchTable<>(newPrefixes, append(registered, value));
+    }
+
+    /**
+     * A new table without the value (compared by identity), or this table if it isn't registered
+     */
+    public DispatchTable<V> without(V value) {
+        for (int i = 0; i < registered.length; i++) {
+            if (registered[i] == value) {
+                byte[][] newPrefixes = new byte[prefixes.length - 1][];
+                Object[] newRegistered = new Object[registered.length - 1];
+                System.arraycopy(prefixes, 0, newPrefixes, 0, i);
+                System.arraycopy(prefixes, i + 1, newPrefixes, i, prefixes.length - i - 1);
+                System.arraycopy(registered, 0, newRegistered, 0, i);
+                System.arraycopy(registered, i + 1, newRegistered, i, registered.length - i - 1);
+                return newRegistered.length == 0 ? DispatchTable.<V>empty() : new DispatchTable<>(newPrefixes, newRegistered);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Values whose prefix starts the packet, longest prefix first, then the values without prefix.
+     * Values with the same prefix keep their registration order.
+     * The array is shared, it must not be modified.
+     * @param data the received packet
+     * @return the values, cast them to V
+     */
+    public Object[] lookup(byte[] data) {
+        if (data.length == 0) {
+            return wildcards;
+        }
+        Node node = opcodes[data[0] & 0xFF];
+        if (node == null) {
+            return wildcards;
+        }
+        for (int i = 1; i < data.length; i++) {
+            Node child = node.child(data[i]);
+            if (child == null) {
+                break;
+            }
+            node = child;
+        }
+        return node.values;
+    }
+
+    /**
+     * Number of registered values
+     */
+    public int size() {
+        return registered.length;
+    }
+}
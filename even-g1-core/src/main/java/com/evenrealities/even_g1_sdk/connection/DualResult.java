@@ -0,0 +1,92 @@
+/**
+ * DualResult is the outcome of a command sent to both arms with ConnectionManager.sendBoth:
+ * the response or the failure of each arm, and the time each one took, so a setting is only
+ * reported as applied when both arms confirmed it.
+ */
+
+package com.evenrealities.even_g1_sdk.connection;
+
+import java.util.concurrent.TimeUnit;
+
+import com.evenrealities.even_g1_sdk.api.EvenOsApi;
+
+public class DualResult<T> {
+
+    /**
+     * Outcome of the command on one arm
+     */
+    public static final class ArmResult<T> {
+        public final EvenOsApi.Sides side;
+        /** The response, null if the arm failed */
+        public final T value;
+        /** Why the arm failed (TimeoutException, CancellationException...), null on success */
+        public final Throwable error;
+        /** Time from the fan-out to the response or the failure of the arm */
+        public final long latencyNanos;
+
+        public ArmResult(EvenOsApi.Sides side, T value, Throwable error, long latencyNanos) {
+            this.side = side;
+            this.value = value;
+            this.error = error;
+            this.latencyNanos = latencyNanos;
+        }
+
+        public boolean isSuccess() {
+            return error == null;
+        }
+
+        public long getLatencyMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(latencyNanos);
+        }
+
+        @Override
+        public String toString() {
+            return side + (isSuccess() ? " ok" : " failed (" + error + ")") + " in " + getLatencyMillis() + "ms";
+        }
+    }
+
+    public final ArmResult<T> left;
+    public final ArmResult<T> right;
+
+    public DualResult(ArmResult<T> left, ArmResult<T> right) {
+        this.left = left;
+        this.right = right;
+    }
+
+    /**
+     * Result of one arm
+     * @param side LEFT or RIGHT
+     */
+    public ArmResult<T> get(EvenOsApi.Sides side) {
+        if (side == EvenOsApi.Sides.BOTH) {
+            throw new IllegalArgumentException("Each arm has its own result");
+        }
+        return side == EvenOsApi.Sides.LEFT ? left : right;
+    }
+
+    /**
+     * True if both arms answered
+     */
+    public boolean isSuccess() {
+        return left.isSuccess() && right.isSuccess();
+    }
+
+    /**
+     * True if at least one arm answered
+     */
+    public boolean isAnySuccess() {
+        return left.isSuccess() || right.isSuccess();
+    }
+
+    /**
+     * Latency of the slowest arm, i.e. of the command
+     */
+    public long getLatencyNanos() {
+        return Math.max(left.latencyNanos, right.latencyNanos);
+    }
+
+    @Override
+    public String toString() {
+        return "DualResult[" + left + ", " + right + "]";
+    }
+}
@@ -0,0 +1,227 @@
+/**
+ * EventBus hands every received packet (0xF5 device events, responses, audio) to all the
+ * subscribers whose listener matches it, so several features can follow the taps or the battery.
+ *
+ * Subscriptions are indexed by the prefix their listener declares (EvenOsEventListener.prefix) in
+ * a DispatchTable, so only the subscribers of the opcode / sub-opcode of the packet are asked, and
+ * the cost of a dispatch doesn't grow with the number of subscribers. Subscribers with a longer
+ * prefix are called first, subscribers without prefix last, in subscription order otherwise.
+ *
+ * Registration is lock-free: the subscriptions are an immutable snapshot (copy-on-write), replaced
+ * with a compare-and-set, and a dispatch reads the current snapshot without locking. Subscribing
+ * from a handler is safe and takes effect from the next packet.
+ *
+ * The packet is parsed on the event loop of the arm, while its buffer is valid. A subscriber with an
+ * executor gets the parsed value on that executor, so a slow consumer doesn't stall the arm;
+ * the others are called on the loop and must return quickly.
+ */
+
+package com.evenrealities.even_g1_sdk.connection;
+
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+
+import com.evenrealities.even_g1_sdk.api.EvenOsApi;
+import com.evenrealities.even_g1_sdk.api.EvenOsEventListener;
+import com.evenrealities.even_g1_sdk.log.Log;
+
+public class EventBus {
+
+    private static final String TAG = "EVEN_G1_EventBus";
+
+    /**
+     * A subscriber, unsubscribe it to stop the events
+     */
+    public final class Subscription {
+        public final EvenOsEventListener<?> listener;
+        /** Arm whose packets are delivered, BOTH for both */
+        public final EvenOsApi.Sides side;
+        /** Runs the handler, null to call it on the event loop of the arm */
+        public final Executor executor;
+        private final BiConsumer<Object, EvenOsApi.Sides> handler;
+
+        @SuppressWarnings("unchecked")
+        private Subscription(EvenOsEventListener<?> listener, EvenOsApi.Sides side, Executor executor,
+                BiConsumer<?, EvenOsApi.Sides> handler) {
+            this.listener = listener;
+            this.side = side;
+            this.executor = executor;
+            this.handler = (BiConsumer<Object, EvenOsApi.Sides>) handler;
+        }
+
+        public void unsubscribe() {
+            EventBus.this.unsubscribe(this);
+        }
+    }
+
+    /**
+     * Immutable snapshot of the subscriptions
+     */
+    private static final class Snapshot {
+        static final Snapshot EMPTY = new Snapshot(new Subscription[0], DispatchTable.<Subscription>empty());
+
+        final Subscription[] subscriptions;
+        final DispatchTable<Subscription> table;
+
+        Snapshot(Subscription[] subscriptions, DispatchTable<Subscription> table) {
+            this.subscriptions = subscriptions;
+            this.table = table;
+        }
+
+        Snapshot with(Subscription subscription) {
+            Subscription[] grown = Arrays.copyOf(subscriptions, subscriptions.length + 1);
+            grown[subscriptions.length] = subscription;
+            return new Snapshot(grown, table.with(subscription.listener.prefix(), subscription));
+        }
+
+        Snapshot without(Subscription subscription) {
+            int index = -1;
+            for (int i = 0; i < subscriptions.length; i++) {
+                if (subscriptions[i] == subscription) {
+                    index = i;
+                    break;
+                }
+            }
+            if (index < 0) {
+                return this;
+            }
+            Subscription[] shrunk = new Subscription[subscriptions.length - 1];
+            System.arraycopy(subscriptions, 0, shrunk, 0, index);
+            System.arraycopy(subscriptions, index + 1, shrunk, index, shrunk.length - index);
+            return new Snapshot(shrunk, table.without(subscription));
+        }
+
+        Snapshot withoutListener(EvenOsEventListener<?> listener) {
+            Snapshot snapshot = this;
+            for (Subscription subscription : subscriptions) {
+                if (subscription.listener.equals(listener)) {
+                    snapshot = snapshot.without(subscription);
+                }
+            }
+            return snapshot;
+        }
+    }
+
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(Snapshot.EMPTY);
+
+    /**
+     * Subscribe to the packets of both arms, handled on the event loop of the arm
+     * @param listener matches and parses the packets
+     * @param handler called with the parsed packet
+     */
+    public <T> Subscription subscribe(EvenOsEventListener<T> listener, BiConsumer<? super T, EvenOsApi.Sides> handler) {
+        return subscribe(listener, EvenOsApi.Sides.BOTH, null, handler);
+    }
+
+    /**
+     * Subscribe to the packets of an arm
+     * @param listener matches and parses the packets
+     * @param side LEFT, RIGHT or BOTH
+     * @param executor runs the handler, null to call it on the event loop of the arm
+     * @param handler called with the parsed packet
+     */
+    public <T> Subscription subscribe(EvenOsEventListener<T> listener, EvenOsApi.Sides side, Executor executor,
+            BiConsumer<? super T, EvenOsApi.Sides> handler) {
+        Subscription subscription = new Subscription(listener, side, executor, handler);
+        Snapshot current;
+        do {
+            current = snapshot.get();
+        } while (!snapshot.compareAndSet(current, current.with(subscription)));
+        return subscription;
+    }
+
+    /**
+     * Stop a subscriber, the packets being dispatched may still reach it
+     */
+    public void unsubscribe(Subscription subscription) {
+        Snapshot current;
+        Snapshot next;
+        do {
+            current = snapshot.get();
+            next = current.without(subscription);
+        } while (next != current && !snapshot.compareAndSet(current, next));
+    }
+
+    /**
+     * Subscribe a listener, replacing its previous subscriptions
+     * @param listener the listener
+     * @param handler called with the parsed packet, on the event loop of the arm
+     */
+    public void add(EvenOsEventListener<?> listener, BiConsumer<?, EvenOsApi.Sides> handler) {
+        add(listener, EvenOsApi.Sides.BOTH, handler);
+    }
+
+    /**
+     * Subscribe a listener to the packets of an arm, replacing its previous subscriptions
+     */
+    public void add(EvenOsEventListener<?> listener, EvenOsApi.Sides side, BiConsumer<?, EvenOsApi.Sides> handler) {
+        Subscription subscription = new Subscription(listener, side, null, handler);
+        Snapshot current;
+        do {
+            current = snapshot.get();
+        } while (!snapshot.compareAndSet(current, current.withoutListener(listener).with(subscription)));
+    }
+
+    /**
+     * Remove every subscription of a listener
+     * @param listener the listener, compared with equals
+     */
+    public void remove(EvenOsEventListener<?> listener) {
+        Snapshot current;
+        Snapshot next;
+        do {
+            current = snapshot.get();
+            next = current.withoutListener(listener);
+        } while (next != current && !snapshot.compareAndSet(current, next));
+    }
+
+    /**
+     * Number of subscriptions
+     */
+    public int size() {
+        return snapshot.get().subscriptions.length;
+    }
+
+    /**
+     * Hand a packet to every matching subscriber
+     * @param data the packet, only valid during the call
+     * @param side the arm it came from
+     * @return true if a subscriber matched
+     */
+    public boolean dispatch(byte[] data, EvenOsApi.Sides side) {
+        Object[] candidates = snapshot.get().table.lookup(data);
+        boolean matched = false;
+        for (Object candidate : candidates) {
+            Subscription subscription = (Subscription) candidate;
+            if (!subscription.side.matchesLeft() && side == EvenOsApi.Sides.LEFT
+                    || !subscription.side.matchesRight() && side == EvenOsApi.Sides.RIGHT
+                    || !subscription.listener.matches(data, side)) {
+                continue;
+            }
+            matched = true;
+            try {
+                deliver(subscription, subscription.listener.parse(data, side), side);
+            } catch (RuntimeException e) {
+                // One failing subscriber doesn't keep the packet from the others
+                Log.e(TAG, "dispatch: Subscriber failed on packet from " + side, e);
+            }
+        }
+        return matched;
+    }
+
+    private static void deliver(Subscription subscription, Object parsed, EvenOsApi.Sides side) {
+        Executor executor = subscription.executor;
+        if (executor == null) {
+            subscription.handler.accept(parsed, side);
+            return;
+        }
+        try {
+            executor.execute(() -> subscription.handler.accept(parsed, side));
+        } catch (RejectedExecutionException e) {
+            Log.w(TAG, "deliver: Executor of a subscriber rejected an event from " + side);
+        }
+    }
+}
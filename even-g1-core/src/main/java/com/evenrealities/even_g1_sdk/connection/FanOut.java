@@ -0,0 +1,105 @@
+/**
+ * FanOut is a command sent to both arms as two independent commands, one per arm, returned by
+ * ConnectionManager.sendBoth.
+ *
+ * A command sent with Sides.BOTH has a single future, completed by the first arm that answers:
+ * the other arm may have failed unnoticed. Here each arm completes its own future, and the
+ * combinators choose the completion:
+ * - allOf: both arms settled, with the result of each (DualResult)
+ * - anyOf: the first arm that answered, the other one keeps going
+ *
+ * Both commands are submitted together and each arm pipelines its own, so neither waits for the other.
+ */
+
+package com.evenrealities.even_g1_sdk.connection;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+import com.evenrealities.even_g1_sdk.api.EvenOsApi;
+
+public class FanOut<T> {
+
+    private final CompletableFuture<T> leftFuture;
+    private final CompletableFuture<T> rightFuture;
+    private final CompletableFuture<DualResult.ArmResult<T>> left;
+    private final CompletableFuture<DualResult.ArmResult<T>> right;
+
+    /**
+     * @param leftFuture future of the command of the left arm
+     * @param rightFuture future of the command of the right arm
+     * @param startNanos time the commands were sent, from System.nanoTime()
+     */
+    public FanOut(CompletableFuture<T> leftFuture, CompletableFuture<T> rightFuture, long startNanos) {
+        this.leftFuture = leftFuture;
+        this.rightFuture = rightFuture;
+        this.left = leftFuture.handle((value, error) ->
+            new DualResult.ArmResult<>(EvenOsApi.Sides.LEFT, value, unwrap(error), System.nanoTime() - startNanos));
+        this.right = rightFuture.handle((value, error) ->
+            new DualResult.ArmResult<>(EvenOsApi.Sides.RIGHT, value, unwrap(error), System.nanoTime() - startNanos));
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        while ((error instanceof CompletionException || error instanceof ExecutionException) && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+
+    /**
+     * Future of the command of one arm
+     * @param side LEFT or RIGHT
+     */
+    public CompletableFuture<T> get(EvenOsApi.Sides side) {
+        if (side == EvenOsApi.Sides.BOTH) {
+            throw new IllegalArgumentException("Each arm has its own future");
+        }
+        return side == EvenOsApi.Sides.LEFT ? leftFuture : rightFuture;
+    }
+
+    /**
+     * Completes once both arms answered or failed, never exceptionally: check DualResult.isSuccess
+     */
+    public CompletableFuture<DualResult<T>> allOf() {
+        return left.thenCombine(right, DualResult::new);
+    }
+
+    /**
+     * Completes with the first arm that answered, or with the result of the last failure when both failed
+     */
+    public CompletableFuture<DualResult.ArmResult<T>> anyOf() {
+        CompletableFuture<DualResult.ArmResult<T>> first = new CompletableFuture<>();
+        left.thenAcceptBoth(right, (l, r) -> first.complete(firstOf(l, r)));
+        left.thenAccept(result -> {
+            if (result.isSuccess()) {
+                first.complete(result);
+            }
+        });
+        right.thenAccept(result -> {
+            if (result.isSuccess()) {
+                first.complete(result);
+            }
+        });
+        return first;
+    }
+
+    /**
+     * The fastest arm that answered, otherwise the last failure
+     */
+    private static <T> DualResult.ArmResult<T> firstOf(DualResult.ArmResult<T> l, DualResult.ArmResult<T> r) {
+        if (l.isSuccess() != r.isSuccess()) {
+            return l.isSuccess() ? l : r;
+        }
+        boolean leftFirst = l.latencyNanos <= r.latencyNanos;
+        return l.isSuccess() == leftFirst ? l : r;
+    }
+
+    /**
+     * Drop the commands of both arms, they complete with a CancellationException
+     */
+    public void cancel() {
+        leftFuture.cancel(false);
+        rightFuture.cancel(false);
+    }
+}
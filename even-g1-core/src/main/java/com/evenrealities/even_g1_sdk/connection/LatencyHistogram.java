@@ -0,0 +1,85 @@
+/**
+ * LatencyHistogram records latencies (e.g. the time a command waited in its lane) in power of two
+ * buckets of microseconds, so percentiles like the p99 can be read without keeping every sample.
+ *
+ * Recording is O(1) and doesn't allocate. A percentile is the upper bound of its bucket (capped by
+ * the maximum seen), so it is at most twice the real value.
+ *
+ * Written by one thread (the event loop of an arm), other threads read approximate values.
+ */
+
+package com.evenrealities.even_g1_sdk.connection;
+
+import java.util.concurrent.TimeUnit;
+
+public class LatencyHistogram {
+
+    // Bucket i holds the latencies below 2^i microseconds, the last one everything above
+    private static final int BUCKETS = 40;
+
+    private final long[] buckets = new long[BUCKETS];
+    private long count;
+    private long totalNanos;
+    private long maxNanos;
+
+    /**
+     * Record a latency
+     * @param nanos the latency, in nanoseconds
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
+        int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+        buckets[bucket]++;
+        count++;
+        totalNanos += nanos;
+        if (nanos > maxNanos) {
+            maxNanos = nanos;
+        }
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMeanNanos() {
+        long n = count;
+        return n == 0 ? 0 : totalNanos / n;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    /**
+     * Latency below which a fraction of the samples are
+     * @param percentile between 0 and 1, e.g. 0.99
+     * @return the upper bound of the bucket, in nanoseconds; 0 without samples
+     */
+    public long getPercentileNanos(double percentile) {
+        long n = count;
+        if (n == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(percentile * n);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets[i];
+            if (seen >= rank) {
+                return Math.min(maxNanos, TimeUnit.MICROSECONDS.toNanos(1L << i));
+            }
+        }
+        return maxNanos;
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = 0;
+        }
+        count = 0;
+        totalNanos = 0;
+        maxNanos = 0;
+    }
+}
@@ -0,0 +1,307 @@
+/**
+ * OperationQueue serializes the operations of one link, so only one operation is outstanding at a time.
+ *
+ * BLE stacks (Android's BluetoothGatt in particular) accept a single pending GATT operation:
+ * a write issued while another one is in flight is rejected or silently dropped. Every write,
+ * descriptor write and MTU request goes through this queue, and the next operation is started
+ * only when the completion callback of the current one calls `complete`.
+ *
+ * Writes without response (bulk transfers) are the exception: several of them can be in flight,
+ * as long as the CreditWindow of the queue has credits. Each completion returns a credit, a busy
+ * link shrinks the window. Acknowledged operations still wait until the link is completely idle.
+ * While the window is degraded, bulk transfers use acknowledged writes (BULK_WRITE): their
+ * results tell the window when the link recovered.
+ *
+ * Operations are started by one thread at a time, whichever calls enqueue or complete first: the
+ * others leave the pending operations to it, so two writes never configure the link at once.
+ * A link that accepts a single outstanding write whatever its type (Android's BluetoothGatt)
+ * must use a window of one credit: the writes without response are then paced one after the
+ * other, they only save the acknowledgement of the glasses.
+ *
+ * The queue also measures the latency of each operation, from start to completion, and reports
+ * it to the operation and to an optional listener.
+ */
+
+package com.evenrealities.even_g1_sdk.connection;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import com.evenrealities.even_g1_sdk.log.Log;
+
+public class OperationQueue {
+
+    private static final String TAG = "EVEN_G1_OperationQueue";
+
+    public enum Type {
+        WRITE,
+        WRITE_NO_RESPONSE,
+        // Acknowledged write of a bulk transfer on a degraded link, its result feeds the CreditWindow
+        BULK_WRITE,
+        DESCRIPTOR_WRITE,
+        MTU_REQUEST
+    }
+
+    /**
+     * An operation on the link
+     */
+    public interface Operation {
+        /**
+         * Start the operation
+         * @return false if the stack refused it, the operation is then completed as failed
+         */
+        boolean start();
+
+        /**
+         * Called once the operation completed (or failed, or was cancelled)
+         * @param success true if the stack reported success
+         * @param latencyNanos time between start and completion, 0 if never started
+         */
+        default void onComplete(boolean success, long latencyNanos) {
+        }
+    }
+
+    /**
+     * Listener for the latency of every completed operation
+     */
+    public interface OnOperationCompleteListener {
+        void onOperationComplete(Type type, boolean success, long latencyNanos);
+    }
+
+    private static class Entry {
+        final Type type;
+        final Operation operation;
+        long startNanos;
+
+        Entry(Type type, Operation operation) {
+            this.type = type;
+            this.operation = operation;
+        }
+    }
+
+    private final Deque<Entry> pending = new ArrayDeque<>();
+    private final Deque<Entry> unacknowledged = new ArrayDeque<>();
+    private final CreditWindow creditWindow;
+    private Entry current;
+    // A thread is starting operations, the others only ask it to look at the queue again
+    private boolean starting;
+    private boolean startRequested;
+    private volatile OnOperationCompleteListener listener;
+
+    public OperationQueue() {
+        this(new CreditWindow());
+    }
+
+    public OperationQueue(CreditWindow creditWindow) {
+        this.creditWindow = creditWindow;
+    }
+
+    public CreditWindow getCreditWindow() {
+        return creditWindow;
+    }
+
+    public void setOnOperationCompleteListener(OnOperationCompleteListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Add an operation to the queue, it starts immediately if the link is idle
+     * @param type the type of the operation, used to match the completion callback
+     * @param operation the operation
+     */
+    public void enqueue(Type type, Operation operation) {
+        synchronized (this) {
+            pending.addLast(new Entry(type, operation));
+            if (current != null) {
+                return;
+            }
+        }
+        startNext();
+    }
+
+    /**
+     * Complete the current operation and start the next one.
+     * Must be called from the completion callback of the link.
+     * @param type the type of the completed operation
+     * @param success true if the operation succeeded
+     */
+    public void complete(Type type, boolean success) {
+        Entry finished;
+        synchronized (this) {
+            if (type == Type.WRITE_NO_RESPONSE) {
+                finished = unacknowledged.pollFirst();
+                if (finished == null) {
+                    Log.w(TAG, "complete: Unexpected " + type + " completion, nothing in flight");
+                    return;
+                }
+                creditWindow.onFeedback(success);
+            } else {
+                if (current == null || current.type != type) {
+                    Log.w(TAG, "complete: Unexpected " + type + " completion, current=" + (current != null ? current.type : null));
+                    return;
+                }
+                finished = current;
+                current = null;
+                if (type == Type.BULK_WRITE) {
+                    creditWindow.onAcknowledged(success);
+                }
+            }
+        }
+        finish(finished, success, System.nanoTime() - finished.startNanos);
+        startNext();
+    }
+
+    /**
+     * Complete a characteristic write, acknowledged or not.
+     * Links that report both kinds of write through the same callback use this method.
+     * @param success true if the write succeeded
+     */
+    public void completeWrite(boolean success) {
+        Type type;
+        synchronized (this) {
+            type = current != null && (current.type == Type.WRITE || current.type == Type.BULK_WRITE)
+                ? current.type : Type.WRITE_NO_RESPONSE;
+        }
+        complete(type, success);
+    }
+
+    /**
+     * Drop the current and all pending operations, e.g. when the link is lost.
+     * The dropped operations are completed as failed.
+     */
+    public void clear() {
+        Entry[] dropped;
+        synchronized (this) {
+            int size = pending.size() + unacknowledged.size() + (current != null ? 1 : 0);
+            dropped = new Entry[size];
+            int i = 0;
+            if (current != null) {
+                dropped[i++] = current;
+                current = null;
+            }
+            while (!unacknowledged.isEmpty()) {
+                dropped[i++] = unacknowledged.pollFirst();
+            }
+            while (!pending.isEmpty()) {
+                dropped[i++] = pending.pollFirst();
+            }
+            creditWindow.reset();
+        }
+        for (Entry entry : dropped) {
+            finish(entry, false, 0);
+        }
+    }
+
+    /**
+     * Number of operations waiting or in flight
+     */
+    public synchronized int size() {
+        return pending.size() + unacknowledged.size() + (current != null ? 1 : 0);
+    }
+
+    public synchronized boolean isIdle() {
+        return current == null && pending.isEmpty() && unacknowledged.isEmpty();
+    }
+
+    private void startNext() {
+        synchronized (this) {
+            if (starting) {
+                startRequested = true;
+                return;
+            }
+            starting = true;
+        }
+        boolean again = true;
+        try {
+            while (again) {
+                startPending();
+                synchronized (this) {
+                    again = startRequested;
+                    startRequested = false;
+                    if (!again) {
+                        starting = false;
+                    }
+                }
+            }
+        } finally {
+            if (again) {
+                // An operation threw, the next enqueue or completion starts the queue again
+                synchronized (this) {
+                    starting = false;
+                }
+            }
+        }
+    }
+
+    private void startPending() {
+        while (true) {
+            Entry next;
+            synchronized (this) {
+                if (current != null || pending.isEmpty()) {
+                    return;
+                }
+                next = pending.peekFirst();
+                if (next.type == Type.WRITE_NO_RESPONSE) {
+                    if (!creditWindow.tryAcquire()) {
+                        // Resumed by the completion that returns a credit
+                        return;
+                    }
+                    unacknowledged.addLast(next);
+                } else if (!unacknowledged.isEmpty()) {
+                    // Acknowledged operations wait for the bulk writes to drain
+                    return;
+                } else {
+                    current = next;
+                }
+                pending.pollFirst();
+                next.startNanos = System.nanoTime();
+            }
+            boolean started;
+            try {
+                started = next.operation.start();
+            } catch (RuntimeException e) {
+                Log.e(TAG, "startNext: " + next.type + " failed to start", e);
+                started = false;
+            }
+            if (started) {
+                if (next.type == Type.WRITE_NO_RESPONSE) {
+                    continue;
+                }
+                return;
+            }
+            synchronized (this) {
+                if (next.type == Type.WRITE_NO_RESPONSE) {
+                    if (!unacknowledged.remove(next)) {
+                        continue;
+                    }
+                    if (!unacknowledged.isEmpty()) {
+                        // The link is busy: retry once a write in flight completes
+                        creditWindow.onRefused();
+                        pending.addFirst(next);
+                        return;
+                    }
+                    creditWindow.onFeedback(false);
+                } else {
+                    if (current != next) {
+                        // Completed (or cleared) while starting
+                        continue;
+                    }
+                    current = null;
+                    if (next.type == Type.BULK_WRITE) {
+                        creditWindow.onAcknowledged(false);
+                    }
+                }
+            }
+            Log.w(TAG, "startNext: " + next.type + " refused by the link");
+            finish(next, false, System.nanoTime() - next.startNanos);
+        }
+    }
+
+    private void finish(Entry entry, boolean success, long latencyNanos) {
+        entry.operation.onComplete(success, latencyNanos);
+        OnOperationCompleteListener current = listener;
+        if (current != null) {
+            current.onOperationComplete(entry.type, success, latencyNanos);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/**
+ * OrderedHandoff hands the ordered commands over from their first arm to their second arm,
+ * in the order they were sent.
+ *
+ * A command is added when it is sent to its first arm, and marked accepted or failed once the
+ * first arm settled. Commands that don't conflict are pipelined on the first arm and may settle
+ * out of order: a command is only released once every command added before it was released, so
+ * the second arm sees them in the same order as the first one.
+ *
+ * Thread safe: commands are added on the caller's thread and settled on the loop of the first arm.
+ */
+
+package com.evenrealities.even_g1_sdk.connection;
+
+import java.util.ArrayDeque;
+import java.util.function.Consumer;
+
+public class OrderedHandoff<E> {
+
+    /**
+     * A command waiting for its first arm
+     */
+    public static final class Entry<E> {
+        public final E value;
+        private boolean settled;
+        private boolean accepted;
+
+        private Entry(E value) {
+            this.value = value;
+        }
+    }
+
+    private final ArrayDeque<Entry<E>> entries = new ArrayDeque<>();
+    private final Consumer<E> release;
+
+    /**
+     * @param release drives the second arm, called in order for each accepted command,
+     *                under the lock: it must only hand the command off (e.g. to the loop of the arm)
+     */
+    public OrderedHandoff(Consumer<E> release) {
+        this.release = release;
+    }
+
+    public synchronized Entry<E> add(E value) {
+        Entry<E> entry = new Entry<>(value);
+        entries.add(entry);
+        return entry;
+    }
+
+    /**
+     * The first arm settled a command
+     * @param accepted false if it failed, it is dropped without blocking the next ones
+     */
+    public synchronized void settle(Entry<E> entry, boolean accepted) {
+        entry.settled = true;
+        entry.accepted = accepted;
+        while (!entries.isEmpty() && entries.peekFirst().settled) {
+            Entry<E> head = entries.pollFirst();
+            if (head.accepted) {
+                release.accept(head.value);
+            }
+        }
+    }
+
+    /**
+     * Commands waiting for their first arm, or for an earlier command
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,84 @@
+/**
+ * OrderingPolicy decides, per opcode, how a command sent to both arms is driven:
+ * - PARALLEL: both arms at once (default)
+ * - LEFT_THEN_RIGHT: the right arm only once the left one accepted the command
+ * - RIGHT_THEN_LEFT: the left arm only once the right one accepted the command
+ *
+ * Ordered commands are pipelined: the first arm goes on with the next command while the second
+ * arm handles the previous one, and the second arm gets the commands in the order the first arm
+ * got them. The ordering costs the latency of one arm per command, not half the throughput.
+ *
+ * Every opcode is PARALLEL until the application orders it with setOrdering: only the commands
+ * it sends to BOTH arms itself are ordered. The SDK sends text (sendText, TextSession,
+ * TextStreamWriter) to the left arm only, so it is never ordered.
+ *
+ * The policy is shared by both arms, configure it before sending commands.
+ */
+
+package com.evenrealities.even_g1_sdk.connection;
+
+import com.evenrealities.even_g1_sdk.api.EvenOsApi;
+import com.evenrealities.even_g1_sdk.api.EvenOsCommand;
+
+public class OrderingPolicy {
+
+    public enum Ordering {
+        PARALLEL(null),
+        LEFT_THEN_RIGHT(EvenOsApi.Sides.LEFT),
+        RIGHT_THEN_LEFT(EvenOsApi.Sides.RIGHT);
+
+        private final EvenOsApi.Sides first;
+
+        Ordering(EvenOsApi.Sides first) {
+            this.first = first;
+        }
+
+        /**
+         * Arm driven first, null for PARALLEL
+         */
+        public EvenOsApi.Sides first() {
+            return first;
+        }
+
+        /**
+         * Arm driven once the first one accepted the command, null for PARALLEL
+         */
+        public EvenOsApi.Sides second() {
+            if (first == null) {
+                return null;
+            }
+            return first == EvenOsApi.Sides.LEFT ? EvenOsApi.Sides.RIGHT : EvenOsApi.Sides.LEFT;
+        }
+    }
+
+    private final Ordering[] ordering = new Ordering[256];
+
+    public OrderingPolicy() {
+        for (int i = 0; i < ordering.length; i++) {
+            ordering[i] = Ordering.PARALLEL;
+        }
+    }
+
+    /**
+     * @param opcode first byte of the request, 0-255
+     * @param value how the commands with this opcode are driven on both arms
+     */
+    public void setOrdering(int opcode, Ordering value) {
+        ordering[opcode & 0xFF] = value;
+    }
+
+    public Ordering getOrdering(int opcode) {
+        return ordering[opcode & 0xFF];
+    }
+
+    /**
+     * Ordering of a command sent to both arms, PARALLEL for the others
+     */
+    public Ordering getOrdering(EvenOsCommand<?> command) {
+        int opcode = RetryPolicy.opcodeOf(command);
+        if (command.sides != EvenOsApi.Sides.BOTH || opcode < 0) {
+            return Ordering.PARALLEL;
+        }
+        return ordering[opcode];
+    }
+}
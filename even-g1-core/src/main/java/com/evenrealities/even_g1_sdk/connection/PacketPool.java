@@ -0,0 +1,191 @@
+/**
+ * PacketPool lends the packet buffers of the commands of one ConnectionManager, so a steady flow
+ * of commands (e.g. captions sent with sendText several times per second) reuses its buffers
+ * instead of allocating new ones.
+ *
+ * A buffer has the exact size of its packet (the link writes whole arrays) and goes back to the
+ * pool once both are true:
+ * - every owner let it go: the caller once it sent the command, each scheduler that took the
+ *   command once the command completed, failed or was cancelled
+ * - every write of it handed to a link was reported written by the Transport
+ *
+ * A buffer taken by a transport that can't report its writes is never reused. Buffers not taken
+ * from the pool are ignored by every method, so pooled and plain commands mix freely.
+ *
+ * Free buffers are kept per size, up to maxPooledBytes in total.
+ *
+ * Thread safe: buffers are taken on the caller's thread, written on the Bluetooth threads and
+ * released on the event loops.
+ */
+
+package com.evenrealities.even_g1_sdk.connection;
+
+import java.util.IdentityHashMap;
+
+public class PacketPool {
+
+    /** Largest pooled buffer, the largest ATT value */
+    public static final int MAX_PACKET_SIZE = 512;
+    public static final int DEFAULT_MAX_POOLED_BYTES = 64 * 1024;
+
+    private static final class Slot {
+        final byte[] data;
+        // The caller, then each scheduler of the command
+        int owners;
+        // Writes handed to a link and not reported written yet
+        int writes;
+        // Taken by a link that doesn't report its writes
+        boolean abandoned;
+        // Next free buffer of the same size
+        Slot nextFree;
+
+        Slot(byte[] data) {
+            this.data = data;
+        }
+    }
+
+    private final int maxPooledBytes;
+    // Buffers lent, by identity
+    private final IdentityHashMap<byte[], Slot> lent = new IdentityHashMap<>();
+    // Free buffers, by size: the last one released, linked to the others
+    private final Slot[] free = new Slot[MAX_PACKET_SIZE + 1];
+    private int pooledBytes;
+    private long allocations;
+    private long reuses;
+
+    public PacketPool() {
+        this(DEFAULT_MAX_POOLED_BYTES);
+    }
+
+    /**
+     * @param maxPooledBytes size of the free buffers kept for reuse, 0 disables the reuse
+     */
+    public PacketPool(int maxPooledBytes) {
+        this.maxPooledBytes = maxPooledBytes;
+    }
+
+    /**
+     * Take a buffer, owned by the caller until it sends it with the ConnectionManager.
+     * Its content is undefined, the encoder writes every byte.
+     * @param size the size of the packet
+     */
+    public synchronized byte[] acquire(int size) {
+        if (size <= 0 || size > MAX_PACKET_SIZE) {
+            allocations++;
+            return new byte[size];
+        }
+        Slot slot = free[size];
+        if (slot != null) {
+            free[size] = slot.nextFree;
+            slot.nextFree = null;
+            pooledBytes -= size;
+            reuses++;
+        } else {
+            slot = new Slot(new byte[size]);
+            allocations++;
+        }
+        slot.owners = 1;
+        slot.writes = 0;
+        slot.abandoned = false;
+        lent.put(slot.data, slot);
+        return slot.data;
+    }
+
+    /**
+     * A scheduler took the packets of a command, until it releases them with recycle
+     */
+    public synchronized void claim(byte[][] packets) {
+        for (byte[] packet : packets) {
+            Slot slot = lent.get(packet);
+            if (slot != null) {
+                slot.owners++;
+            }
+        }
+    }
+
+    /**
+     * An owner is done with the packets of a command
+     */
+    public synchronized void recycle(byte[][] packets) {
+        for (byte[] packet : packets) {
+            Slot slot = lent.get(packet);
+            if (slot != null && slot.owners > 0) {
+                slot.owners--;
+                release(slot);
+            }
+        }
+    }
+
+    /**
+     * A link took a packet, until it reports it written (onWritten)
+     */
+    public synchronized void retain(byte[] packet) {
+        Slot slot = lent.get(packet);
+        if (slot != null) {
+            slot.writes++;
+        }
+    }
+
+    /**
+     * The link no longer reads a packet it took: written, refused or dropped
+     */
+    public synchronized void onWritten(byte[] packet) {
+        Slot slot = lent.get(packet);
+        if (slot != null && slot.writes > 0) {
+            slot.writes--;
+            release(slot);
+        }
+    }
+
+    /**
+     * A link that doesn't report its writes took a packet: it is never reused
+     */
+    public synchronized void abandon(byte[] packet) {
+        Slot slot = lent.get(packet);
+        if (slot != null) {
+            slot.abandoned = true;
+        }
+    }
+
+    private void release(Slot slot) {
+        if (slot.owners > 0 || slot.writes > 0) {
+            return;
+        }
+        lent.remove(slot.data);
+        int size = slot.data.length;
+        if (slot.abandoned || pooledBytes + size > maxPooledBytes) {
+            return;
+        }
+        slot.nextFree = free[size];
+        free[size] = slot;
+        pooledBytes += size;
+    }
+
+    /**
+     * Buffers created, because none of their size was free
+     */
+    public synchronized long getAllocations() {
+        return allocations;
+    }
+
+    /**
+     * Buffers taken from the pool
+     */
+    public synchronized long getReuses() {
+        return reuses;
+    }
+
+    /**
+     * Buffers lent and not released yet
+     */
+    public synchronized int getLentCount() {
+        return lent.size();
+    }
+
+    /**
+     * Size of the free buffers
+     */
+    public synchronized int getPooledBytes() {
+        return pooledBytes;
+    }
+}
@@ -0,0 +1,90 @@
+/**
+ * RetryMetrics counts the retries of the CommandScheduler of one arm, per opcode.
+ *
+ * - retries: commands sent again after a response timeout
+ * - packet retries: packets sent again after the link refused them
+ * - recovered: commands that got their response after at least one retry
+ * - exhausted: commands that failed once their retries were used up
+ *
+ * Written by the event loop of the arm, other threads read approximate values.
+ */
+
+package com.evenrealities.even_g1_sdk.connection;
+
+public class RetryMetrics {
+
+    private final long[] retries = new long[256];
+    private final long[] packetRetries = new long[256];
+    private final long[] recovered = new long[256];
+    private final long[] exhausted = new long[256];
+
+    void onRetry(int opcode) {
+        if (opcode >= 0) {
+            retries[opcode]++;
+        }
+    }
+
+    void onPacketRetry(int opcode) {
+        if (opcode >= 0) {
+            packetRetries[opcode]++;
+        }
+    }
+
+    void onRecovered(int opcode) {
+        if (opcode >= 0) {
+            recovered[opcode]++;
+        }
+    }
+
+    void onExhausted(int opcode) {
+        if (opcode >= 0) {
+            exhausted[opcode]++;
+        }
+    }
+
+    public long getRetries(int opcode) {
+        return retries[opcode & 0xFF];
+    }
+
+    public long getPacketRetries(int opcode) {
+        return packetRetries[opcode & 0xFF];
+    }
+
+    public long getRecovered(int opcode) {
+        return recovered[opcode & 0xFF];
+    }
+
+    public long getExhausted(int opcode) {
+        return exhausted[opcode & 0xFF];
+    }
+
+    /**
+     * Retries of every opcode, commands and packets
+     */
+    public long getTotalRetries() {
+        long total = 0;
+        for (int i = 0; i < 256; i++) {
+            total += retries[i] + packetRetries[i];
+        }
+        return total;
+    }
+
+    /**
+     * Opcodes with retries, e.g. "0x15: 2 retries, 5 packet retries, 2 recovered, 0 exhausted"
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 256; i++) {
+            if (retries[i] + packetRetries[i] + exhausted[i] == 0) {
+                continue;
+            }
+            if (builder.length() > 0) {
+                builder.append('\n');
+            }
+            builder.append(String.format("0x%02X: %d retries, %d packet retries, %d recovered, %d exhausted",
+                i, retries[i], packetRetries[i], recovered[i], exhausted[i]));
+        }
+        return builder.toString();
+    }
+}
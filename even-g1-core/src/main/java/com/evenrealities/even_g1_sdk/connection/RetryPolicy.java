@@ -0,0 +1,152 @@
+/**
+ * RetryPolicy decides which commands the CommandScheduler sends again, and when.
+ *
+ * Every opcode is classified as idempotent or not. A command that got no response may or may not
+ * have been executed by the glasses: only idempotent commands (settings, queries, text pages and
+ * bitmap chunks, which carry their own position) are sent again after a response timeout.
+ * Exiting, restarting or the heartbeat are never repeated.
+ *
+ * A packet the link refused (e.g. the GATT queue was busy) never reached the glasses, so it is
+ * always retried, whatever its opcode: only the refused packet and the following ones are sent
+ * again, not the whole transfer.
+ *
+ * Retries wait for an exponential backoff: initial, 2 x initial, 4 x initial... up to a maximum.
+ *
+ * The policy is shared by both arms, configure it before sending commands.
+ */
+
+package com.evenrealities.even_g1_sdk.connection;
+
+import com.evenrealities.even_g1_sdk.api.EvenOsCommand;
+
+public class RetryPolicy {
+
+    public static final int DEFAULT_MAX_RETRIES = 3;
+    public static final long DEFAULT_ATTEMPT_TIMEOUT_MILLIS = 250;
+    public static final long DEFAULT_INITIAL_BACKOFF_MILLIS = 20;
+    public static final long DEFAULT_MAX_BACKOFF_MILLIS = 320;
+
+    public enum Idempotency {
+        /** Sending it twice has the same effect as once, it can be retried after a timeout */
+        IDEMPOTENT,
+        /** Never sent again once written */
+        NON_IDEMPOTENT
+    }
+
+    // Opcodes of Table A of the README that can be repeated safely
+    private static final int[] DEFAULT_IDEMPOTENT_OPCODES = {
+        0x01, // brightness
+        0x03, // silent mode
+        0x04, // whitelist
+        0x06, // dashboard mode
+        0x0B, // head up angle
+        0x0E, // microphone
+        0x15, // bitmap chunk, addressed by its sequence number
+        0x16, // bitmap CRC
+        0x20, // end of bitmap transfer
+        0x26, // dashboard position
+        0x27, // wear detection
+        0x2C, // battery
+        0x37, // uptime
+        0x3E, // usage info
+        0x4B, // notification config
+        0x4E  // text page, addressed by its package number
+    };
+
+    private final Idempotency[] idempotency = new Idempotency[256];
+    private volatile int maxRetries = DEFAULT_MAX_RETRIES;
+    private volatile long attemptTimeoutMillis = DEFAULT_ATTEMPT_TIMEOUT_MILLIS;
+    private volatile long initialBackoffMillis = DEFAULT_INITIAL_BACKOFF_MILLIS;
+    private volatile long maxBackoffMillis = DEFAULT_MAX_BACKOFF_MILLIS;
+
+    public RetryPolicy() {
+        for (int i = 0; i < idempotency.length; i++) {
+            idempotency[i] = Idempotency.NON_IDEMPOTENT;
+        }
+        for (int opcode : DEFAULT_IDEMPOTENT_OPCODES) {
+            idempotency[opcode] = Idempotency.IDEMPOTENT;
+        }
+    }
+
+    /**
+     * Classify an opcode
+     * @param opcode first byte of the request, 0-255
+     * @param value whether the commands with this opcode can be repeated
+     */
+    public void setIdempotency(int opcode, Idempotency value) {
+        idempotency[opcode & 0xFF] = value;
+    }
+
+    public Idempotency getIdempotency(int opcode) {
+        return idempotency[opcode & 0xFF];
+    }
+
+    /**
+     * True if the command can be sent again after a response timeout
+     */
+    public boolean isIdempotent(EvenOsCommand<?> command) {
+        int opcode = opcodeOf(command);
+        return opcode >= 0 && idempotency[opcode] == Idempotency.IDEMPOTENT;
+    }
+
+    /**
+     * Opcode of a command (first byte of its first packet), -1 if it has no packet
+     */
+    public static int opcodeOf(EvenOsCommand<?> command) {
+        byte[][] packets = command.requestPackets;
+        if (packets == null || packets.length == 0 || packets[0] == null || packets[0].length == 0) {
+            return -1;
+        }
+        return packets[0][0] & 0xFF;
+    }
+
+    /**
+     * Retries of a command after a response timeout, and of a refused packet in a row
+     */
+    public void setMaxRetries(int maxRetries) {
+        if (maxRetries < 0) {
+            throw new IllegalArgumentException("maxRetries can't be negative");
+        }
+        this.maxRetries = maxRetries;
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    /**
+     * Time an idempotent command waits for its response before being sent again.
+     * The response timeout of the scheduler still applies when it is shorter.
+     */
+    public void setAttemptTimeoutMillis(long attemptTimeoutMillis) {
+        this.attemptTimeoutMillis = attemptTimeoutMillis;
+    }
+
+    public long getAttemptTimeoutMillis() {
+        return attemptTimeoutMillis;
+    }
+
+    /**
+     * @param initialBackoffMillis wait before the first retry
+     * @param maxBackoffMillis longest wait, the backoff doubles up to it
+     */
+    public void setBackoff(long initialBackoffMillis, long maxBackoffMillis) {
+        if (initialBackoffMillis < 0 || maxBackoffMillis < initialBackoffMillis) {
+            throw new IllegalArgumentException("Invalid backoff: " + initialBackoffMillis + "ms..." + maxBackoffMillis + "ms");
+        }
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    /**
+     * Wait before a retry
+     * @param retry 1 for the first retry
+     */
+    public long backoffMillis(int retry) {
+        long backoff = initialBackoffMillis;
+        for (int i = 1; i < retry && backoff < maxBackoffMillis; i++) {
+            backoff *= 2;
+        }
+        return Math.min(backoff, maxBackoffMillis);
+    }
+}
@@ -0,0 +1,228 @@
+/**
+ * RxBufferRing carries the packets received from one arm to its event loop without allocating.
+ *
+ * The ring holds a fixed number of reusable buffers. The transport callback copies each packet
+ * into the next free buffer (offer), the event loop reads the buffers in order (poll) and gives
+ * each one back once every listener saw it (release). A buffer keeps its array between packets
+ * and only reallocates it when a packet of another length lands in it, so a steady stream of
+ * same-sized packets (e.g. 0xF1 audio) produces no garbage once every buffer was used once.
+ *
+ * One producer (the transport callback of the arm) and one main consumer (the event loop).
+ * Other consumers (RxConsumer) can follow the same packets on their own threads, each with its own
+ * sequence. The producer never waits: it only checks the slowest consumer when the ring looks full
+ * (the gate is cached), copies and publishes, so the callback stays well under a microsecond.
+ * When a consumer falls behind and the ring is full, new packets are dropped: the overflows,
+ * their bytes and the fullest the ring got are counted.
+ */
+
+package com.evenrealities.even_g1_sdk.connection;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+public class RxBufferRing {
+
+    public static final int DEFAULT_CAPACITY = 64;
+
+    /**
+     * A received packet, valid until it is released
+     */
+    public static final class Buffer {
+        private byte[] data = new byte[0];
+
+        /**
+         * The packet, sized to its length. Copy it to keep it after the buffer is released.
+         */
+        public byte[] data() {
+            return data;
+        }
+    }
+
+    private final Buffer[] buffers;
+    private final int mask;
+    // Packets published by the producer
+    private final AtomicLong tail = new AtomicLong();
+    // Buffers released by the consumer
+    private final AtomicLong head = new AtomicLong();
+    // Next buffer handed out by poll, only touched by the consumer
+    private long next;
+
+    // Extra consumers, copy-on-write
+    private volatile RxConsumer[] consumers = new RxConsumer[0];
+    // Slowest consumer seen by the producer, only touched by the producer
+    private long cachedGate;
+
+    private final AtomicLong overflows = new AtomicLong();
+    private final AtomicLong droppedBytes = new AtomicLong();
+    private final AtomicLong reallocations = new AtomicLong();
+    private volatile int highWaterMark;
+
+    public RxBufferRing() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity number of buffers, a power of two
+     */
+    public RxBufferRing(int capacity) {
+        if (capacity < 1 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        this.buffers = new Buffer[capacity];
+        for (int i = 0; i < capacity; i++) {
+            buffers[i] = new Buffer();
+        }
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Copy a packet into the next free buffer. Producer side.
+     * @param packet the received packet, not kept
+     * @return false if the ring is full and the packet was dropped
+     */
+    public boolean offer(byte[] packet) {
+        long position = tail.get();
+        if (position - cachedGate >= buffers.length) {
+            cachedGate = gate();
+            if (position - cachedGate >= buffers.length) {
+                overflows.incrementAndGet();
+                droppedBytes.addAndGet(packet.length);
+                return false;
+            }
+        }
+        Buffer buffer = buffers[(int) position & mask];
+        if (buffer.data.length != packet.length) {
+            buffer.data = new byte[packet.length];
+            reallocations.incrementAndGet();
+        }
+        System.arraycopy(packet, 0, buffer.data, 0, packet.length);
+        tail.lazySet(position + 1);
+        int used = (int) (position + 1 - head.get());
+        if (used > highWaterMark) {
+            highWaterMark = used;
+        }
+        for (RxConsumer consumer : consumers) {
+            consumer.getWaitStrategy().signal();
+        }
+        return true;
+    }
+
+    /**
+     * Oldest buffer still used by a consumer
+     */
+    private long gate() {
+        long gate = head.get();
+        for (RxConsumer consumer : consumers) {
+            gate = Math.min(gate, consumer.sequence.get());
+        }
+        return gate;
+    }
+
+    synchronized AtomicLong addConsumer(RxConsumer consumer) {
+        RxConsumer[] current = consumers;
+        RxConsumer[] updated = new RxConsumer[current.length + 1];
+        System.arraycopy(current, 0, updated, 0, current.length);
+        updated[current.length] = consumer;
+        // Starts at the packets published from now on: the gate cached by the producer is at or
+        // before it, so the producer doesn't overwrite them until it sees this consumer
+        AtomicLong sequence = new AtomicLong(tail.get());
+        consumers = updated;
+        return sequence;
+    }
+
+    synchronized void removeConsumer(RxConsumer consumer) {
+        RxConsumer[] current = consumers;
+        int index = -1;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == consumer) {
+                index = i;
+            }
+        }
+        if (index < 0) {
+            return;
+        }
+        RxConsumer[] updated = new RxConsumer[current.length - 1];
+        System.arraycopy(current, 0, updated, 0, index);
+        System.arraycopy(current, index + 1, updated, index, updated.length - index);
+        consumers = updated;
+    }
+
+    /**
+     * Packet at a sequence, for the consumers
+     */
+    byte[] get(long sequence) {
+        return buffers[(int) sequence & mask].data;
+    }
+
+    AtomicLong published() {
+        return tail;
+    }
+
+    /**
+     * Packets published since the ring was created
+     */
+    public long getPublished() {
+        return tail.get();
+    }
+
+    /**
+     * Next received packet. Consumer side.
+     * @return the buffer, or null if nothing was received
+     */
+    public Buffer poll() {
+        if (next >= tail.get()) {
+            return null;
+        }
+        return buffers[(int) next++ & mask];
+    }
+
+    /**
+     * Give a buffer back to the producer. Consumer side, buffers are released in the order they were polled.
+     * @param buffer the oldest buffer not released yet
+     */
+    public void release(Buffer buffer) {
+        long position = head.get();
+        if (position >= next || buffers[(int) position & mask] != buffer) {
+            throw new IllegalStateException("Buffers must be released in order");
+        }
+        head.lazySet(position + 1);
+    }
+
+    public int capacity() {
+        return buffers.length;
+    }
+
+    /**
+     * Number of packets received and not released yet
+     */
+    public int size() {
+        return (int) (tail.get() - head.get());
+    }
+
+    /**
+     * Packets dropped because the ring was full
+     */
+    public long getOverflows() {
+        return overflows.get();
+    }
+
+    /**
+     * Bytes of the packets dropped because the ring was full
+     */
+    public long getDroppedBytes() {
+        return droppedBytes.get();
+    }
+
+    /**
+     * Most buffers the event loop had to catch up with at once: close to the capacity means overflows are near
+     */
+    public int getHighWaterMark() {
+        return highWaterMark;
+    }
+
+    /**
+     * Times a buffer had to grow or shrink its array for a packet of another length
+     */
+    public long getReallocations() {
+        return reallocations.get();
+    }
+}
@@ -0,0 +1,98 @@
+/**
+ * RxConsumer reads every packet of an RxBufferRing on a thread of its own, next to the event loop
+ * of the arm (disruptor style: one producer, several consumers, each with its own sequence).
+ *
+ * Heavy consumers (packet logging, audio for speech to text, UI mirroring) see the raw stream
+ * without running on the event loop, so they neither delay the dispatch of responses nor the
+ * transport callback. The slowest consumer gates the ring: once it is a full ring behind, new
+ * packets are dropped and counted by the ring.
+ *
+ * The handler gets the packets in order, in batches: endOfBatch tells it no packet is waiting,
+ * e.g. to flush. The array is reused once the handler returns, copy it to keep it.
+ */
+
+package com.evenrealities.even_g1_sdk.connection;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.evenrealities.even_g1_sdk.log.Log;
+
+public class RxConsumer {
+
+    private static final String TAG = "EVEN_G1_RxConsumer";
+
+    public interface Handler {
+        /**
+         * @param data the packet, only valid during the call
+         * @param sequence position of the packet in the ring, increases by one per packet
+         * @param endOfBatch true if it is the last packet published so far
+         */
+        void onPacket(byte[] data, long sequence, boolean endOfBatch);
+    }
+
+    private final RxBufferRing ring;
+    private final WaitStrategy waitStrategy;
+    private final Handler handler;
+    private final Thread thread;
+    // Next sequence to read, the packets before it can be overwritten
+    final AtomicLong sequence;
+    private volatile boolean halted;
+
+    /**
+     * Join the ring: the consumer sees the packets published from now on. Call start() to run it.
+     * @param name name of the thread
+     */
+    public RxConsumer(String name, RxBufferRing ring, WaitStrategy waitStrategy, Handler handler) {
+        this.ring = ring;
+        this.waitStrategy = waitStrategy;
+        this.handler = handler;
+        this.sequence = ring.addConsumer(this);
+        this.thread = new Thread(this::run, name);
+        this.thread.setDaemon(true);
+    }
+
+    WaitStrategy getWaitStrategy() {
+        return waitStrategy;
+    }
+
+    public RxConsumer start() {
+        thread.start();
+        return this;
+    }
+
+    /**
+     * Stop the consumer and leave the ring, it no longer gates the producer
+     */
+    public void halt() {
+        halted = true;
+        ring.removeConsumer(this);
+        waitStrategy.signal();
+    }
+
+    public boolean isHalted() {
+        return halted;
+    }
+
+    /**
+     * Packets published and not read yet by this consumer
+     */
+    public long getLag() {
+        return ring.getPublished() - sequence.get();
+    }
+
+    private void run() {
+        long next = sequence.get();
+        while (!halted) {
+            long available = waitStrategy.waitFor(next, ring.published(), () -> halted);
+            while (next < available && !halted) {
+                try {
+                    handler.onPacket(ring.get(next), next, next == available - 1);
+                } catch (Throwable t) {
+                    Log.e(TAG, thread.getName() + ": Handler failed", t);
+                }
+                next++;
+                sequence.lazySet(next);
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/**
+ * SequenceAllocator numbers the commands sent to one arm, per opcode.
+ *
+ * Several commands carry a one byte sequence field (heartbeat, dashboard counter, text transfer).
+ * Each opcode has its own monotonic counter, wrapping at 256, so the glasses never see a value
+ * reused before the 255 following ones. The responses are matched on their opcode only, the
+ * sequence just numbers the commands.
+ *
+ * Thread safe: commands are numbered on the caller's thread.
+ */
+
+package com.evenrealities.even_g1_sdk.connection;
+
+public class SequenceAllocator {
+
+    private final int[] next = new int[256];
+
+    /**
+     * Allocate the next sequence number of an opcode
+     * @param opcode the command, 0-255
+     * @return the sequence number, 0-255
+     */
+    public synchronized int next(int opcode) {
+        return next[opcode & 0xFF]++ & 0xFF;
+    }
+
+    /**
+     * Sequence number the next command of an opcode will get
+     */
+    public synchronized int peek(int opcode) {
+        return next[opcode & 0xFF] & 0xFF;
+    }
+
+    /**
+     * Allocate the same sequence number on two arms, for a command sent to both: the number is
+     * the next one of the arm furthest ahead, the other arm skips the values in between.
+     * @return the sequence number, 0-255
+     */
+    public static int next(SequenceAllocator left, SequenceAllocator right, int opcode) {
+        int index = opcode & 0xFF;
+        // Always locked in the same order
+        synchronized (left) {
+            synchronized (right) {
+                int value = Math.max(left.next[index], right.next[index]);
+                left.next[index] = value + 1;
+                right.next[index] = value + 1;
+                return value & 0xFF;
+            }
+        }
+    }
+}
@@ -0,0 +1,185 @@
+/**
+ * TimingWheel is a hashed timing wheel: the timers of an event loop (command deadlines, response
+ * timeouts) are kept in a ring of buckets, one bucket per tick.
+ *
+ * Scheduling and cancelling a timer are O(1) (a timer is linked in the bucket of its deadline and
+ * unlinked on cancel), and the loop only visits the bucket of the current tick, so thousands of
+ * pending timers cost almost nothing. Deadlines further than one turn of the wheel carry the
+ * number of turns left. Timers never fire early and fire at most one tick late.
+ *
+ * Not thread safe: the wheel belongs to one ArmEventLoop, which advances it.
+ */
+
+package com.evenrealities.even_g1_sdk.connection;
+
+import java.util.concurrent.TimeUnit;
+
+import com.evenrealities.even_g1_sdk.log.Log;
+
+public class TimingWheel {
+
+    private static final String TAG = "EVEN_G1_TimingWheel";
+
+    public static final long DEFAULT_TICK_MILLIS = 10;
+    public static final int DEFAULT_WHEEL_SIZE = 512;
+
+    /**
+     * A scheduled timer
+     */
+    public static final class Timeout {
+        private final Runnable task;
+        private long remainingRounds;
+        private int bucket;
+        private Timeout prev;
+        private Timeout next;
+        // Null once expired or cancelled
+        private TimingWheel wheel;
+
+        private Timeout(Runnable task) {
+            this.task = task;
+        }
+
+        /**
+         * Cancel the timer, O(1). Must be called on the thread of the wheel.
+         * @return false if it already expired or was cancelled
+         */
+        public boolean cancel() {
+            TimingWheel owner = wheel;
+            if (owner == null) {
+                return false;
+            }
+            owner.unlink(this);
+            return true;
+        }
+
+        public boolean isPending() {
+            return wheel != null;
+        }
+    }
+
+    private final long tickNanos;
+    private final int mask;
+    private final Timeout[] buckets;
+    private final long startNanos;
+    // Last processed tick
+    private long tick;
+    private int size;
+
+    public TimingWheel() {
+        this(DEFAULT_TICK_MILLIS, DEFAULT_WHEEL_SIZE, System.nanoTime());
+    }
+
+    /**
+     * @param tickMillis resolution of the timers
+     * @param wheelSize number of buckets, a power of two
+     * @param startNanos current time, from System.nanoTime()
+     */
+    public TimingWheel(long tickMillis, int wheelSize, long startNanos) {
+        if (tickMillis < 1 || wheelSize < 1 || Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("Invalid wheel: tick=" + tickMillis + "ms, size=" + wheelSize);
+        }
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.mask = wheelSize - 1;
+        this.buckets = new Timeout[wheelSize];
+        this.startNanos = startNanos;
+    }
+
+    /**
+     * Run a task after a delay
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        return schedule(task, unit.toNanos(delay), System.nanoTime());
+    }
+
+    Timeout schedule(Runnable task, long delayNanos, long nowNanos) {
+        // First tick boundary at or after the deadline, so a timer never fires early
+        long deadlineNanos = nowNanos - startNanos + Math.max(0, delayNanos);
+        long deadlineTick = Math.max(tick + 1, (deadlineNanos + tickNanos - 1) / tickNanos);
+        Timeout timeout = new Timeout(task);
+        timeout.remainingRounds = (deadlineTick - tick - 1) / buckets.length;
+        timeout.bucket = (int) (deadlineTick & mask);
+        timeout.wheel = this;
+        // Added at the head, so a bucket being expired doesn't see the timers scheduled by its tasks
+        Timeout head = buckets[timeout.bucket];
+        timeout.next = head;
+        if (head != null) {
+            head.prev = timeout;
+        }
+        buckets[timeout.bucket] = timeout;
+        size++;
+        return timeout;
+    }
+
+    private void unlink(Timeout timeout) {
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        } else {
+            buckets[timeout.bucket] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.prev = timeout.prev;
+        }
+        // next is kept, an expiring bucket may still walk through this timer
+        timeout.prev = null;
+        timeout.wheel = null;
+        size--;
+    }
+
+    private long currentTick(long nowNanos) {
+        return (nowNanos - startNanos) / tickNanos;
+    }
+
+    /**
+     * Expire the timers of the ticks elapsed since the last call
+     * @param nowNanos current time, from System.nanoTime()
+     * @return true if a timer expired
+     */
+    public boolean advance(long nowNanos) {
+        long target = currentTick(nowNanos);
+        boolean expired = false;
+        while (tick < target && size > 0) {
+            tick++;
+            Timeout timeout = buckets[(int) (tick & mask)];
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.wheel == null) {
+                    // Cancelled by a task of this bucket
+                } else if (timeout.remainingRounds > 0) {
+                    timeout.remainingRounds--;
+                } else {
+                    unlink(timeout);
+                    expired = true;
+                    try {
+                        timeout.task.run();
+                    } catch (Throwable t) {
+                        Log.e(TAG, "advance: Timer task failed", t);
+                    }
+                }
+                timeout = next;
+            }
+        }
+        if (size == 0) {
+            // Nothing to expire in the skipped ticks
+            tick = Math.max(tick, target);
+        }
+        return expired;
+    }
+
+    /**
+     * Time until the next tick, to park the loop; -1 if there is no timer
+     */
+    public long nanosToNextTick(long nowNanos) {
+        if (size == 0) {
+            return -1;
+        }
+        long nextTickNanos = startNanos + (tick + 1) * tickNanos;
+        return Math.max(1, nextTickNanos - nowNanos);
+    }
+
+    /**
+     * Number of pending timers
+     */
+    public int size() {
+        return size;
+    }
+}
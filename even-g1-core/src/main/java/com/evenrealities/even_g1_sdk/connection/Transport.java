@@ -0,0 +1,126 @@
+/**
+ * Transport is the link between the ConnectionManager and one arm of the glasses.
+ *
+ * The core module only knows this interface: the Android library implements it on top of
+ * BluetoothGatt (Connection), while tests and benchmarks can provide any other implementation.
+ * A transport delivers raw packets in both directions and reports its connection state.
+ */
+
+package com.evenrealities.even_g1_sdk.connection;
+
+public interface Transport {
+
+    /** MTU of a BLE link before negotiation */
+    int DEFAULT_MTU = 23;
+
+    /** ATT header bytes that are part of the MTU but not of the packet */
+    int ATT_HEADER_SIZE = 3;
+
+    enum ConnectionState {
+        DISCONNECTED,
+        CONNECTING,
+        CONNECTED,
+        INITIALIZING,
+        INITIALIZED,
+        DISCONNECTING
+    }
+
+    /**
+     * Listener for the connection state
+     */
+    interface OnConnectionStateChangeListener {
+        void onConnectionStateChanged(ConnectionState state);
+    }
+
+    /**
+     * Listener for the RX data
+     */
+    interface OnRxDataListener {
+        void onDataReceived(byte[] data);
+    }
+
+    /**
+     * Listener for the packets the link is done with
+     */
+    interface OnPacketWrittenListener {
+        /**
+         * @param packet an array accepted by send or sendBulk, now written or dropped: the link
+         *               no longer reads it, so it can be reused
+         * @param success false if the write failed or was dropped, the glasses never got the packet
+         */
+        void onPacketWritten(byte[] packet, boolean success);
+    }
+
+    void connect();
+
+    void reconnect();
+
+    void disconnect();
+
+    ConnectionState getConnectionState();
+
+    /**
+     * MTU negotiated with the device, DEFAULT_MTU until the negotiation completed
+     */
+    int getMtu();
+
+    void setConnectionStateListener(OnConnectionStateChangeListener listener);
+
+    /**
+     * Set the listener for the RX data, so the app can receive the data from the glasses
+     * @param listener
+     */
+    void setOnRxDataListener(OnRxDataListener listener);
+
+    /**
+     * Report every packet accepted once the link is done with it, so the PacketPool can reuse it
+     * and the CommandScheduler can send again a packet whose write failed after send returned
+     * @return true if the transport reports them; false (default) if it can't, its packets are
+     *         then never reused
+     */
+    default boolean setOnPacketWrittenListener(OnPacketWrittenListener listener) {
+        return false;
+    }
+
+    /**
+     * Send data to the glasses
+     * @param data
+     * @return true if the packet was handed to the link
+     */
+    boolean send(byte[] data);
+
+    /**
+     * Send the packets of a multi-packet command as one bulk transfer.
+     * Transports that support it use faster unacknowledged writes, by default each packet
+     * is sent with send().
+     * @param packets
+     * @return true if every packet was handed to the link
+     */
+    default boolean sendBulk(byte[][] packets) {
+        return sendBulk(packets, 0, packets.length) == packets.length;
+    }
+
+    /**
+     * Send some packets of a multi-packet command as one bulk transfer
+     * @param packets
+     * @param from first packet, inclusive
+     * @param to last packet, exclusive
+     * @return number of packets handed to the link, the first refused packet stops the transfer
+     */
+    default int sendBulk(byte[][] packets, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (!send(packets[i])) {
+                return i - from;
+            }
+        }
+        return to - from;
+    }
+
+    /**
+     * Number of packets handed to the link but not written yet, so bulk transfers can yield
+     * to more urgent commands instead of filling the link queue. 0 by default.
+     */
+    default int getPendingWrites() {
+        return 0;
+    }
+}
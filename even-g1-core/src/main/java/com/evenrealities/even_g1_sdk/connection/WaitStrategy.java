@@ -0,0 +1,122 @@
+/**
+ * WaitStrategy is how an RxConsumer waits for the next packet of its RxBufferRing, trading
+ * latency for CPU:
+ * - busySpin: lowest latency, burns a core, for benchmarks or dedicated cores only
+ * - yielding: spins a little then yields the CPU, low latency for bursty traffic (audio)
+ * - sleeping: spins, yields, then parks for a short time, cheap when the link is idle
+ * - blocking: parks until the producer signals a packet, cheapest, a few microseconds of wake-up
+ *
+ * The producer (the transport callback) never waits: signal only unparks a consumer that is
+ * actually parked, so the callback stays short whatever the strategy.
+ */
+
+package com.evenrealities.even_g1_sdk.connection;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+public interface WaitStrategy {
+
+    /**
+     * Wait until a packet is published at or after a sequence. Consumer side.
+     * @param sequence the next sequence the consumer reads
+     * @param published sequence of the next packet the producer will publish
+     * @param halted true once the consumer must stop
+     * @return the published sequence, greater than the sequence unless halted
+     */
+    long waitFor(long sequence, AtomicLong published, BooleanSupplier halted);
+
+    /**
+     * A packet was published. Producer side, must not block.
+     */
+    void signal();
+
+    static WaitStrategy busySpin() {
+        return new Spinning(Integer.MAX_VALUE, 0, 0);
+    }
+
+    static WaitStrategy yielding() {
+        return new Spinning(100, Integer.MAX_VALUE, 0);
+    }
+
+    /**
+     * @param parkNanos time parked once spinning and yielding found nothing
+     */
+    static WaitStrategy sleeping(long parkNanos) {
+        return new Spinning(100, 100, parkNanos);
+    }
+
+    static WaitStrategy blocking() {
+        return new Blocking();
+    }
+
+    /**
+     * Spins, then yields, then parks for a fixed time; never needs a signal
+     */
+    final class Spinning implements WaitStrategy {
+        private final int spins;
+        private final int yields;
+        private final long parkNanos;
+
+        Spinning(int spins, int yields, long parkNanos) {
+            this.spins = spins;
+            this.yields = yields;
+            this.parkNanos = parkNanos;
+        }
+
+        @Override
+        public long waitFor(long sequence, AtomicLong published, BooleanSupplier halted) {
+            int attempts = 0;
+            long available;
+            while ((available = published.get()) <= sequence && !halted.getAsBoolean()) {
+                if (attempts < spins) {
+                    attempts++;
+                } else if (attempts - spins < yields) {
+                    attempts++;
+                    Thread.yield();
+                } else {
+                    LockSupport.parkNanos(this, parkNanos);
+                }
+            }
+            return available;
+        }
+
+        @Override
+        public void signal() {
+        }
+    }
+
+    /**
+     * Parks until signalled
+     */
+    final class Blocking implements WaitStrategy {
+        private volatile Thread waiter;
+
+        @Override
+        public long waitFor(long sequence, AtomicLong published, BooleanSupplier halted) {
+            long available = published.get();
+            if (available > sequence) {
+                return available;
+            }
+            waiter = Thread.currentThread();
+            try {
+                // Checked again once registered, a signal sent before is not lost
+                while ((available = published.get()) <= sequence && !halted.getAsBoolean()) {
+                    LockSupport.park(this);
+                }
+            } finally {
+                waiter = null;
+            }
+            return available;
+        }
+
+        @Override
+        public void signal() {
+            Thread thread = waiter;
+            if (thread != null) {
+                LockSupport.unpark(thread);
+            }
+        }
+    }
+}
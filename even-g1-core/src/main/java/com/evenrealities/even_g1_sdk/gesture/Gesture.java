@@ -0,0 +1,34 @@
+/**
+ * Gesture is a touchpad gesture reported by the glasses, the second byte of a 0xF5 event.
+ */
+
+package com.evenrealities.even_g1_sdk.gesture;
+
+public enum Gesture {
+    DOUBLE_TAP(0x00),
+    SINGLE_TAP(0x01),
+    TRIPLE_TAP(0x05),
+    LONG_PRESS_HELD(0x17),
+    LONG_PRESS_RELEASE(0x18);
+
+    /** Second byte of the 0xF5 event */
+    public final int code;
+
+    Gesture(int code) {
+        this.code = code;
+    }
+
+    /**
+     * Gesture of a 0xF5 event
+     * @param code second byte of the event
+     * @return the gesture, null if the event is not a gesture (wearing state, battery...)
+     */
+    public static Gesture of(byte code) {
+        for (Gesture gesture : values()) {
+            if (gesture.code == (code & 0xFF)) {
+                return gesture;
+            }
+        }
+        return null;
+    }
+}
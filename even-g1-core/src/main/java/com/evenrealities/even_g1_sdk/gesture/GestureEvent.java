@@ -0,0 +1,35 @@
+/**
+ * GestureEvent is a gesture recognized by the GestureRecognizer, once for both arms.
+ */
+
+package com.evenrealities.even_g1_sdk.gesture;
+
+import java.util.concurrent.TimeUnit;
+
+import com.evenrealities.even_g1_sdk.api.EvenOsApi;
+
+public class GestureEvent {
+    public final Gesture gesture;
+    /** The arm that reported the gesture first */
+    public final EvenOsApi.Sides side;
+    /** System.nanoTime() when the first report was received */
+    public final long timestampNanos;
+    /** Time from the first report to the delivery of the event to the listener */
+    public final long latencyNanos;
+
+    public GestureEvent(Gesture gesture, EvenOsApi.Sides side, long timestampNanos, long latencyNanos) {
+        this.gesture = gesture;
+        this.side = side;
+        this.timestampNanos = timestampNanos;
+        this.latencyNanos = latencyNanos;
+    }
+
+    public long getLatencyMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(latencyNanos);
+    }
+
+    @Override
+    public String toString() {
+        return gesture + " (" + side + ", " + TimeUnit.NANOSECONDS.toMicros(latencyNanos) + "us)";
+    }
+}
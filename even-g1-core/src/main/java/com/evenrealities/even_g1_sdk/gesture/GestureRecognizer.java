@@ -0,0 +1,195 @@
+/**
+ * GestureRecognizer merges the gestures reported by both arms into a single stream.
+ *
+ * Both arms report most touchpad gestures, a few milliseconds apart, and an arm may report the
+ * same gesture twice: a gesture is emitted on its first report, and the reports of the same
+ * gesture during the dedup window that follows are suppressed, whatever the arm. The gap between
+ * the two arms is recorded as the cross-arm skew.
+ *
+ * Long presses are a small state machine: LONG_PRESS_HELD is emitted once until the press is
+ * released, LONG_PRESS_RELEASE only once per press (or on its own if the held event was lost).
+ * A press whose release was lost on both arms expires: a held report more than
+ * HELD_TIMEOUT_MILLIS after the previous one starts a new press.
+ *
+ * The events are delivered on the executor (inline when null) and their latency, from the first
+ * report to the delivery, is recorded in a LatencyHistogram.
+ *
+ * Thread safe: each arm reports its gestures on its own event loop.
+ */
+
+package com.evenrealities.even_g1_sdk.gesture;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+import com.evenrealities.even_g1_sdk.api.EvenOsApi;
+import com.evenrealities.even_g1_sdk.connection.EventBus;
+import com.evenrealities.even_g1_sdk.connection.LatencyHistogram;
+import com.evenrealities.even_g1_sdk.log.Log;
+
+public class GestureRecognizer {
+
+    private static final String TAG = "EVEN_G1_GestureRecognizer";
+
+    public static final long DEFAULT_WINDOW_MILLIS = 200;
+
+    /** Time after the last held report a press is still held without its release */
+    public static final long HELD_TIMEOUT_MILLIS = 3000;
+
+    private static final long HELD_TIMEOUT_NANOS = TimeUnit.MILLISECONDS.toNanos(HELD_TIMEOUT_MILLIS);
+
+    private static final Gesture[] GESTURES = Gesture.values();
+
+    private final long windowNanos;
+    private final Executor executor;
+    private final Consumer<GestureEvent> listener;
+    private final LongSupplier clock;
+
+    // Last emitted report of each gesture, to suppress its duplicates
+    private final long[] emittedNanos = new long[GESTURES.length];
+    private final EvenOsApi.Sides[] emittedSide = new EvenOsApi.Sides[GESTURES.length];
+    private boolean held;
+    // Last held report, emitted or not
+    private long heldNanos;
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LatencyHistogram skew = new LatencyHistogram();
+    private long recognized;
+    private long duplicates;
+    private volatile EventBus.Subscription subscription;
+
+    /**
+     * @param windowMillis reports of a gesture this close to the emitted one are duplicates
+     * @param executor delivers the events; null to call the listener on the event loop of the arm
+     */
+    public GestureRecognizer(long windowMillis, Executor executor, Consumer<GestureEvent> listener) {
+        this(windowMillis, executor, listener, System::nanoTime);
+    }
+
+    GestureRecognizer(long windowMillis, Executor executor, Consumer<GestureEvent> listener, LongSupplier clock) {
+        if (windowMillis < 0) {
+            throw new IllegalArgumentException("windowMillis can't be negative");
+        }
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        this.executor = executor;
+        this.listener = listener;
+        this.clock = clock;
+    }
+
+    /**
+     * Follow the gestures of both arms
+     * @return this
+     */
+    public GestureRecognizer attach(EventBus bus, EvenOsApi api) {
+        subscription = bus.subscribe(api.onGesture(), this::onGesture);
+        return this;
+    }
+
+    /**
+     * Stop following the gestures
+     */
+    public void close() {
+        EventBus.Subscription current = subscription;
+        if (current != null) {
+            current.unsubscribe();
+            subscription = null;
+        }
+    }
+
+    /**
+     * Report a gesture received from an arm
+     * @return true if the gesture is emitted, false if it is a duplicate
+     */
+    public boolean onGesture(Gesture gesture, EvenOsApi.Sides side) {
+        long now = clock.getAsLong();
+        synchronized (this) {
+            boolean duplicate = isDuplicate(gesture, side, now);
+            if (gesture == Gesture.LONG_PRESS_HELD) {
+                heldNanos = now;
+            }
+            if (duplicate) {
+                duplicates++;
+                return false;
+            }
+            if (gesture == Gesture.LONG_PRESS_HELD) {
+                held = true;
+            } else if (gesture == Gesture.LONG_PRESS_RELEASE) {
+                held = false;
+            }
+            emittedNanos[gesture.ordinal()] = now;
+            emittedSide[gesture.ordinal()] = side;
+            recognized++;
+        }
+        deliver(gesture, side, now);
+        return true;
+    }
+
+    private boolean isDuplicate(Gesture gesture, EvenOsApi.Sides side, long now) {
+        int index = gesture.ordinal();
+        EvenOsApi.Sides previousSide = emittedSide[index];
+        long elapsed = now - emittedNanos[index];
+        boolean inWindow = previousSide != null && elapsed < windowNanos;
+        boolean duplicate;
+        switch (gesture) {
+            case LONG_PRESS_HELD:
+                // Still held: the other arm or a repeat of the same press
+                duplicate = (held && now - heldNanos < HELD_TIMEOUT_NANOS) || inWindow;
+                break;
+            case LONG_PRESS_RELEASE:
+                duplicate = !held && inWindow;
+                break;
+            default:
+                duplicate = inWindow;
+        }
+        if (duplicate && inWindow && previousSide != side) {
+            skew.record(elapsed);
+        }
+        return duplicate;
+    }
+
+    private void deliver(Gesture gesture, EvenOsApi.Sides side, long receivedNanos) {
+        Runnable task = () -> {
+            long latencyNanos = clock.getAsLong() - receivedNanos;
+            synchronized (this) {
+                latency.record(latencyNanos);
+            }
+            try {
+                listener.accept(new GestureEvent(gesture, side, receivedNanos, latencyNanos));
+            } catch (Exception e) {
+                Log.e(TAG, "deliver: Error in gesture listener", e);
+            }
+        };
+        if (executor == null) {
+            task.run();
+        } else {
+            executor.execute(task);
+        }
+    }
+
+    /**
+     * Time from the first report of a gesture to its delivery
+     */
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    /**
+     * Time between the reports of the same gesture by both arms
+     */
+    public LatencyHistogram getCrossArmSkew() {
+        return skew;
+    }
+
+    public synchronized long getRecognizedCount() {
+        return recognized;
+    }
+
+    /**
+     * Reports suppressed as duplicates
+     */
+    public synchronized long getDuplicateCount() {
+        return duplicates;
+    }
+}
@@ -0,0 +1,58 @@
+package com.evenrealities.even_g1_sdk.log;
+
+/**
+ * Static logging facade for the core module, with the same shape as android.util.Log
+ * so the protocol code reads the same on every platform.
+ *
+ * Messages are forwarded to the installed {@link Logger}, by default nothing is written.
+ */
+public final class Log {
+
+    private static volatile Logger logger = Logger.NONE;
+
+    private Log() {
+    }
+
+    /**
+     * Install the logger used by the SDK
+     * @param logger The logger, null restores the silent default
+     */
+    public static void setLogger(Logger logger) {
+        Log.logger = logger != null ? logger : Logger.NONE;
+    }
+
+    public static Logger getLogger() {
+        return logger;
+    }
+
+    public static boolean isLoggable(int priority) {
+        return logger.isLoggable(priority);
+    }
+
+    public static void d(String tag, String message) {
+        write(Logger.DEBUG, tag, message, null);
+    }
+
+    public static void i(String tag, String message) {
+        write(Logger.INFO, tag, message, null);
+    }
+
+    public static void w(String tag, String message) {
+        write(Logger.WARN, tag, message, null);
+    }
+
+    public static void e(String tag, String message) {
+        write(Logger.ERROR, tag, message, null);
+    }
+
+    public static void e(String tag, String message, Throwable throwable) {
+        write(Logger.ERROR, tag, message, throwable);
+    }
+
+    private static void write(int priority, String tag, String message, Throwable throwable) {
+        Logger current = logger;
+        if (current.isLoggable(priority)) {
+            current.log(priority, tag, message, throwable);
+        }
+    }
+}
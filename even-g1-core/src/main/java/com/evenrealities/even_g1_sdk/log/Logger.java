@@ -0,0 +1,47 @@
+package com.evenrealities.even_g1_sdk.log;
+
+/**
+ * Logging SPI used by the core module.
+ *
+ * The core module has no dependency on Android, so every log call goes through this
+ * interface. The Android library installs an implementation backed by android.util.Log,
+ * plain JVM users (tests, benchmarks, CI) can install their own or keep the silent default.
+ */
+public interface Logger {
+
+    /** Priorities, same values as android.util.Log */
+    int DEBUG = 3;
+    int INFO = 4;
+    int WARN = 5;
+    int ERROR = 6;
+
+    /**
+     * Check if a message with the given priority would be written
+     * @param priority The priority of the message
+     * @return true if the message would be written
+     */
+    boolean isLoggable(int priority);
+
+    /**
+     * Write a log message
+     * @param priority The priority of the message
+     * @param tag The tag of the message
+     * @param message The message
+     * @param throwable Optional throwable, may be null
+     */
+    void log(int priority, String tag, String message, Throwable throwable);
+
+    /**
+     * Logger that discards everything
+     */
+    Logger NONE = new Logger() {
+        @Override
+        public boolean isLoggable(int priority) {
+            return false;
+        }
+
+        @Override
+        public void log(int priority, String tag, String message, Throwable throwable) {
+        }
+    };
+}
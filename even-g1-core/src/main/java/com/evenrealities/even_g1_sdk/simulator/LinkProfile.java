@@ -0,0 +1,62 @@
+package com.evenrealities.even_g1_sdk.simulator;
+
+import com.evenrealities.even_g1_sdk.connection.Transport;
+
+/**
+ * Radio characteristics of one simulated arm.
+ *
+ * Latency and jitter are applied to each direction separately, a packet spends
+ * latency + random(0..jitter) milliseconds on the air. Lost packets are dropped silently,
+ * like a write the glasses never received. The seed makes loss and jitter reproducible.
+ */
+public class LinkProfile {
+
+    /** ATT header bytes that are part of the MTU but not of the payload */
+    public static final int ATT_HEADER_SIZE = Transport.ATT_HEADER_SIZE;
+
+    /** No latency, no loss, 512 bytes MTU */
+    public static final LinkProfile IDEAL = new LinkProfile(512, 0, 0, 0.0, 0L);
+
+    public final int mtu;
+    public final long latencyMillis;
+    public final long jitterMillis;
+    public final double packetLossRate;
+    public final long seed;
+
+    /**
+     * @param mtu negotiated MTU, packets larger than mtu - 3 are rejected
+     * @param latencyMillis fixed one-way latency
+     * @param jitterMillis maximum random latency added to each packet
+     * @param packetLossRate probability (0.0 - 1.0) that a packet is lost
+     * @param seed seed for the loss and jitter generator
+     */
+    public LinkProfile(int mtu, long latencyMillis, long jitterMillis, double packetLossRate, long seed) {
+        if (mtu <= ATT_HEADER_SIZE) {
+            throw new IllegalArgumentException("mtu must be greater than " + ATT_HEADER_SIZE);
+        }
+        if (latencyMillis < 0 || jitterMillis < 0) {
+            throw new IllegalArgumentException("latency and jitter must not be negative");
+        }
+        if (packetLossRate < 0.0 || packetLossRate > 1.0) {
+            throw new IllegalArgumentException("packetLossRate must be between 0.0 and 1.0");
+        }
+        this.mtu = mtu;
+        this.latencyMillis = latencyMillis;
+        this.jitterMillis = jitterMillis;
+        this.packetLossRate = packetLossRate;
+        this.seed = seed;
+    }
+
+    /**
+     * Largest packet the link accepts
+     */
+    public int maxPacketSize() {
+        return mtu - ATT_HEADER_SIZE;
+    }
+
+    @Override
+    public String toString() {
+        return "LinkProfile{mtu=" + mtu + ", latency=" + latencyMillis + "ms, jitter=" + jitterMillis
+            + "ms, loss=" + packetLossRate + ", seed=" + seed + "}";
+    }
+}
@@ -0,0 +1,442 @@
+/**
+ * SimulatedArm is an in-memory Transport that behaves like one arm of the G1 glasses.
+ *
+ * It answers the opcodes documented in the README tables (text, bitmap, CRC, heartbeat,
+ * battery, microphone, firmware) and can emit device events and audio packets. Every packet
+ * goes through the LinkProfile of the arm, so MTU limits, latency, jitter and loss behave like
+ * a real radio, but reproducibly.
+ *
+ * All the device state is owned by the simulator thread of the SimulatedG1 pair.
+ */
+
+package com.evenrealities.even_g1_sdk.simulator;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+import com.evenrealities.even_g1_sdk.api.EvenOsApi;
+import com.evenrealities.even_g1_sdk.connection.Transport;
+
+public class SimulatedArm implements Transport {
+
+    public static final byte STATUS_SUCCESS = (byte) 0xC9;
+    public static final byte STATUS_FAIL = (byte) 0x00;
+
+    /** LC3 payload carried by each 0xF1 audio packet */
+    public static final int AUDIO_PAYLOAD_SIZE = 200;
+
+    private static final byte[] BMP_ADDRESS_HEADER = new byte[]{0x00, 0x1C, 0x00, 0x00};
+    private static final byte[] FIRMWARE_INFO = ("net build time: 2025-01-01 00:00:00, app build time 2025-01-01 00:00:00, "
+        + "JBD DeviceID 4010, ver 1.5.0").getBytes(StandardCharsets.US_ASCII);
+
+    private final EvenOsApi.Sides side;
+    private final LinkProfile profile;
+    private final ScheduledExecutorService scheduler;
+    private final Random random;
+
+    private volatile ConnectionState connectionState = ConnectionState.DISCONNECTED;
+    private volatile OnConnectionStateChangeListener connectionStateListener;
+    private volatile OnRxDataListener rxDataListener;
+    private volatile OnPacketWrittenListener packetWrittenListener;
+
+    // Device state, only touched on the simulator thread
+    // Packets of the text transfer, by package number: a packet sent again takes its place,
+    // also once the text is displayed
+    private byte[][] textPackets = new byte[0][];
+    private int textPacketsReceived;
+    private int textSeq = -1;
+    private volatile String displayedText = "";
+    private final ByteArrayOutputStream bitmapBuffer = new ByteArrayOutputStream();
+    private volatile byte[] displayedBitmap = new byte[0];
+    private volatile int batteryLevel = 100;
+    private volatile long audioIntervalMillis = 100;
+    private ScheduledFuture<?> audioTask;
+    private int audioSeq;
+
+    private final AtomicLong packetsReceived = new AtomicLong();
+    private final AtomicLong bytesReceived = new AtomicLong();
+    private final AtomicLong packetsSent = new AtomicLong();
+    private final AtomicLong packetsLost = new AtomicLong();
+    private final AtomicLong packetsRejected = new AtomicLong();
+    private final AtomicLong appendsReceived = new AtomicLong();
+    // Packets accepted before the link fails the write of the next one, -1 for none
+    private final AtomicInteger writesBeforeFailure = new AtomicInteger(-1);
+
+    SimulatedArm(EvenOsApi.Sides side, LinkProfile profile, ScheduledExecutorService scheduler) {
+        this.side = side;
+        this.profile = profile;
+        this.scheduler = scheduler;
+        this.random = new Random(profile.seed ^ side.ordinal());
+    }
+
+    public EvenOsApi.Sides getSide() {
+        return side;
+    }
+
+    public LinkProfile getProfile() {
+        return profile;
+    }
+
+    @Override
+    public void connect() {
+        setConnectionState(ConnectionState.CONNECTING);
+        scheduler.schedule(() -> {
+            setConnectionState(ConnectionState.CONNECTED);
+            setConnectionState(ConnectionState.INITIALIZING);
+            setConnectionState(ConnectionState.INITIALIZED);
+        }, profile.latencyMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void reconnect() {
+        disconnect();
+        connect();
+    }
+
+    @Override
+    public void disconnect() {
+        scheduler.execute(this::stopAudio);
+        setConnectionState(ConnectionState.DISCONNECTED);
+    }
+
+    @Override
+    public ConnectionState getConnectionState() {
+        return connectionState;
+    }
+
+    @Override
+    public int getMtu() {
+        return connectionState == ConnectionState.INITIALIZED ? profile.mtu : DEFAULT_MTU;
+    }
+
+    @Override
+    public void setConnectionStateListener(OnConnectionStateChangeListener listener) {
+        this.connectionStateListener = listener;
+    }
+
+    @Override
+    public void setOnRxDataListener(OnRxDataListener listener) {
+        this.rxDataListener = listener;
+    }
+
+    @Override
+    public boolean setOnPacketWrittenListener(OnPacketWrittenListener listener) {
+        this.packetWrittenListener = listener;
+        return true;
+    }
+
+    private void setConnectionState(ConnectionState state) {
+        this.connectionState = state;
+        OnConnectionStateChangeListener listener = connectionStateListener;
+        if (listener != null) {
+            listener.onConnectionStateChanged(state);
+        }
+    }
+
+    /**
+     * Send a packet to the simulated arm.
+     * Returns false when the arm is not initialized or the packet does not fit in the MTU,
+     * a lost packet still returns true, as the radio accepted it.
+     */
+    @Override
+    public boolean send(byte[] data) {
+        if (connectionState != ConnectionState.INITIALIZED || data == null || data.length == 0) {
+            return false;
+        }
+        if (data.length > profile.maxPacketSize()) {
+            packetsRejected.incrementAndGet();
+            return false;
+        }
+        int before = writesBeforeFailure.get();
+        boolean failed = before >= 0 && writesBeforeFailure.compareAndSet(before, before - 1) && before == 0;
+        if (!failed) {
+            final byte[] packet = data.clone();
+            scheduler.execute(() -> transmit(() -> receive(packet)));
+        }
+        // The radio works on its copy
+        OnPacketWrittenListener listener = packetWrittenListener;
+        if (listener != null) {
+            listener.onPacketWritten(data, !failed);
+        }
+        return true;
+    }
+
+    /**
+     * Apply loss, latency and jitter to a packet. Must run on the simulator thread.
+     */
+    private void transmit(Runnable delivery) {
+        if (profile.packetLossRate > 0 && random.nextDouble() < profile.packetLossRate) {
+            packetsLost.incrementAndGet();
+            return;
+        }
+        long delay = profile.latencyMillis;
+        if (profile.jitterMillis > 0) {
+            delay += (long) (random.nextDouble() * (profile.jitterMillis + 1));
+        }
+        if (delay == 0) {
+            delivery.run();
+        } else {
+            scheduler.schedule(delivery, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Fail the write of a packet after send accepted it, like a GATT write completing with an
+     * error: the arm never gets it and the write is reported failed
+     * @param packets packets written before the failed one
+     */
+    public void failWriteAfter(int packets) {
+        writesBeforeFailure.set(packets);
+    }
+
+    /**
+     * Send a packet from the arm to the app. Must run on the simulator thread.
+     */
+    private void reply(byte... data) {
+        transmit(() -> {
+            OnRxDataListener listener = rxDataListener;
+            if (connectionState == ConnectionState.INITIALIZED && listener != null) {
+                packetsSent.incrementAndGet();
+                listener.onDataReceived(data);
+            }
+        });
+    }
+
+    /**
+     * Handle a packet received from the app
+     */
+    private void receive(byte[] data) {
+        if (connectionState != ConnectionState.INITIALIZED) {
+            return;
+        }
+        packetsReceived.incrementAndGet();
+        bytesReceived.addAndGet(data.length);
+
+        byte opcode = data[0];
+        switch (opcode & 0xFF) {
+            case 0x4E:
+                onText(data);
+                break;
+            case 0x15:
+                onBitmapChunk(data);
+                break;
+            case 0x16:
+                onBitmapCrc(data);
+                break;
+            case 0x20:
+                displayedBitmap = bitmapBuffer.toByteArray();
+                reply(opcode, STATUS_SUCCESS);
+                break;
+            case 0x25:
+                reply(data.clone()); // heartbeat is echoed back
+                break;
+            case 0x2C:
+                reply(opcode, (byte) 0x66, (byte) batteryLevel);
+                break;
+            case 0x0E:
+                onMicrophone(data);
+                break;
+            case 0x23:
+                if (data.length == 1) {
+                    reply(FIRMWARE_INFO.clone());
+                }
+                // 0x23 0x72 (quick restart) has no response
+                break;
+            default:
+                reply(opcode, STATUS_SUCCESS);
+                break;
+        }
+    }
+
+    private void onText(byte[] data) {
+        if (data.length < 9) {
+            reply(data[0], STATUS_FAIL);
+            return;
+        }
+        int totalPackets = data[2] & 0xFF;
+        int packetIndex = data[3] & 0xFF;
+        if (packetIndex >= totalPackets) {
+            reply(data[0], STATUS_FAIL);
+            return;
+        }
+        int seq = data[1] & 0xFF;
+        if ((data[4] & 0x0F) == 0) {
+            onTextAppend(data, seq);
+            return;
+        }
+        if (seq != textSeq || textPackets.length != totalPackets) {
+            // A new transfer, the packets of the displayed one update its pages in place
+            textPackets = new byte[totalPackets][];
+            textPacketsReceived = 0;
+            textSeq = seq;
+        }
+        if (textPackets[packetIndex] == null) {
+            textPacketsReceived++;
+        }
+        textPackets[packetIndex] = Arrays.copyOfRange(data, 9, data.length);
+        if (textPacketsReceived == totalPackets) {
+            ByteArrayOutputStream text = new ByteArrayOutputStream();
+            for (byte[] packet : textPackets) {
+                text.write(packet, 0, packet.length);
+            }
+            displayedText = new String(text.toByteArray(), StandardCharsets.UTF_8);
+        }
+        reply(data[0], STATUS_SUCCESS);
+    }
+
+    /**
+     * Packet without the new content flag: its characters go at new_char_pos of the displayed text
+     */
+    private void onTextAppend(byte[] data, int seq) {
+        int charPos = ((data[5] & 0xFF) << 8) | (data[6] & 0xFF);
+        String text = displayedText;
+        if (charPos > text.codePointCount(0, text.length())) {
+            // The glasses don't have the characters before the position
+            reply(data[0], STATUS_FAIL);
+            return;
+        }
+        text = text.substring(0, text.offsetByCodePoints(0, charPos))
+            + new String(data, 9, data.length - 9, StandardCharsets.UTF_8);
+        displayedText = text;
+        // The displayed text becomes a complete transfer of one packet
+        textPackets = new byte[][]{ text.getBytes(StandardCharsets.UTF_8) };
+        textPacketsReceived = 1;
+        textSeq = seq;
+        appendsReceived.incrementAndGet();
+        reply(data[0], STATUS_SUCCESS);
+    }
+
+    private void onBitmapChunk(byte[] data) {
+        if (data.length < 2) {
+            reply(data[0], STATUS_FAIL);
+            return;
+        }
+        int seq = data[1] & 0xFF;
+        if (seq == 0) {
+            bitmapBuffer.reset();
+            bitmapBuffer.write(data, 2 + BMP_ADDRESS_HEADER.length, data.length - 2 - BMP_ADDRESS_HEADER.length);
+        } else {
+            bitmapBuffer.write(data, 2, data.length - 2);
+        }
+        reply(data[0], STATUS_SUCCESS);
+    }
+
+    private void onBitmapCrc(byte[] data) {
+        byte[] bitmap = bitmapBuffer.toByteArray();
+        CRC32 crc32 = new CRC32();
+        crc32.update(BMP_ADDRESS_HEADER);
+        crc32.update(bitmap);
+        int crc = (int) crc32.getValue();
+        byte[] expected = new byte[]{
+            (byte) ((crc >> 24) & 0xFF),
+            (byte) ((crc >> 16) & 0xFF),
+            (byte) ((crc >> 8) & 0xFF),
+            (byte) (crc & 0xFF)
+        };
+        boolean valid = data.length >= 5 && Arrays.equals(expected, Arrays.copyOfRange(data, 1, 5));
+        reply(data[0], valid ? STATUS_SUCCESS : STATUS_FAIL);
+    }
+
+    private void onMicrophone(byte[] data) {
+        boolean enabled = data.length > 1 && data[1] == 1;
+        reply(data[0], STATUS_SUCCESS, (byte) (enabled ? 1 : 0));
+        // The microphone is on the right arm
+        if (side != EvenOsApi.Sides.RIGHT) {
+            return;
+        }
+        if (enabled && audioTask == null) {
+            audioTask = scheduler.scheduleAtFixedRate(this::emitAudioPacket, audioIntervalMillis, audioIntervalMillis, TimeUnit.MILLISECONDS);
+        } else if (!enabled) {
+            stopAudio();
+        }
+    }
+
+    private void emitAudioPacket() {
+        byte[] packet = new byte[2 + AUDIO_PAYLOAD_SIZE];
+        packet[0] = (byte) 0xF1;
+        packet[1] = (byte) audioSeq;
+        Arrays.fill(packet, 2, packet.length, (byte) audioSeq);
+        audioSeq = (audioSeq + 1) & 0xFF;
+        reply(packet);
+    }
+
+    private void stopAudio() {
+        if (audioTask != null) {
+            audioTask.cancel(false);
+            audioTask = null;
+        }
+    }
+
+    /**
+     * Emit a 0xF5 device event (gesture, battery, case state...)
+     * @param event the event code, e.g. 0x01 single tap
+     * @param payload optional event data
+     */
+    public void fireEvent(int event, byte... payload) {
+        final byte[] packet = new byte[2 + payload.length];
+        packet[0] = (byte) 0xF5;
+        packet[1] = (byte) event;
+        System.arraycopy(payload, 0, packet, 2, payload.length);
+        scheduler.execute(() -> reply(packet));
+    }
+
+    /**
+     * Text currently shown by the arm (last complete 0x4E transfer)
+     */
+    public String getDisplayedText() {
+        return displayedText;
+    }
+
+    /**
+     * Bitmap currently shown by the arm (last transfer closed with 0x20)
+     */
+    public byte[] getDisplayedBitmap() {
+        return displayedBitmap.clone();
+    }
+
+    public void setBatteryLevel(int batteryLevel) {
+        this.batteryLevel = batteryLevel;
+    }
+
+    /**
+     * Interval between 0xF1 audio packets while the microphone is enabled
+     */
+    public void setAudioIntervalMillis(long audioIntervalMillis) {
+        this.audioIntervalMillis = audioIntervalMillis;
+    }
+
+    public long getPacketsReceived() {
+        return packetsReceived.get();
+    }
+
+    public long getBytesReceived() {
+        return bytesReceived.get();
+    }
+
+    public long getPacketsSent() {
+        return packetsSent.get();
+    }
+
+    public long getPacketsLost() {
+        return packetsLost.get();
+    }
+
+    public long getPacketsRejected() {
+        return packetsRejected.get();
+    }
+
+    /**
+     * Text packets appending characters at their new_char_pos
+     */
+    public long getAppendsReceived() {
+        return appendsReceived.get();
+    }
+}
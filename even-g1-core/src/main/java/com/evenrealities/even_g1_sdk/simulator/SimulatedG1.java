@@ -0,0 +1,87 @@
+/**
+ * SimulatedG1 is an in-memory pair of G1 arms, used to run the SDK end to end without glasses.
+ *
+ * Both arms share one simulator thread, so with a fixed LinkProfile seed the same sequence of
+ * commands always produces the same losses and the same response order. This makes throughput
+ * benchmarks and soak tests reproducible on any JVM.
+ *
+ * Usage:
+ *   SimulatedG1 glasses = new SimulatedG1(LinkProfile.IDEAL);
+ *   ConnectionManager manager = glasses.createConnectionManager();
+ *   manager.connect();
+ */
+
+package com.evenrealities.even_g1_sdk.simulator;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import com.evenrealities.even_g1_sdk.api.EvenOsApi;
+import com.evenrealities.even_g1_sdk.connection.ConnectionManager;
+
+public class SimulatedG1 {
+
+    private final ScheduledExecutorService scheduler;
+    private final SimulatedArm left;
+    private final SimulatedArm right;
+
+    public SimulatedG1(LinkProfile profile) {
+        this(profile, profile);
+    }
+
+    public SimulatedG1(LinkProfile leftProfile, LinkProfile rightProfile) {
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "EvenG1-Simulator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.left = new SimulatedArm(EvenOsApi.Sides.LEFT, leftProfile, scheduler);
+        this.right = new SimulatedArm(EvenOsApi.Sides.RIGHT, rightProfile, scheduler);
+    }
+
+    public SimulatedArm getLeft() {
+        return left;
+    }
+
+    public SimulatedArm getRight() {
+        return right;
+    }
+
+    public SimulatedArm getArm(EvenOsApi.Sides side) {
+        if (side == EvenOsApi.Sides.BOTH) {
+            throw new IllegalArgumentException("Select a single arm");
+        }
+        return side == EvenOsApi.Sides.LEFT ? left : right;
+    }
+
+    /**
+     * Create a ConnectionManager wired to both simulated arms
+     */
+    public ConnectionManager createConnectionManager() {
+        return new ConnectionManager(left, right);
+    }
+
+    /**
+     * Emit a 0xF5 device event on one or both arms
+     * @param side the arm(s) emitting the event
+     * @param event the event code, e.g. 0x01 single tap
+     * @param payload optional event data
+     */
+    public void fireEvent(EvenOsApi.Sides side, int event, byte... payload) {
+        if (side.matchesLeft()) {
+            left.fireEvent(event, payload);
+        }
+        if (side.matchesRight()) {
+            right.fireEvent(event, payload);
+        }
+    }
+
+    /**
+     * Stop the simulator thread
+     */
+    public void shutdown() {
+        left.disconnect();
+        right.disconnect();
+        scheduler.shutdown();
+    }
+}
@@ -0,0 +1,220 @@
+/**
+ * BoundedSubscription delivers the items of a stream to one subscriber, on the executor of the
+ * stream, as fast as the subscriber requests them.
+ *
+ * Items the subscriber didn't request yet wait in a bounded buffer; once it is full the
+ * BufferPolicy applies, so a slow subscriber costs at most capacity items of memory and never
+ * blocks the source (the event loop of an arm). Deliveries are serialized: at most one drain
+ * of the buffer runs at a time, on the executor.
+ */
+
+package com.evenrealities.even_g1_sdk.stream;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.evenrealities.even_g1_sdk.log.Log;
+
+final class BoundedSubscription<T> implements Flow.Subscription, Runnable {
+
+    private static final String TAG = "EVEN_G1_BoundedSubscription";
+
+    private final Flow.Subscriber<? super T> subscriber;
+    private final Executor executor;
+    private final int capacity;
+    private final BufferPolicy policy;
+    private final Runnable onCancel;
+    private final AtomicInteger pendingDrains = new AtomicInteger();
+
+    // Guarded by this
+    private final ArrayDeque<T> buffer = new ArrayDeque<>();
+    private long demand;
+    private boolean cancelled;
+    private boolean done;
+    private Throwable error;
+    private long dropped;
+
+    // Only touched by the drain
+    private boolean started;
+    private boolean terminated;
+
+    BoundedSubscription(Flow.Subscriber<? super T> subscriber, Executor executor, int capacity, BufferPolicy policy,
+            Runnable onCancel) {
+        this.subscriber = subscriber;
+        this.executor = executor;
+        this.capacity = capacity;
+        this.policy = policy;
+        this.onCancel = onCancel;
+    }
+
+    /**
+     * Call onSubscribe on the executor
+     */
+    void start() {
+        schedule();
+    }
+
+    /**
+     * A new item from the source, never blocks
+     */
+    void offer(T item) {
+        synchronized (this) {
+            if (cancelled || done) {
+                return;
+            }
+            if (buffer.size() >= capacity) {
+                dropped++;
+                switch (policy) {
+                    case DROP_OLDEST:
+                        buffer.pollFirst();
+                        break;
+                    case DROP_LATEST:
+                        return;
+                    default:
+                        buffer.clear();
+                        done = true;
+                        error = new BufferOverflowException(capacity);
+                        break;
+                }
+            }
+            if (!done) {
+                buffer.addLast(item);
+            }
+        }
+        schedule();
+    }
+
+    /**
+     * The source ended, the buffered items are still delivered first
+     */
+    void complete() {
+        synchronized (this) {
+            done = true;
+        }
+        schedule();
+    }
+
+    /**
+     * The source failed, the buffered items are dropped
+     */
+    void fail(Throwable throwable) {
+        synchronized (this) {
+            if (done) {
+                return;
+            }
+            done = true;
+            error = throwable;
+            buffer.clear();
+        }
+        schedule();
+    }
+
+    @Override
+    public void request(long n) {
+        if (n <= 0) {
+            fail(new IllegalArgumentException("request must be positive: " + n));
+            return;
+        }
+        synchronized (this) {
+            demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+        }
+        schedule();
+    }
+
+    @Override
+    public void cancel() {
+        synchronized (this) {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            buffer.clear();
+        }
+        onCancel.run();
+    }
+
+    /**
+     * Items dropped by the BufferPolicy
+     */
+    synchronized long getDropped() {
+        return dropped;
+    }
+
+    private void schedule() {
+        if (pendingDrains.getAndIncrement() == 0) {
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                Log.w(TAG, "schedule: Executor rejected the delivery, cancelling the subscription");
+                pendingDrains.set(0);
+                cancel();
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        int missed = 1;
+        do {
+            drain();
+            missed = pendingDrains.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void drain() {
+        if (terminated) {
+            return;
+        }
+        if (!started) {
+            started = true;
+            try {
+                subscriber.onSubscribe(this);
+            } catch (Throwable t) {
+                Log.e(TAG, "drain: onSubscribe failed", t);
+                cancel();
+                return;
+            }
+        }
+        while (true) {
+            T item;
+            Throwable failure = null;
+            boolean complete = false;
+            synchronized (this) {
+                if (cancelled) {
+                    terminated = true;
+                    return;
+                }
+                if (!buffer.isEmpty() && demand > 0 && error == null) {
+                    item = buffer.pollFirst();
+                    demand--;
+                } else if (done && (buffer.isEmpty() || error != null)) {
+                    item = null;
+                    failure = error;
+                    complete = failure == null;
+                } else {
+                    return;
+                }
+            }
+            if (item != null) {
+                try {
+                    subscriber.onNext(item);
+                } catch (Throwable t) {
+                    Log.e(TAG, "drain: onNext failed, cancelling the subscription", t);
+                    cancel();
+                    terminated = true;
+                    return;
+                }
+                continue;
+            }
+            terminated = true;
+            if (complete) {
+                subscriber.onComplete();
+            } else {
+                subscriber.onError(failure);
+            }
+            return;
+        }
+    }
+}
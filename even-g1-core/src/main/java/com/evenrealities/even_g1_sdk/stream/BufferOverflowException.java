@@ -0,0 +1,18 @@
+/**
+ * BufferOverflowException ends a subscription with BufferPolicy.FAIL whose subscriber fell a full
+ * buffer behind the source.
+ */
+
+package com.evenrealities.even_g1_sdk.stream;
+
+public class BufferOverflowException extends IllegalStateException {
+
+    private static final long serialVersionUID = 1L;
+
+    public final int capacity;
+
+    public BufferOverflowException(int capacity) {
+        super("Subscriber fell " + capacity + " items behind");
+        this.capacity = capacity;
+    }
+}
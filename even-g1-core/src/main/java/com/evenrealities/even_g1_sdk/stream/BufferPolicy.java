@@ -0,0 +1,15 @@
+/**
+ * BufferPolicy decides what a stream does with a new item when the buffer of a subscriber is full,
+ * i.e. the subscriber didn't request items as fast as the source produces them.
+ */
+
+package com.evenrealities.even_g1_sdk.stream;
+
+public enum BufferPolicy {
+    /** Drop the oldest buffered item: the subscriber gets the most recent ones (battery, taps) */
+    DROP_OLDEST,
+    /** Drop the new item: the subscriber gets a contiguous prefix of the stream */
+    DROP_LATEST,
+    /** Fail the subscription with a BufferOverflowException, for subscribers that can't lose items (audio) */
+    FAIL
+}
@@ -0,0 +1,324 @@
+/**
+ * EventStream is a hot stream of events (taps, battery, audio...) with backpressure: each
+ * subscriber gets the events it requested, on the executor of the stream, and the events it
+ * can't take yet wait in a bounded buffer handled by the BufferPolicy of the stream.
+ *
+ * The source is connected when the first subscriber arrives and disconnected when the last one
+ * cancels, so an unused stream costs nothing. Operators return new streams:
+ * - sample: the latest event of each period, for sources faster than the consumer needs (battery)
+ * - debounce: the last event of a burst, once the source stayed quiet for a while
+ * - buffer: lists of events, e.g. audio packets grouped for a speech to text request
+ * - onBackpressure: another capacity or BufferPolicy for the subscribers of the stream
+ *
+ * Operators consume their upstream as fast as it produces (their own work is a few field writes)
+ * and apply the backpressure downstream.
+ */
+
+package com.evenrealities.even_g1_sdk.stream;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.evenrealities.even_g1_sdk.api.EvenOsApi;
+import com.evenrealities.even_g1_sdk.api.EvenOsEventListener;
+import com.evenrealities.even_g1_sdk.connection.EventBus;
+
+public abstract class EventStream<T> implements Flow.Publisher<T> {
+
+    public static final int DEFAULT_CAPACITY = 64;
+
+    private final Executor executor;
+    private final int capacity;
+    private final BufferPolicy policy;
+    private final CopyOnWriteArrayList<BoundedSubscription<T>> subscriptions = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param executor delivers the events to the subscribers
+     * @param capacity events buffered per subscriber
+     * @param policy what to do with a new event when the buffer of a subscriber is full
+     */
+    protected EventStream(Executor executor, int capacity, BufferPolicy policy) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1");
+        }
+        this.executor = executor;
+        this.capacity = capacity;
+        this.policy = policy;
+    }
+
+    /**
+     * Stream of the packets matching a listener, from the event bus of a ConnectionManager
+     * @param side LEFT, RIGHT or BOTH
+     */
+    public static <T> EventStream<T> from(final EventBus bus, final EvenOsEventListener<T> listener, final EvenOsApi.Sides side,
+            Executor executor, int capacity, BufferPolicy policy) {
+        return new EventStream<T>(executor, capacity, policy) {
+            private EventBus.Subscription subscription;
+
+            @Override
+            protected synchronized void connect() {
+                // Parsed on the event loop of the arm, buffered for the subscribers
+                subscription = bus.subscribe(listener, side, null, (value, from) -> emit(value));
+            }
+
+            @Override
+            protected synchronized void disconnect() {
+                subscription.unsubscribe();
+                subscription = null;
+            }
+        };
+    }
+
+    /**
+     * Start the source, when the first subscriber arrives
+     */
+    protected abstract void connect();
+
+    /**
+     * Stop the source, when the last subscriber cancelled
+     */
+    protected abstract void disconnect();
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        final AtomicReference<BoundedSubscription<T>> self = new AtomicReference<>();
+        BoundedSubscription<T> subscription = new BoundedSubscription<T>(subscriber, executor, capacity, policy,
+            () -> unsubscribe(self.get()));
+        self.set(subscription);
+        boolean first;
+        synchronized (this) {
+            first = subscriptions.isEmpty();
+            subscriptions.add(subscription);
+            if (first) {
+                connect();
+            }
+        }
+        subscription.start();
+    }
+
+    private void unsubscribe(BoundedSubscription<T> subscription) {
+        synchronized (this) {
+            if (subscriptions.remove(subscription) && subscriptions.isEmpty()) {
+                disconnect();
+            }
+        }
+    }
+
+    /**
+     * Hand an event to every subscriber, never blocks
+     */
+    protected void emit(T item) {
+        for (BoundedSubscription<T> subscription : subscriptions) {
+            subscription.offer(item);
+        }
+    }
+
+    /**
+     * End the stream, the subscribers get their buffered events then onComplete
+     */
+    protected void emitComplete() {
+        for (BoundedSubscription<T> subscription : subscriptions) {
+            subscription.complete();
+        }
+    }
+
+    /**
+     * Fail the stream
+     */
+    protected void emitError(Throwable throwable) {
+        for (BoundedSubscription<T> subscription : subscriptions) {
+            subscription.fail(throwable);
+        }
+    }
+
+    /**
+     * Number of subscribers
+     */
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    /**
+     * Events dropped by the BufferPolicy, for all the current subscribers
+     */
+    public long getDroppedCount() {
+        long dropped = 0;
+        for (BoundedSubscription<T> subscription : subscriptions) {
+            dropped += subscription.getDropped();
+        }
+        return dropped;
+    }
+
+    Executor executor() {
+        return executor;
+    }
+
+    /**
+     * Operator stage: subscribes to this stream while it has subscribers of its own
+     */
+    private abstract static class Stage<U, R> extends EventStream<R> implements Flow.Subscriber<U> {
+        private final EventStream<U> upstream;
+        private Flow.Subscription upstreamSubscription;
+        private boolean connected;
+
+        Stage(EventStream<U> upstream, int capacity, BufferPolicy policy) {
+            super(upstream.executor(), capacity, policy);
+            this.upstream = upstream;
+        }
+
+        @Override
+        protected void connect() {
+            connected = true;
+            upstream.subscribe(this);
+        }
+
+        @Override
+        protected void disconnect() {
+            connected = false;
+            Flow.Subscription subscription = upstreamSubscription;
+            if (subscription != null) {
+                upstreamSubscription = null;
+                subscription.cancel();
+            }
+            onDisconnect();
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            synchronized (this) {
+                if (connected && upstreamSubscription == null) {
+                    upstreamSubscription = subscription;
+                    subscription.request(Long.MAX_VALUE);
+                    return;
+                }
+            }
+            subscription.cancel();
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            emitError(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            emitComplete();
+        }
+
+        void onDisconnect() {
+        }
+    }
+
+    /**
+     * The latest event of each period, nothing for a period without event
+     * @param scheduler runs the periods
+     */
+    public EventStream<T> sample(final long period, final TimeUnit unit, final ScheduledExecutorService scheduler) {
+        return new Stage<T, T>(this, capacity, policy) {
+            private final AtomicReference<T> latest = new AtomicReference<>();
+            private ScheduledFuture<?> task;
+
+            @Override
+            protected void connect() {
+                task = scheduler.scheduleAtFixedRate(() -> {
+                    T item = latest.getAndSet(null);
+                    if (item != null) {
+                        emit(item);
+                    }
+                }, period, period, unit);
+                super.connect();
+            }
+
+            @Override
+            void onDisconnect() {
+                task.cancel(false);
+                latest.set(null);
+            }
+
+            @Override
+            public void onNext(T item) {
+                latest.set(item);
+            }
+        };
+    }
+
+    /**
+     * The last event of each burst, once no event came for a quiet time
+     * @param scheduler runs the quiet timers
+     */
+    public EventStream<T> debounce(final long quiet, final TimeUnit unit, final ScheduledExecutorService scheduler) {
+        return new Stage<T, T>(this, capacity, policy) {
+            private ScheduledFuture<?> pending;
+
+            @Override
+            public synchronized void onNext(T item) {
+                if (pending != null) {
+                    pending.cancel(false);
+                }
+                pending = scheduler.schedule(() -> emit(item), quiet, unit);
+            }
+
+            @Override
+            synchronized void onDisconnect() {
+                if (pending != null) {
+                    pending.cancel(false);
+                    pending = null;
+                }
+            }
+        };
+    }
+
+    /**
+     * Lists of count events, the last one may be shorter when the stream completes
+     */
+    public EventStream<List<T>> buffer(final int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("count must be at least 1");
+        }
+        return new Stage<T, List<T>>(this, capacity, policy) {
+            private List<T> batch = new ArrayList<>(count);
+
+            @Override
+            public void onNext(T item) {
+                batch.add(item);
+                if (batch.size() == count) {
+                    List<T> full = batch;
+                    batch = new ArrayList<>(count);
+                    emit(full);
+                }
+            }
+
+            @Override
+            public void onComplete() {
+                if (!batch.isEmpty()) {
+                    emit(batch);
+                    batch = new ArrayList<>(count);
+                }
+                super.onComplete();
+            }
+
+            @Override
+            void onDisconnect() {
+                batch = new ArrayList<>(count);
+            }
+        };
+    }
+
+    /**
+     * Same events, with another buffer per subscriber
+     */
+    public EventStream<T> onBackpressure(int capacity, BufferPolicy policy) {
+        return new Stage<T, T>(this, capacity, policy) {
+            @Override
+            public void onNext(T item) {
+                emit(item);
+            }
+        };
+    }
+}
@@ -0,0 +1,44 @@
+/**
+ * Flow holds the interfaces of the reactive streams of the SDK, the same as
+ * java.util.concurrent.Flow (Java 9), which Android only ships from API 30: minSdk 24 apps can't
+ * use it. A subscriber receives items only up to the demand it signalled with request(n), so a
+ * slow subscriber is never flooded; what happens to the items it can't take yet is decided by the
+ * BufferPolicy of the stream.
+ *
+ * The contracts are those of java.util.concurrent.Flow: onSubscribe first, then onNext at most as
+ * many times as requested, then at most one of onError or onComplete, never concurrently.
+ */
+
+package com.evenrealities.even_g1_sdk.stream;
+
+public final class Flow {
+
+    private Flow() {
+    }
+
+    public interface Publisher<T> {
+        void subscribe(Subscriber<? super T> subscriber);
+    }
+
+    public interface Subscriber<T> {
+        void onSubscribe(Subscription subscription);
+
+        void onNext(T item);
+
+        void onError(Throwable throwable);
+
+        void onComplete();
+    }
+
+    public interface Subscription {
+        /**
+         * Ask for n more items, n must be positive
+         */
+        void request(long n);
+
+        /**
+         * Stop receiving items, items already buffered are dropped
+         */
+        void cancel();
+    }
+}
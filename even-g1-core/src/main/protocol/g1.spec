@@ -0,0 +1,143 @@
+# Even Realities G1 protocol (firmware 1.5.0), tables A and G of the README.
+#
+# Each message starts with a line "<kind> <Name> <opcode> [<subcode>]":
+#   request   app to glasses, generates <Name>Encoder
+#   response  glasses to app, answer to a request, generates <Name>Decoder
+#   event     glasses to app, unsolicited, generates <Name>Decoder
+# The subcode is the second byte of the packet, the listeners of inbound messages are indexed on it
+# (a message without subcode matches every packet of its opcode).
+#
+# Followed by its fields, indented, in packet order: "<type> <name> [= <constant>]"
+#   u8, u16le, u16be, u32be   unsigned integers
+#   bytes                     variable length payload, always the last field
+# Constants are written by the encoder, the other fields are zero until set.
+
+# --- Table A: app to glasses ---
+
+request Brightness 0x01                 # A10
+    u8 level                            # 0-63
+    u8 auto                             # 1: automatic
+
+request SilentMode 0x03                 # A12
+    u8 enabled
+
+request Whitelist 0x04                  # A15
+    u8 total                            # chunks of the json
+    u8 index
+    bytes json
+
+request DashboardMode 0x06
+    u8 length = 0x07
+    u16le seq
+    u8 api = 0x06
+    u8 mode
+    u8 subMode
+
+request HeadUpAngle 0x0B                # A11
+    u8 angle                            # 0-60
+    u8 level = 0x01
+
+request Microphone 0x0E                 # A08
+    u8 enabled
+
+request BitmapFirstChunk 0x15           # A06, first chunk: with the address
+    u8 seq
+    u32be address = 0x001C0000
+    bytes data
+
+request BitmapChunk 0x15                # A06
+    u8 seq
+    bytes data
+
+request BitmapCrc 0x16                  # A07, CRC32 of the address and the bitmap
+    u32be crc
+
+request ExitApp 0x18                    # A09
+
+request EndBitmap 0x20
+    u8 end0 = 0x0D
+    u8 end1 = 0x0E
+
+request QuickRestart 0x23 0x72          # A14
+
+request FirmwareInfo 0x23               # A01
+
+request Heartbeat 0x25                  # A04
+    u16le length = 0x0006
+    u8 seq
+    u8 fixed = 0x04
+    u8 seq2                             # seq + 1
+
+request DashboardPosition 0x26
+    u8 length = 0x08
+    u8 reserved = 0x00
+    u8 seq
+    u8 fixed = 0x02
+    u8 state = 0x01                     # on
+    u8 height                           # 0-8
+    u8 depth                            # 1-9
+
+request WearDetection 0x27              # A13
+    u8 enabled
+
+request BatteryQuery 0x2C               # A03
+    u8 platform                         # 0x01 Android, 0x02 iOS
+
+request Uptime 0x37
+
+request UsageInfo 0x3E
+
+request NotificationConfig 0x4B         # A16
+    u8 total                            # chunks of the json
+    u8 index
+    bytes json
+
+request Initialize 0x4D 0xFB            # A02
+
+request Text 0x4E                       # A05
+    u8 seq                              # shared by the pages of a transfer
+    u8 total                            # packets of the transfer
+    u8 index
+    u8 status                           # 0x71: new text content
+    u16be charPos                       # new_char_pos
+    u8 page                             # 1-based
+    u8 maxPage
+    bytes text                          # UTF-8
+
+# --- Table G: glasses to app ---
+
+response BatteryResponse 0x2C           # G02
+    u8 platform
+    u8 level                            # percent
+
+response HeartbeatResponse 0x25         # G03
+    u16le length
+    u8 seq
+
+response TextAck 0x4E                   # G04
+    u8 status                           # 0xC9 success, 0x00 failure
+
+response BitmapAck 0x15                 # G05
+    u8 status
+
+response BitmapCrcAck 0x16              # G06
+    u8 status
+
+event Audio 0xF1                        # G07
+    u8 seq
+    bytes lc3                           # 200 bytes of LC3
+
+event GlassesBattery 0xF5 0x0A
+    u8 level                            # 0-64
+
+event CaseBattery 0xF5 0x0F
+    u8 level                            # 0-64
+
+event CaseCharging 0xF5 0x0E
+
+event CaseOpen 0xF5 0x08
+
+event CaseClosed 0xF5 0x0B
+
+event DeviceEvent 0xF5                  # G08: gestures, wearing state...
+    u8 code
@@ -0,0 +1,61 @@
+package com.evenrealities.even_g1_sdk.api;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ChunkPlannerTest {
+
+    @Test
+    public void largeMtuUsesFirmwareLimit() {
+        ChunkPlanner.Plan plan = ChunkPlanner.plan(ChunkPlanner.Format.TEXT, 400, 509);
+        assertEquals(180, plan.payload);
+        assertEquals(3, plan.count);
+        assertEquals(360, plan.start(2));
+        assertEquals(40, plan.length(2));
+    }
+
+    @Test
+    public void packetsNeverExceedTheLink() {
+        for (int mtu : new int[]{23, 100, 185, 247}) {
+            for (ChunkPlanner.Format format : ChunkPlanner.Format.values()) {
+                ChunkPlanner.Plan plan = ChunkPlanner.plan(format, 1000, mtu - 3);
+                int total = 0;
+                for (int i = 0; i < plan.count; i++) {
+                    assertTrue(format + " at mtu " + mtu, plan.packetSize(i) <= mtu - 3);
+                    total += plan.length(i);
+                }
+                assertEquals(1000, total);
+            }
+        }
+    }
+
+    @Test
+    public void bitmapFirstPacketKeepsRoomForTheAddress() {
+        ChunkPlanner.Plan plan = ChunkPlanner.plan(ChunkPlanner.Format.BITMAP, 1000, 509);
+        assertEquals(194, plan.firstPayload);
+        assertEquals(200, plan.packetSize(0));
+        assertEquals(196, plan.packetSize(1));
+
+        byte[] bmp = new byte[1000];
+        byte[][] packets = EvenOsApi.encodeBmp(bmp, plan);
+        assertEquals(plan.count, packets.length);
+        assertEquals(0x1C, packets[0][3]);
+    }
+
+    @Test
+    public void notificationChunksCarryTotalAndIndex() {
+        byte[] json = new byte[300];
+        ChunkPlanner.Plan plan = ChunkPlanner.plan(ChunkPlanner.Format.NOTIFICATION_JSON, json.length, 509);
+        byte[][] packets = EvenOsApi.encodeNotificationConfig(json, plan);
+        assertEquals(2, packets.length);
+        assertEquals(2, packets[1][1]);
+        assertEquals(1, packets[1][2]);
+        assertEquals(3 + 120, packets[1].length);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void tooManyChunksIsRejected() {
+        ChunkPlanner.plan(ChunkPlanner.Format.TEXT, 255 * 11 + 1, 20);
+    }
+}
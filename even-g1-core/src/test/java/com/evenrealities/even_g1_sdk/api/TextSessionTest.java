@@ -0,0 +1,85 @@
+package com.evenrealities.even_g1_sdk.api;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import com.evenrealities.even_g1_sdk.simulator.LinkProfile;
+import com.evenrealities.even_g1_sdk.simulator.SimulatedG1;
+import com.evenrealities.even_g1_sdk.simulator.SimulatorFixture;
+
+import static org.junit.Assert.*;
+
+public class TextSessionTest {
+
+    private final SimulatorFixture simulator = new SimulatorFixture();
+
+    @After
+    public void tearDown() {
+        simulator.shutdown();
+    }
+
+    private static String lines(int count, int changed, String value) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            text.append("line ").append(i).append(": ").append(i == changed ? value : "-").append('\n');
+        }
+        return text.toString();
+    }
+
+    @Test
+    public void pagesHoldFiveLinesAndLongPagesAreSplit() {
+        byte[] text = lines(12, -1, null).getBytes(StandardCharsets.UTF_8);
+        byte[][] pages = TextSession.paginate(text, 180);
+        assertEquals(3, pages.length);
+        assertEquals("line 5: -\n", new String(pages[1], 0, 10, StandardCharsets.UTF_8));
+
+        byte[] longLine = new byte[400];
+        pages = TextSession.paginate(longLine, 180);
+        assertEquals(3, pages.length);
+        assertEquals(40, pages[2].length);
+        assertEquals(1, TextSession.paginate(new byte[0], 180).length);
+
+        // A two-byte character at the limit moves to the next page
+        StringBuilder accents = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            accents.append('\u00E9');
+        }
+        pages = TextSession.paginate(accents.toString().getBytes(StandardCharsets.UTF_8), 181);
+        assertEquals(2, pages.length);
+        assertEquals(180, pages[0].length);
+        assertEquals(90, new String(pages[0], StandardCharsets.UTF_8).length());
+        assertEquals(10, new String(pages[1], StandardCharsets.UTF_8).length());
+    }
+
+    @Test
+    public void updateSendsOnlyTheChangedPages() throws Exception {
+        TextSession session = simulator.connect(LinkProfile.IDEAL).openTextSession();
+        SimulatedG1 glasses = simulator.getGlasses();
+
+        assertTrue(session.update(lines(15, -1, null)));
+        assertEquals(3, glasses.getLeft().getPacketsReceived());
+        assertEquals(0, session.getBytesSaved());
+
+        // One line of the last page changes
+        String text = lines(15, 12, "42 km/h");
+        assertTrue(session.update(text));
+        assertEquals(4, glasses.getLeft().getPacketsReceived());
+        assertEquals(text, glasses.getLeft().getDisplayedText());
+        assertEquals(2, session.getPagesSkipped());
+        assertTrue(session.getBytesSaved() > 2 * 50);
+
+        // Nothing changes
+        assertTrue(session.update(text));
+        assertEquals(4, glasses.getLeft().getPacketsReceived());
+
+        // Another page count, or another text displayed in between: every page is sent
+        assertTrue(session.update(lines(6, 0, "new")));
+        assertEquals(6, glasses.getLeft().getPacketsReceived());
+        session.invalidate();
+        assertTrue(session.update(lines(6, 0, "new")));
+        assertEquals(8, glasses.getLeft().getPacketsReceived());
+        assertEquals(lines(6, 0, "new"), glasses.getLeft().getDisplayedText());
+    }
+}
@@ -0,0 +1,69 @@
+package com.evenrealities.even_g1_sdk.api;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.evenrealities.even_g1_sdk.simulator.LinkProfile;
+import com.evenrealities.even_g1_sdk.simulator.SimulatedArm;
+import com.evenrealities.even_g1_sdk.simulator.SimulatorFixture;
+
+import static org.junit.Assert.*;
+
+public class TextStreamWriterTest {
+
+    private final SimulatorFixture simulator = new SimulatorFixture();
+    private TextStreamWriter writer;
+
+    @Before
+    public void setUp() throws Exception {
+        writer = simulator.connect(LinkProfile.IDEAL).openTextStreamWriter();
+    }
+
+    @After
+    public void tearDown() {
+        simulator.shutdown();
+    }
+
+    @Test
+    public void wordsAreAppendedAtTheirPosition() {
+        SimulatedArm left = simulator.getGlasses().getLeft();
+        assertTrue(writer.update("Hello"));
+        assertTrue(writer.append(" w\u00f6rld"));
+        assertTrue(writer.append(", how are you"));
+        assertEquals("Hello w\u00f6rld, how are you", left.getDisplayedText());
+        assertEquals(1, writer.getRefreshes());
+        assertEquals(2, writer.getAppends());
+        assertEquals(2, left.getAppendsReceived());
+        assertTrue(writer.getBytesSaved() > 0);
+
+        // A corrected word sends the page again
+        assertTrue(writer.update("Hello world, how are you"));
+        assertEquals("Hello world, how are you", left.getDisplayedText());
+        assertEquals(2, writer.getRefreshes());
+    }
+
+    @Test
+    public void nextPageIsAFullRefresh() {
+        SimulatedArm left = simulator.getGlasses().getLeft();
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 4; i++) {
+            text.append("line ").append(i).append('\n');
+            assertTrue(writer.update(text.toString()));
+        }
+        assertEquals(1, writer.getRefreshes());
+
+        // The fifth line break scrolls to the second page
+        text.append("line 4\n");
+        assertTrue(writer.update(text.toString()));
+        assertTrue(writer.append("line 5"));
+        assertEquals(2, writer.getRefreshes());
+        assertEquals("line 5", left.getDisplayedText());
+
+        // Something else was displayed
+        writer.invalidate();
+        assertTrue(writer.append("!"));
+        assertEquals(3, writer.getRefreshes());
+        assertEquals("line 5!", left.getDisplayedText());
+    }
+}
@@ -0,0 +1,89 @@
+package com.evenrealities.even_g1_sdk.connection;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class ArmEventLoopTest {
+
+    private final ArmEventLoop loop = new ArmEventLoop("test-loop");
+
+    @After
+    public void tearDown() {
+        loop.shutdown();
+    }
+
+    @Test
+    public void tasksRunInSubmissionOrderOnTheLoopThread() throws Exception {
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(1);
+        for (int i = 0; i < 1000; i++) {
+            final int value = i;
+            loop.execute(() -> {
+                assertTrue(loop.inEventLoop());
+                order.add(value);
+            });
+        }
+        loop.execute(done::countDown);
+        assertTrue(done.await(1, TimeUnit.SECONDS));
+        assertEquals(1000, order.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, (int) order.get(i));
+        }
+        assertFalse(loop.inEventLoop());
+    }
+
+    @Test
+    public void failingTaskDoesNotStopTheLoop() throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        loop.execute(() -> {
+            throw new IllegalStateException("boom");
+        });
+        loop.execute(done::countDown);
+        assertTrue(done.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void executeAfterShutdown_isRejected() {
+        loop.shutdown();
+        loop.execute(() -> { });
+    }
+
+    @Test
+    public void taskAcceptedDuringShutdownStillRuns() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            ArmEventLoop racing = new ArmEventLoop("racing-loop");
+            AtomicInteger accepted = new AtomicInteger();
+            AtomicInteger ran = new AtomicInteger();
+            Thread producer = new Thread(() -> {
+                try {
+                    while (true) {
+                        racing.execute(ran::incrementAndGet);
+                        accepted.incrementAndGet();
+                    }
+                } catch (RejectedExecutionException expected) {
+                    // The loop was shut down
+                }
+            });
+            producer.start();
+            Thread.sleep(1);
+            racing.shutdown();
+            producer.join();
+
+            long deadline = System.currentTimeMillis() + 1000;
+            while (ran.get() < accepted.get() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(1);
+            }
+            assertEquals(accepted.get(), ran.get());
+        }
+    }
+}
@@ -0,0 +1,428 @@
+package com.evenrealities.even_g1_sdk.connection;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.evenrealities.even_g1_sdk.api.EvenOsApi;
+import com.evenrealities.even_g1_sdk.api.EvenOsCommand;
+
+import static org.junit.Assert.*;
+
+public class CommandSchedulerTest {
+
+    private final ArmEventLoop loop = new ArmEventLoop("test-loop");
+    private final List<EvenOsCommand<?>> sent = Collections.synchronizedList(new ArrayList<>());
+    private final List<String> writes = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger pendingWrites = new AtomicInteger();
+    // Index of the next packet the link refuses, -1 to accept everything
+    private final AtomicInteger refusePacket = new AtomicInteger(-1);
+    private final RetryPolicy retryPolicy = new RetryPolicy();
+    private final CommandScheduler scheduler = new CommandScheduler(EvenOsApi.Sides.LEFT, new CommandScheduler.Sender() {
+        @Override
+        public int send(EvenOsCommand<?> command, int fromPacket, int toPacket) {
+            if (fromPacket == 0) {
+                sent.add(command);
+            }
+            int refused = refusePacket.get();
+            int accepted = refused >= fromPacket && refused < toPacket ? refused : toPacket;
+            refusePacket.compareAndSet(refused, -1);
+            writes.add(String.format("%02X:%d-%d", command.requestPackets[0][0], fromPacket, accepted));
+            return accepted - fromPacket;
+        }
+
+        @Override
+        public int pendingWrites() {
+            return pendingWrites.get();
+        }
+    }, loop, retryPolicy);
+
+    @After
+    public void tearDown() {
+        loop.shutdown();
+    }
+
+    private <T> T onLoop(Callable<T> task) throws Exception {
+        FutureTask<T> future = new FutureTask<>(task);
+        loop.execute(future);
+        return future.get(1, TimeUnit.SECONDS);
+    }
+
+    private void onLoop(Runnable task) throws Exception {
+        onLoop(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    private static EvenOsCommand<byte[]> command(int opcode) {
+        return new EvenOsCommand<>(new byte[]{(byte) opcode}, new byte[]{(byte) opcode}, EvenOsApi.Sides.LEFT);
+    }
+
+    @Test
+    public void conflictingCommandsWaitInOrderOthersGoThrough() throws Exception {
+        EvenOsCommand<byte[]> first = command(0x2C);
+        EvenOsCommand<byte[]> second = command(0x2C);
+        EvenOsCommand<byte[]> text = command(0x4E);
+        onLoop(() -> {
+            scheduler.submit(first);
+            scheduler.submit(second);
+            scheduler.submit(text);
+        });
+        assertEquals(2, sent.size());
+        assertSame(first, sent.get(0));
+        assertSame(text, sent.get(1));
+        assertEquals(1, (int) onLoop(scheduler::getWaitingCount));
+
+        onLoop(() -> scheduler.onResponse(new byte[]{0x2C, 0x66, 0x32}));
+        assertArrayEquals(new byte[]{0x2C, 0x66, 0x32}, first.future.get());
+        assertEquals(3, sent.size());
+        assertSame(second, sent.get(2));
+        assertFalse(second.future.isDone());
+    }
+
+    @Test
+    public void windowLimitsCommandsInFlight() throws Exception {
+        onLoop(() -> {
+            scheduler.setMaxInFlight(2);
+            scheduler.submit(command(0x01));
+            scheduler.submit(command(0x02));
+            scheduler.submit(command(0x03));
+        });
+        assertEquals(2, sent.size());
+        onLoop(() -> scheduler.onResponse(new byte[]{0x02, (byte) 0xC9}));
+        assertEquals(3, sent.size());
+        assertEquals(2, (int) onLoop(scheduler::getInFlightCount));
+    }
+
+    @Test
+    public void timeoutReleasesTheNextConflictingCommand() throws Exception {
+        EvenOsCommand<byte[]> first = command(0x25);
+        EvenOsCommand<byte[]> second = command(0x25);
+        onLoop(() -> {
+            scheduler.setResponseTimeoutMillis(20);
+            scheduler.submit(first);
+            scheduler.submit(second);
+        });
+        try {
+            first.future.get(1, TimeUnit.SECONDS);
+            fail("the first command should time out");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+        assertEquals(2, (int) onLoop(() -> sent.size()));
+        assertEquals(1L, (long) onLoop(scheduler::getTimedOutCount));
+    }
+
+    @Test
+    public void cancelledCommandFreesItsPlace() throws Exception {
+        EvenOsCommand<byte[]> first = command(0x0E);
+        EvenOsCommand<byte[]> second = command(0x0E);
+        onLoop(() -> {
+            scheduler.submit(first);
+            scheduler.submit(second);
+        });
+        first.future.cancel(false);
+        onLoop(() -> scheduler.cancel(first));
+        assertEquals(2, sent.size());
+        assertSame(second, sent.get(1));
+    }
+
+    @Test
+    public void commandDeadlineExpiresItInTheQueue() throws Exception {
+        EvenOsCommand<byte[]> first = command(0x4E);
+        EvenOsCommand<byte[]> queued = new EvenOsCommand<>(new byte[]{0x4E}, new byte[]{0x4E}, EvenOsApi.Sides.LEFT, 30);
+        EvenOsCommand<byte[]> third = command(0x4E);
+        onLoop(() -> {
+            scheduler.submit(first);
+            scheduler.submit(queued);
+            scheduler.submit(third);
+        });
+        try {
+            queued.future.get(1, TimeUnit.SECONDS);
+            fail("the queued command should expire");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+        assertEquals(1, sent.size());
+        assertEquals(1, (int) onLoop(scheduler::getWaitingCount));
+
+        // The command that expired is purged: the next response releases the third one
+        onLoop(() -> scheduler.onResponse(new byte[]{0x4E, (byte) 0xC9}));
+        assertEquals(2, sent.size());
+        assertSame(third, sent.get(1));
+        // Only the response timeout of the third command is left
+        assertEquals(1, (int) onLoop(loop::pendingTimers));
+    }
+
+    @Test
+    public void higherLanesAreSentFirst() throws Exception {
+        EvenOsCommand<byte[]> text = command(0x4E);
+        EvenOsCommand<byte[]> battery = new EvenOsCommand<>(new byte[]{0x2C}, new byte[]{0x2C}, EvenOsApi.Sides.LEFT, EvenOsCommand.Priority.BACKGROUND);
+        EvenOsCommand<byte[]> exit = new EvenOsCommand<>(new byte[]{0x18}, new byte[]{0x18}, EvenOsApi.Sides.LEFT, EvenOsCommand.Priority.REALTIME);
+        onLoop(() -> {
+            scheduler.setMaxInFlight(1);
+            scheduler.submit(text);
+            scheduler.submit(battery);
+            scheduler.submit(exit);
+        });
+        assertEquals(1, sent.size());
+        onLoop(() -> scheduler.onResponse(new byte[]{0x4E, (byte) 0xC9}));
+        assertSame(exit, sent.get(1));
+        onLoop(() -> scheduler.onResponse(new byte[]{0x18, (byte) 0xC9}));
+        assertSame(battery, sent.get(2));
+
+        assertEquals(1, scheduler.getQueueWait(EvenOsCommand.Priority.REALTIME).getCount());
+        assertEquals(1, scheduler.getQueueWait(EvenOsCommand.Priority.BACKGROUND).getCount());
+        assertTrue(scheduler.getQueueWait(EvenOsCommand.Priority.BACKGROUND).getMaxNanos()
+            >= scheduler.getQueueWait(EvenOsCommand.Priority.REALTIME).getMaxNanos());
+    }
+
+    @Test
+    public void bulkTransferYieldsBetweenBursts() throws Exception {
+        byte[][] chunks = new byte[6][];
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = new byte[]{0x15, (byte) i};
+        }
+        EvenOsCommand<byte[]> bitmap = new EvenOsCommand<>(chunks, new byte[]{0x15}, EvenOsApi.Sides.LEFT, EvenOsCommand.Priority.BULK);
+        EvenOsCommand<byte[]> exit = new EvenOsCommand<>(new byte[]{0x18}, new byte[]{0x18}, EvenOsApi.Sides.LEFT, EvenOsCommand.Priority.REALTIME);
+        // The link is busy: only the first burst is written
+        pendingWrites.set(100);
+        onLoop(() -> {
+            scheduler.setBulkBurstPackets(2);
+            scheduler.submit(bitmap);
+        });
+        onLoop(() -> scheduler.submit(exit));
+        // Each chunk is acknowledged, the first ones while the transfer is still written
+        assertSame(bitmap, onLoop(() -> scheduler.onResponse(new byte[]{0x15, (byte) 0xC9})));
+        assertFalse(bitmap.future.isDone());
+
+        pendingWrites.set(0);
+        long deadline = System.currentTimeMillis() + 1000;
+        while (writes.size() < 4 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(Arrays.asList("15:0-2", "18:0-1", "15:2-4", "15:4-6"), new ArrayList<>(writes));
+        for (int i = 1; i < chunks.length; i++) {
+            assertSame(bitmap, onLoop(() -> scheduler.onResponse(new byte[]{0x15, (byte) 0xC9})));
+        }
+        assertArrayEquals(new byte[]{0x15, (byte) 0xC9}, bitmap.future.get());
+    }
+
+    @Test
+    public void waitingSettingsAreCoalescedLatestWins() throws Exception {
+        EvenOsCommand<byte[]> text = command(0x4E);
+        List<EvenOsCommand<byte[]>> brightness = new ArrayList<>();
+        for (int level = 0; level < 10; level++) {
+            brightness.add(new EvenOsCommand<>(new byte[][]{{0x01, (byte) level, 0x00}}, new byte[]{0x01},
+                EvenOsApi.Sides.LEFT, EvenOsCommand.Priority.INTERACTIVE, 0, Byte.valueOf((byte) 0x01)));
+        }
+        onLoop(() -> {
+            scheduler.setMaxInFlight(1);
+            scheduler.submit(text);
+            for (EvenOsCommand<byte[]> command : brightness) {
+                scheduler.submit(command);
+            }
+        });
+        assertEquals(1, (int) onLoop(scheduler::getWaitingCount));
+        assertEquals(9L, (long) onLoop(scheduler::getCoalescedCount));
+
+        onLoop(() -> scheduler.onResponse(new byte[]{0x4E, (byte) 0xC9}));
+        assertEquals(2, sent.size());
+        assertSame(brightness.get(9), sent.get(1));
+        onLoop(() -> scheduler.onResponse(new byte[]{0x01, (byte) 0xC9}));
+        // The replaced settings complete with the result of the one that was sent
+        for (EvenOsCommand<byte[]> command : brightness) {
+            assertArrayEquals(new byte[]{0x01, (byte) 0xC9}, command.future.get(1, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void idempotentCommandIsRetriedAfterNoResponse() throws Exception {
+        retryPolicy.setAttemptTimeoutMillis(20);
+        EvenOsCommand<byte[]> brightness = command(0x01);
+        onLoop(() -> scheduler.submit(brightness));
+        long deadline = System.currentTimeMillis() + 1000;
+        while (sent.size() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertSame(brightness, sent.get(1));
+        onLoop(() -> scheduler.onResponse(new byte[]{0x01, (byte) 0xC9}));
+        assertArrayEquals(new byte[]{0x01, (byte) 0xC9}, brightness.future.get(1, TimeUnit.SECONDS));
+        RetryMetrics metrics = scheduler.getRetryMetrics();
+        assertTrue(metrics.getRetries(0x01) >= 1);
+        assertEquals(1, metrics.getRecovered(0x01));
+    }
+
+    @Test
+    public void nonIdempotentCommandIsNotRetried() throws Exception {
+        retryPolicy.setAttemptTimeoutMillis(10);
+        EvenOsCommand<byte[]> exit = command(0x18);
+        onLoop(() -> {
+            scheduler.setResponseTimeoutMillis(50);
+            scheduler.submit(exit);
+        });
+        try {
+            exit.future.get(1, TimeUnit.SECONDS);
+            fail("exit should time out");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+        assertEquals(1, sent.size());
+        assertEquals(0, scheduler.getRetryMetrics().getRetries(0x18));
+    }
+
+    @Test
+    public void refusedPacketIsRetriedAloneNotTheWholeTransfer() throws Exception {
+        byte[][] chunks = new byte[4][];
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = new byte[]{0x4E, (byte) i};
+        }
+        EvenOsCommand<byte[]> text = new EvenOsCommand<>(chunks, new byte[]{0x4E}, EvenOsApi.Sides.LEFT);
+        refusePacket.set(2);
+        onLoop(() -> scheduler.submit(text));
+        long deadline = System.currentTimeMillis() + 1000;
+        while (writes.size() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(Arrays.asList("4E:0-2", "4E:2-4"), new ArrayList<>(writes));
+        assertEquals(1, scheduler.getRetryMetrics().getPacketRetries(0x4E));
+        for (int i = 0; i < chunks.length; i++) {
+            assertFalse(text.future.isDone());
+            onLoop(() -> scheduler.onResponse(new byte[]{0x4E, (byte) 0xC9}));
+        }
+        assertTrue(text.future.isDone());
+    }
+
+    private static EvenOsCommand<byte[]> textTransfer(int pages) {
+        byte[][] chunks = new byte[pages][];
+        for (int i = 0; i < pages; i++) {
+            chunks[i] = new byte[]{0x4E, 0x00, (byte) pages, (byte) i};
+        }
+        return new EvenOsCommand<>(chunks, new byte[]{0x4E}, EvenOsApi.Sides.LEFT);
+    }
+
+    @Test
+    public void transferCompletesOnceEveryChunkIsAcknowledged() throws Exception {
+        EvenOsCommand<byte[]> text = textTransfer(3);
+        List<String> progress = Collections.synchronizedList(new ArrayList<>());
+        text.setProgressListener((side, chunk, success, acknowledged, total) ->
+            progress.add(chunk + ":" + success + ":" + acknowledged + "/" + total));
+        onLoop(() -> scheduler.submit(text));
+        onLoop(() -> scheduler.onResponse(new byte[]{0x4E, (byte) 0xC9}));
+        onLoop(() -> scheduler.onResponse(new byte[]{0x4E, (byte) 0xC9}));
+        assertFalse(text.future.isDone());
+        onLoop(() -> scheduler.onResponse(new byte[]{0x4E, (byte) 0xC9}));
+        assertArrayEquals(new byte[]{0x4E, (byte) 0xC9}, text.future.get(1, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("0:true:1/3", "1:true:2/3", "2:true:3/3"), new ArrayList<>(progress));
+        // Nothing is left waiting for an acknowledgement
+        assertNull(onLoop(() -> scheduler.onResponse(new byte[]{0x4E, (byte) 0xC9})));
+    }
+
+    @Test
+    public void rejectedChunkIsSentAgainAlone() throws Exception {
+        retryPolicy.setBackoff(1, 1);
+        EvenOsCommand<byte[]> text = textTransfer(3);
+        onLoop(() -> scheduler.submit(text));
+        onLoop(() -> scheduler.onResponse(new byte[]{0x4E, (byte) 0xC9}));
+        onLoop(() -> scheduler.onResponse(new byte[]{0x4E, 0x00}));
+        onLoop(() -> scheduler.onResponse(new byte[]{0x4E, (byte) 0xC9}));
+        long deadline = System.currentTimeMillis() + 1000;
+        while (writes.size() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(Arrays.asList("4E:0-3", "4E:1-2"), new ArrayList<>(writes));
+        assertFalse(text.future.isDone());
+        onLoop(() -> scheduler.onResponse(new byte[]{0x4E, (byte) 0xC9}));
+        assertTrue(text.future.isDone());
+        assertEquals(1, scheduler.getRetryMetrics().getRecovered(0x4E));
+    }
+
+    @Test
+    public void failedChunkWriteIsSentAgainAlone() throws Exception {
+        retryPolicy.setBackoff(1, 1);
+        EvenOsCommand<byte[]> text = textTransfer(3);
+        onLoop(() -> scheduler.submit(text));
+        // The link took chunk 1 and reported its write failed: the acknowledgements answer 0 and 2
+        onLoop(() -> scheduler.onWriteFailed(text.requestPackets[1]));
+        onLoop(() -> scheduler.onResponse(new byte[]{0x4E, (byte) 0xC9}));
+        onLoop(() -> scheduler.onResponse(new byte[]{0x4E, (byte) 0xC9}));
+        long deadline = System.currentTimeMillis() + 1000;
+        while (writes.size() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(Arrays.asList("4E:0-3", "4E:1-2"), new ArrayList<>(writes));
+        assertFalse(text.future.isDone());
+        onLoop(() -> scheduler.onResponse(new byte[]{0x4E, (byte) 0xC9}));
+        assertTrue(text.future.isDone());
+        assertEquals(1, scheduler.getRetryMetrics().getPacketRetries(0x4E));
+    }
+
+    @Test
+    public void onlyThePacketsWhoseWriteFailedAreSentAgain() throws Exception {
+        retryPolicy.setBackoff(1, 1);
+        byte[][] packets = new byte[5][];
+        for (int i = 0; i < packets.length; i++) {
+            packets[i] = new byte[]{0x30, (byte) i};
+        }
+        EvenOsCommand<byte[]> command = new EvenOsCommand<>(packets, new byte[]{0x30}, EvenOsApi.Sides.LEFT);
+        onLoop(() -> scheduler.submit(command));
+        // The link took every packet, then failed to write 1 and 3: the others reached the arm
+        onLoop(() -> {
+            scheduler.onWriteFailed(packets[1]);
+            scheduler.onWriteFailed(packets[3]);
+        });
+        long deadline = System.currentTimeMillis() + 1000;
+        while (writes.size() < 3 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        Thread.sleep(20);
+        int[] delivered = new int[packets.length];
+        for (String write : new ArrayList<>(writes)) {
+            String[] range = write.substring(3).split("-");
+            for (int i = Integer.parseInt(range[0]); i < Integer.parseInt(range[1]); i++) {
+                delivered[i]++;
+            }
+        }
+        delivered[1]--;
+        delivered[3]--;
+        assertArrayEquals(new int[]{1, 1, 1, 1, 1}, delivered);
+        assertEquals(2, scheduler.getRetryMetrics().getPacketRetries(0x30));
+        onLoop(() -> scheduler.onResponse(new byte[]{0x30, (byte) 0xC9}));
+        assertTrue(command.future.isDone());
+
+        // Packets of no command in flight are ignored
+        onLoop(() -> scheduler.onWriteFailed(packets[0]));
+        assertEquals(3, writes.size());
+    }
+
+    @Test
+    public void chunksStillRejectedFailTheTransferWithTheirIndexes() throws Exception {
+        retryPolicy.setMaxRetries(0);
+        EvenOsCommand<byte[]> text = textTransfer(4);
+        onLoop(() -> scheduler.submit(text));
+        onLoop(() -> scheduler.onResponse(new byte[]{0x4E, (byte) 0xC9}));
+        onLoop(() -> scheduler.onResponse(new byte[]{0x4E, 0x00}));
+        onLoop(() -> scheduler.onResponse(new byte[]{0x4E, (byte) 0xC9}));
+        assertFalse(text.future.isDone());
+        onLoop(() -> scheduler.onResponse(new byte[]{0x4E, 0x00}));
+        try {
+            text.future.get(1, TimeUnit.SECONDS);
+            fail("the transfer should fail");
+        } catch (ExecutionException e) {
+            ChunkTransferException failure = (ChunkTransferException) e.getCause();
+            assertArrayEquals(new int[]{1, 3}, failure.failedChunks);
+            assertEquals(4, failure.totalChunks);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.evenrealities.even_g1_sdk.connection;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CreditWindowTest {
+
+    @Test
+    public void windowGrowsAfterAFullWindowOfSuccesses() {
+        CreditWindow window = new CreditWindow(2, 3, 3, 4);
+        assertTrue(window.tryAcquire());
+        assertTrue(window.tryAcquire());
+        assertFalse(window.tryAcquire());
+        window.onFeedback(true);
+        window.onFeedback(true);
+        assertEquals(3, window.getWindow());
+        for (int i = 0; i < 10; i++) {
+            assertTrue(window.tryAcquire());
+            window.onFeedback(true);
+        }
+        assertEquals(3, window.getWindow());
+    }
+
+    @Test
+    public void failuresHalveTheWindowAndDegradeTheLink() {
+        CreditWindow window = new CreditWindow(8, 8, 2, 3);
+        window.onFeedback(false);
+        assertEquals(4, window.getWindow());
+        window.onFeedback(false);
+        window.onFeedback(false);
+        assertEquals(1, window.getWindow());
+        assertFalse(window.isDegraded());
+        window.onFeedback(false);
+        window.onFeedback(false);
+        assertTrue(window.isDegraded());
+
+        window.onFeedback(true);
+        window.onFeedback(true);
+        assertTrue(window.isDegraded());
+        window.onFeedback(true);
+        assertFalse(window.isDegraded());
+        assertEquals(1, window.getWindow());
+    }
+}
@@ -0,0 +1,58 @@
+package com.evenrealities.even_g1_sdk.connection;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class DispatchTableTest {
+
+    private static byte[] bytes(int... values) {
+        byte[] result = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = (byte) values[i];
+        }
+        return result;
+    }
+
+    @Test
+    public void longestPrefixFirstThenWildcards() {
+        DispatchTable<String> table = DispatchTable.<String>empty()
+            .with(null, "all")
+            .with(bytes(0xF5), "event")
+            .with(bytes(0xF5, 0x01), "single tap")
+            .with(bytes(0xF5, 0x01), "single tap 2")
+            .with(bytes(0x2C), "battery");
+
+        assertArrayEquals(new Object[]{"single tap", "single tap 2", "event", "all"}, table.lookup(bytes(0xF5, 0x01, 0x00)));
+        assertArrayEquals(new Object[]{"event", "all"}, table.lookup(bytes(0xF5, 0x0A, 0x20)));
+        assertArrayEquals(new Object[]{"battery", "all"}, table.lookup(bytes(0x2C, 0x66, 0x32)));
+        assertArrayEquals(new Object[]{"all"}, table.lookup(bytes(0xF1, 0x00)));
+        assertArrayEquals(new Object[]{"event", "all"}, table.lookup(bytes(0xF5)));
+    }
+
+    @Test
+    public void multiByteHeadersGoThroughTheTrie() {
+        byte[] header = "net build".getBytes(StandardCharsets.US_ASCII);
+        DispatchTable<String> table = DispatchTable.<String>empty().with(header, "firmware");
+
+        assertArrayEquals(new Object[]{"firmware"}, table.lookup("net build time: 2025".getBytes(StandardCharsets.US_ASCII)));
+        assertEquals(0, table.lookup("net bu".getBytes(StandardCharsets.US_ASCII)).length);
+        assertEquals(0, table.lookup("net value".getBytes(StandardCharsets.US_ASCII)).length);
+    }
+
+    @Test
+    public void withoutRemovesOneValueAndKeepsTheOthers() {
+        String first = "first";
+        DispatchTable<String> table = DispatchTable.<String>empty()
+            .with(bytes(0x4E), first)
+            .with(bytes(0x4E), "second");
+        DispatchTable<String> updated = table.without(first);
+
+        assertArrayEquals(new Object[]{"second"}, updated.lookup(bytes(0x4E, 0xC9)));
+        // Tables are immutable
+        assertEquals(2, table.lookup(bytes(0x4E, 0xC9)).length);
+        assertSame(updated, updated.without("missing"));
+    }
+}
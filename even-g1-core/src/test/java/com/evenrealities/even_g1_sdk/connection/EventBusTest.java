@@ -0,0 +1,99 @@
+package com.evenrealities.even_g1_sdk.connection;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import com.evenrealities.even_g1_sdk.api.EvenOsApi;
+import com.evenrealities.even_g1_sdk.api.EvenOsEventListener;
+
+import static org.junit.Assert.*;
+
+public class EventBusTest {
+
+    private final EvenOsApi api = new EvenOsApi(null);
+    private final EventBus bus = new EventBus();
+    private final List<String> calls = Collections.synchronizedList(new ArrayList<>());
+
+    @Test
+    public void eventsReachTheListenerOfTheirSubOpcode() {
+        bus.add(api.onSingleTap(), (Boolean value, EvenOsApi.Sides side) -> calls.add("single " + side));
+        bus.add(api.onDoubleTap(), (Boolean value, EvenOsApi.Sides side) -> calls.add("double " + side));
+        bus.add(api.onGlassesBattery(), (Integer level, EvenOsApi.Sides side) -> calls.add("battery " + level));
+
+        assertTrue(bus.dispatch(new byte[]{(byte) 0xF5, 0x00}, EvenOsApi.Sides.LEFT));
+        assertTrue(bus.dispatch(new byte[]{(byte) 0xF5, 0x0A, 0x20}, EvenOsApi.Sides.RIGHT));
+        assertFalse(bus.dispatch(new byte[]{(byte) 0xF5, 0x0B}, EvenOsApi.Sides.RIGHT));
+        assertEquals(2, calls.size());
+        assertEquals("double LEFT", calls.get(0));
+        assertEquals("battery 50", calls.get(1));
+    }
+
+    @Test
+    public void listenersWithoutPrefixAreCalledLast() {
+        EvenOsEventListener<byte[]> all = api.onAllResponses();
+        bus.add(all, (byte[] data, EvenOsApi.Sides side) -> calls.add("all"));
+        bus.add(api.onCaseOpen(), (Boolean value, EvenOsApi.Sides side) -> calls.add("case open"));
+
+        bus.dispatch(new byte[]{(byte) 0xF5, 0x08}, EvenOsApi.Sides.LEFT);
+        bus.dispatch(new byte[]{(byte) 0xF1, 0x00}, EvenOsApi.Sides.RIGHT);
+        assertEquals(Arrays.asList("case open", "all", "all"), calls);
+
+        bus.remove(all);
+        assertEquals(1, bus.size());
+        assertFalse(bus.dispatch(new byte[]{(byte) 0xF1, 0x00}, EvenOsApi.Sides.RIGHT));
+    }
+
+    @Test
+    public void everySubscriberGetsTheEventOfItsSide() {
+        bus.subscribe(api.onSingleTap(), (value, side) -> calls.add("feature 1 " + side));
+        EventBus.Subscription second = bus.subscribe(api.onSingleTap(), (value, side) -> calls.add("feature 2 " + side));
+        bus.subscribe(api.onSingleTap(), EvenOsApi.Sides.RIGHT, null, (value, side) -> calls.add("right only " + side));
+        bus.subscribe(api.onSingleTap(), (value, side) -> {
+            throw new IllegalStateException("broken feature");
+        });
+
+        assertTrue(bus.dispatch(new byte[]{(byte) 0xF5, 0x01}, EvenOsApi.Sides.LEFT));
+        assertEquals(Arrays.asList("feature 1 LEFT", "feature 2 LEFT"), calls);
+
+        calls.clear();
+        second.unsubscribe();
+        bus.dispatch(new byte[]{(byte) 0xF5, 0x01}, EvenOsApi.Sides.RIGHT);
+        assertEquals(Arrays.asList("feature 1 RIGHT", "right only RIGHT"), calls);
+    }
+
+    @Test
+    public void slowSubscriberWithItsExecutorDoesntStallTheDispatch() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch delivered = new CountDownLatch(2);
+        try {
+            bus.subscribe(api.onGlassesBattery(), EvenOsApi.Sides.BOTH, executor, (level, side) -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                delivered.countDown();
+            });
+            bus.subscribe(api.onGlassesBattery(), (level, side) -> calls.add("battery " + level));
+
+            byte[] packet = {(byte) 0xF5, 0x0A, 0x20};
+            bus.dispatch(packet, EvenOsApi.Sides.LEFT);
+            bus.dispatch(packet, EvenOsApi.Sides.RIGHT);
+            // Both dispatches returned while the slow subscriber is still blocked
+            assertEquals(Arrays.asList("battery 50", "battery 50"), calls);
+            release.countDown();
+            assertTrue(delivered.await(1, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.evenrealities.even_g1_sdk.connection;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.Assert.*;
+
+public class OperationQueueTest {
+
+    private static class RecordingOperation implements OperationQueue.Operation {
+        final String name;
+        final List<String> log;
+        final boolean accept;
+        Boolean result;
+
+        RecordingOperation(String name, List<String> log, boolean accept) {
+            this.name = name;
+            this.log = log;
+            this.accept = accept;
+        }
+
+        @Override
+        public boolean start() {
+            log.add("start " + name);
+            return accept;
+        }
+
+        @Override
+        public void onComplete(boolean success, long latencyNanos) {
+            log.add("done " + name + " " + success);
+            result = success;
+        }
+    }
+
+    @Test
+    public void onlyOneOperationIsOutstanding() {
+        List<String> log = new ArrayList<>();
+        OperationQueue queue = new OperationQueue();
+        queue.enqueue(OperationQueue.Type.MTU_REQUEST, new RecordingOperation("mtu", log, true));
+        queue.enqueue(OperationQueue.Type.WRITE, new RecordingOperation("a", log, true));
+        queue.enqueue(OperationQueue.Type.WRITE, new RecordingOperation("b", log, true));
+        assertEquals(3, queue.size());
+        assertEquals(1, log.size());
+
+        queue.complete(OperationQueue.Type.MTU_REQUEST, true);
+        queue.complete(OperationQueue.Type.WRITE, true);
+        assertEquals(2, log.indexOf("start a"));
+        assertEquals(4, log.indexOf("start b"));
+        queue.complete(OperationQueue.Type.WRITE, false);
+        assertTrue(queue.isIdle());
+        assertEquals("done b false", log.get(log.size() - 1));
+    }
+
+    @Test
+    public void unexpectedCompletionIsIgnored() {
+        List<String> log = new ArrayList<>();
+        OperationQueue queue = new OperationQueue();
+        queue.enqueue(OperationQueue.Type.DESCRIPTOR_WRITE, new RecordingOperation("cccd", log, true));
+        queue.complete(OperationQueue.Type.WRITE, true);
+        assertEquals(1, queue.size());
+        queue.complete(OperationQueue.Type.DESCRIPTOR_WRITE, true);
+        assertTrue(queue.isIdle());
+    }
+
+    @Test
+    public void refusedOperationFailsAndNextStarts() {
+        List<String> log = new ArrayList<>();
+        OperationQueue queue = new OperationQueue();
+        RecordingOperation first = new RecordingOperation("a", log, true);
+        RecordingOperation refused = new RecordingOperation("b", log, false);
+        RecordingOperation last = new RecordingOperation("c", log, true);
+        queue.enqueue(OperationQueue.Type.WRITE, first);
+        queue.enqueue(OperationQueue.Type.WRITE, refused);
+        queue.enqueue(OperationQueue.Type.WRITE, last);
+        queue.complete(OperationQueue.Type.WRITE, true);
+        assertEquals(Boolean.FALSE, refused.result);
+        assertEquals("start c", log.get(log.size() - 1));
+    }
+
+    @Test
+    public void clearFailsPendingOperationsAndReportsLatency() {
+        List<String> log = new ArrayList<>();
+        List<OperationQueue.Type> reported = new ArrayList<>();
+        OperationQueue queue = new OperationQueue();
+        queue.setOnOperationCompleteListener((type, success, latencyNanos) -> {
+            assertTrue(latencyNanos >= 0);
+            reported.add(type);
+        });
+        RecordingOperation a = new RecordingOperation("a", log, true);
+        RecordingOperation b = new RecordingOperation("b", log, true);
+        queue.enqueue(OperationQueue.Type.WRITE, a);
+        queue.enqueue(OperationQueue.Type.WRITE, b);
+        queue.clear();
+        assertEquals(Boolean.FALSE, a.result);
+        assertEquals(Boolean.FALSE, b.result);
+        assertEquals(2, reported.size());
+        assertTrue(queue.isIdle());
+    }
+
+    @Test
+    public void writesWithoutResponseAreLimitedByCredits() {
+        List<String> log = new ArrayList<>();
+        OperationQueue queue = new OperationQueue(new CreditWindow(2, 4, 3, 8));
+        for (int i = 0; i < 4; i++) {
+            queue.enqueue(OperationQueue.Type.WRITE_NO_RESPONSE, new RecordingOperation("bulk" + i, log, true));
+        }
+        queue.enqueue(OperationQueue.Type.WRITE, new RecordingOperation("ack", log, true));
+        assertEquals(2, log.size());
+        assertEquals(2, queue.getCreditWindow().getInFlight());
+
+        queue.completeWrite(true);
+        assertEquals("start bulk2", log.get(log.size() - 1));
+        queue.completeWrite(true);
+        queue.completeWrite(true);
+        assertFalse(log.contains("start ack"));
+        queue.completeWrite(true);
+        assertEquals("start ack", log.get(log.size() - 1));
+        queue.completeWrite(true);
+        assertTrue(queue.isIdle());
+    }
+
+    @Test
+    public void acknowledgedBulkWritesRecoverADegradedLink() {
+        List<String> log = new ArrayList<>();
+        OperationQueue queue = new OperationQueue(new CreditWindow(1, 1, 2, 3));
+        for (int i = 0; i < 2; i++) {
+            queue.enqueue(OperationQueue.Type.WRITE_NO_RESPONSE, new RecordingOperation("bulk" + i, log, true));
+            queue.completeWrite(false);
+        }
+        assertTrue(queue.getCreditWindow().isDegraded());
+
+        // The transfer falls back to acknowledged writes, plain writes don't count
+        queue.enqueue(OperationQueue.Type.WRITE, new RecordingOperation("command", log, true));
+        queue.completeWrite(true);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(queue.getCreditWindow().isDegraded());
+            queue.enqueue(OperationQueue.Type.BULK_WRITE, new RecordingOperation("ack" + i, log, true));
+            queue.completeWrite(true);
+        }
+        assertFalse(queue.getCreditWindow().isDegraded());
+        assertTrue(queue.isIdle());
+    }
+
+    @Test
+    public void busyLinkRequeuesWriteAndShrinksWindow() {
+        List<String> log = new ArrayList<>();
+        OperationQueue queue = new OperationQueue(new CreditWindow(4, 4, 3, 8));
+        final boolean[] busy = {false};
+        queue.enqueue(OperationQueue.Type.WRITE_NO_RESPONSE, new RecordingOperation("first", log, true));
+        RecordingOperation second = new RecordingOperation("second", log, true) {
+            @Override
+            public boolean start() {
+                super.start();
+                return !busy[0];
+            }
+        };
+        busy[0] = true;
+        queue.enqueue(OperationQueue.Type.WRITE_NO_RESPONSE, second);
+        assertEquals(2, queue.getCreditWindow().getWindow());
+        assertNull(second.result);
+
+        busy[0] = false;
+        queue.completeWrite(true);
+        assertEquals("start second", log.get(log.size() - 1));
+        queue.completeWrite(true);
+        assertEquals(Boolean.TRUE, second.result);
+    }
+
+    @Test
+    public void operationsAreStartedByOneThreadAtATime() throws Exception {
+        final OperationQueue queue = new OperationQueue(new CreditWindow(4, 4, 3, 32));
+        final AtomicInteger starting = new AtomicInteger();
+        final AtomicInteger maxStarting = new AtomicInteger();
+        final AtomicInteger started = new AtomicInteger();
+        final int writes = 2000;
+        final OperationQueue.Operation write = () -> {
+            maxStarting.accumulateAndGet(starting.incrementAndGet(), Math::max);
+            // The write may complete before start returns
+            started.incrementAndGet();
+            LockSupport.parkNanos(5_000);
+            starting.decrementAndGet();
+            return true;
+        };
+        // The link callback thread completes the writes, and enqueues some too (e.g. a descriptor
+        // write after a reconnection) while the arm loop enqueues the others
+        Thread link = new Thread(() -> {
+            int completed = 0;
+            while (completed < writes) {
+                if (completed < started.get()) {
+                    queue.complete(OperationQueue.Type.WRITE_NO_RESPONSE, true);
+                    completed++;
+                }
+            }
+        });
+        Thread callback = new Thread(() -> {
+            for (int i = 0; i < writes / 2; i++) {
+                queue.enqueue(OperationQueue.Type.WRITE_NO_RESPONSE, write);
+            }
+        });
+        link.start();
+        callback.start();
+        for (int i = 0; i < writes / 2; i++) {
+            queue.enqueue(OperationQueue.Type.WRITE_NO_RESPONSE, write);
+        }
+        callback.join(5000);
+        link.join(5000);
+        assertEquals(writes, started.get());
+        assertEquals(1, maxStarting.get());
+        assertTrue(queue.isIdle());
+    }
+}
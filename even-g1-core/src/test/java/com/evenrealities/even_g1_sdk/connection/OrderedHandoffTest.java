@@ -0,0 +1,49 @@
+package com.evenrealities.even_g1_sdk.connection;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.evenrealities.even_g1_sdk.api.EvenOsApi;
+import com.evenrealities.even_g1_sdk.api.EvenOsCommand;
+
+import static org.junit.Assert.*;
+
+public class OrderedHandoffTest {
+
+    @Test
+    public void commandsReachTheSecondArmInTheOrderTheyWereSent() {
+        List<String> released = new ArrayList<>();
+        OrderedHandoff<String> handoff = new OrderedHandoff<>(released::add);
+        OrderedHandoff.Entry<String> a = handoff.add("a");
+        OrderedHandoff.Entry<String> b = handoff.add("b");
+        OrderedHandoff.Entry<String> c = handoff.add("c");
+
+        // Pipelined on the first arm, b and c settle before a
+        handoff.settle(c, true);
+        handoff.settle(b, false);
+        assertTrue(released.isEmpty());
+        handoff.settle(a, true);
+        // b failed on the first arm, it never reaches the second one
+        assertEquals(Arrays.asList("a", "c"), released);
+        assertEquals(0, handoff.size());
+    }
+
+    @Test
+    public void onlyCommandsSentToBothArmsAreOrdered() {
+        OrderingPolicy policy = new OrderingPolicy();
+        byte[] text = {0x4E, 0x00, 0x01, 0x00};
+        assertEquals(OrderingPolicy.Ordering.PARALLEL, policy.getOrdering(0x4E));
+        policy.setOrdering(0x4E, OrderingPolicy.Ordering.LEFT_THEN_RIGHT);
+        assertEquals(OrderingPolicy.Ordering.LEFT_THEN_RIGHT,
+            policy.getOrdering(new EvenOsCommand<byte[]>(text, new byte[]{0x4E}, EvenOsApi.Sides.BOTH)));
+        assertEquals(OrderingPolicy.Ordering.PARALLEL,
+            policy.getOrdering(new EvenOsCommand<byte[]>(text, new byte[]{0x4E}, EvenOsApi.Sides.LEFT)));
+
+        policy.setOrdering(0x18, OrderingPolicy.Ordering.RIGHT_THEN_LEFT);
+        assertEquals(EvenOsApi.Sides.RIGHT, policy.getOrdering(0x18).first());
+        assertEquals(EvenOsApi.Sides.LEFT, policy.getOrdering(0x18).second());
+    }
+}
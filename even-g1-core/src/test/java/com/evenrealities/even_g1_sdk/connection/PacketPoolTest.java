@@ -0,0 +1,72 @@
+package com.evenrealities.even_g1_sdk.connection;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.evenrealities.even_g1_sdk.api.EvenOsApi;
+import com.evenrealities.even_g1_sdk.simulator.LinkProfile;
+import com.evenrealities.even_g1_sdk.simulator.SimulatorFixture;
+
+import static org.junit.Assert.*;
+import static com.evenrealities.even_g1_sdk.simulator.SimulatorFixture.await;
+
+public class PacketPoolTest {
+
+    private final SimulatorFixture simulator = new SimulatorFixture();
+
+    @After
+    public void tearDown() {
+        simulator.shutdown();
+    }
+
+    @Test
+    public void buffer_isReusedOnceReleasedAndWritten() {
+        PacketPool pool = new PacketPool();
+        byte[] packet = pool.acquire(20);
+        byte[][] packets = { packet };
+
+        // A scheduler took it and a link is writing it
+        pool.claim(packets);
+        pool.retain(packet);
+        pool.recycle(packets);
+        assertNotSame(packet, pool.acquire(20));
+
+        pool.recycle(packets);
+        assertEquals(0, pool.getPooledBytes());
+        pool.onWritten(packet);
+        assertEquals(20, pool.getPooledBytes());
+        assertSame(packet, pool.acquire(20));
+        assertEquals(1, pool.getReuses());
+    }
+
+    @Test
+    public void abandonedBuffer_isNeverReused() {
+        PacketPool pool = new PacketPool();
+        byte[] packet = pool.acquire(20);
+        pool.abandon(packet);
+        pool.recycle(new byte[][]{ packet });
+        assertEquals(0, pool.getLentCount());
+        assertEquals(0, pool.getPooledBytes());
+        assertNotSame(packet, pool.acquire(20));
+
+        // Buffers not taken from the pool are ignored
+        byte[] plain = new byte[20];
+        pool.recycle(new byte[][]{ plain });
+        pool.onWritten(plain);
+        assertEquals(0, pool.getPooledBytes());
+    }
+
+    @Test
+    public void captions_reuseTheirPacketBuffers() throws Exception {
+        EvenOsApi api = simulator.connect(LinkProfile.IDEAL);
+
+        for (int i = 0; i < 20; i++) {
+            // Same length every time, like a caption line being updated
+            api.sendText(String.format("caption %04d", i));
+        }
+        PacketPool pool = simulator.getManager().getPacketPool();
+        await(() -> pool.getLentCount() == 0);
+        assertTrue("reuses: " + pool.getReuses(), pool.getReuses() >= 15);
+        assertEquals("caption 0019", simulator.getGlasses().getLeft().getDisplayedText());
+    }
+}
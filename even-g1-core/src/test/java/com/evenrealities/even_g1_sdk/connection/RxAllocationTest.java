@@ -0,0 +1,146 @@
+package com.evenrealities.even_g1_sdk.connection;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.evenrealities.even_g1_sdk.api.EvenOsApi;
+import com.evenrealities.even_g1_sdk.api.EvenOsEventListener;
+
+import static org.junit.Assert.*;
+
+/**
+ * Allocation budget of the receive path: a steady 0xF1 audio stream must not produce garbage,
+ * neither on the transport callback thread nor on the event loop of the arm.
+ */
+public class RxAllocationTest {
+
+    private static final int WARMUP_PACKETS = 50_000;
+    private static final int MEASURED_PACKETS = 20_000;
+
+    /**
+     * Transport whose packets are pushed by the test thread, like a BLE callback thread
+     */
+    private static class FakeTransport implements Transport {
+        volatile OnRxDataListener listener;
+
+        @Override
+        public void connect() {
+        }
+
+        @Override
+        public void reconnect() {
+        }
+
+        @Override
+        public void disconnect() {
+        }
+
+        @Override
+        public ConnectionState getConnectionState() {
+            return ConnectionState.INITIALIZED;
+        }
+
+        @Override
+        public int getMtu() {
+            return 247;
+        }
+
+        @Override
+        public void setConnectionStateListener(OnConnectionStateChangeListener listener) {
+        }
+
+        @Override
+        public void setOnRxDataListener(OnRxDataListener listener) {
+            this.listener = listener;
+        }
+
+        @Override
+        public boolean send(byte[] data) {
+            return true;
+        }
+    }
+
+    private final FakeTransport left = new FakeTransport();
+    private final FakeTransport right = new FakeTransport();
+    private final ConnectionManager manager = new ConnectionManager(left, right);
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong checksum = new AtomicLong();
+
+    @After
+    public void tearDown() {
+        manager.shutdown();
+    }
+
+    @Test
+    public void audioStreamAllocatesNothingPerPacket() throws Exception {
+        manager.addResponseListener(new EvenOsEventListener<byte[]>() {
+            @Override
+            public boolean matches(byte[] data, EvenOsApi.Sides side) {
+                return data[0] == (byte) 0xF1;
+            }
+
+            @Override
+            public byte[] parse(byte[] data, EvenOsApi.Sides side) {
+                return data;
+            }
+        }, (byte[] data, EvenOsApi.Sides side) -> {
+            checksum.addAndGet(data[1]);
+            received.incrementAndGet();
+        });
+        manager.connect();
+
+        byte[] packet = new byte[202];
+        packet[0] = (byte) 0xF1;
+        stream(packet, WARMUP_PACKETS);
+
+        long loopThreadId = loopThreadId(EvenOsApi.Sides.RIGHT);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long producerThreadId = Thread.currentThread().getId();
+
+        long producerBefore = threads.getThreadAllocatedBytes(producerThreadId);
+        long loopBefore = threads.getThreadAllocatedBytes(loopThreadId);
+        stream(packet, MEASURED_PACKETS);
+        long producerBytes = threads.getThreadAllocatedBytes(producerThreadId) - producerBefore;
+        long loopBytes = threads.getThreadAllocatedBytes(loopThreadId) - loopBefore;
+
+        assertEquals(WARMUP_PACKETS + MEASURED_PACKETS, received.get());
+        assertEquals(0, manager.getRxBufferRing(EvenOsApi.Sides.RIGHT).getOverflows());
+        // Less than a byte per packet: what is left is measurement noise, not per packet garbage
+        assertTrue("producer allocated " + producerBytes + " bytes", producerBytes < MEASURED_PACKETS);
+        assertTrue("event loop allocated " + loopBytes + " bytes", loopBytes < MEASURED_PACKETS);
+    }
+
+    /**
+     * Push packets on the right arm, without getting ahead of the ring
+     */
+    private void stream(byte[] packet, int count) {
+        long target = received.get() + count;
+        RxBufferRing ring = manager.getRxBufferRing(EvenOsApi.Sides.RIGHT);
+        for (int i = 0; i < count; i++) {
+            while (ring.size() >= ring.capacity()) {
+                Thread.yield();
+            }
+            packet[1] = (byte) i;
+            right.listener.onDataReceived(packet);
+        }
+        while (received.get() < target) {
+            Thread.yield();
+        }
+    }
+
+    private long loopThreadId(EvenOsApi.Sides side) throws InterruptedException {
+        AtomicLong id = new AtomicLong();
+        CountDownLatch latch = new CountDownLatch(1);
+        manager.getEventLoop(side).execute(() -> {
+            id.set(Thread.currentThread().getId());
+            latch.countDown();
+        });
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+        return id.get();
+    }
+}
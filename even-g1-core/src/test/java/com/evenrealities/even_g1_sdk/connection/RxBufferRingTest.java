@@ -0,0 +1,129 @@
+package com.evenrealities.even_g1_sdk.connection;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class RxBufferRingTest {
+
+    @Test
+    public void packetsAreReadInOrderAndBuffersAreReused() {
+        RxBufferRing ring = new RxBufferRing(4);
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 4; i++) {
+                assertTrue(ring.offer(new byte[]{(byte) 0xF1, (byte) i}));
+            }
+            for (int i = 0; i < 4; i++) {
+                RxBufferRing.Buffer buffer = ring.poll();
+                assertArrayEquals(new byte[]{(byte) 0xF1, (byte) i}, buffer.data());
+                ring.release(buffer);
+            }
+            assertNull(ring.poll());
+        }
+        // One array per buffer, allocated on first use only
+        assertEquals(4, ring.getReallocations());
+    }
+
+    @Test
+    public void fullRingDropsPacketsUntilBuffersAreReleased() {
+        RxBufferRing ring = new RxBufferRing(2);
+        assertTrue(ring.offer(new byte[]{1}));
+        assertTrue(ring.offer(new byte[]{2}));
+        assertFalse(ring.offer(new byte[]{3}));
+        assertEquals(1, ring.getOverflows());
+
+        // Polled but not released: still owned by the consumer
+        RxBufferRing.Buffer first = ring.poll();
+        assertFalse(ring.offer(new byte[]{3}));
+        ring.release(first);
+        assertTrue(ring.offer(new byte[]{3}));
+        assertEquals(2, ring.size());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void buffersMustBeReleasedInOrder() {
+        RxBufferRing ring = new RxBufferRing(4);
+        ring.offer(new byte[]{1});
+        ring.offer(new byte[]{2});
+        ring.poll();
+        RxBufferRing.Buffer second = ring.poll();
+        ring.release(second);
+    }
+
+    @Test
+    public void consumersSeeEveryPacketInOrder() throws Exception {
+        RxBufferRing ring = new RxBufferRing(8);
+        List<Integer> blocking = Collections.synchronizedList(new ArrayList<>());
+        List<Integer> yielding = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(2);
+        RxConsumer first = new RxConsumer("rx-blocking", ring, WaitStrategy.blocking(), (data, sequence, endOfBatch) -> {
+            blocking.add((int) data[1]);
+            if (data[1] == 99) {
+                done.countDown();
+            }
+        }).start();
+        RxConsumer second = new RxConsumer("rx-yielding", ring, WaitStrategy.yielding(), (data, sequence, endOfBatch) -> {
+            yielding.add((int) data[1]);
+            if (data[1] == 99) {
+                done.countDown();
+            }
+        }).start();
+        try {
+            for (int i = 0; i < 100; i++) {
+                byte[] packet = {(byte) 0xF1, (byte) i};
+                // The producer never waits, it retries while the consumers catch up
+                while (!ring.offer(packet)) {
+                    RxBufferRing.Buffer buffer;
+                    while ((buffer = ring.poll()) != null) {
+                        ring.release(buffer);
+                    }
+                    Thread.yield();
+                }
+            }
+            assertTrue(done.await(2, TimeUnit.SECONDS));
+            for (int i = 0; i < 100; i++) {
+                assertEquals(i, (int) blocking.get(i));
+                assertEquals(i, (int) yielding.get(i));
+            }
+        } finally {
+            first.halt();
+            second.halt();
+        }
+    }
+
+    @Test
+    public void slowestConsumerGatesTheRingAndOverflowsAreCounted() throws Exception {
+        RxBufferRing ring = new RxBufferRing(4);
+        CountDownLatch release = new CountDownLatch(1);
+        RxConsumer stalled = new RxConsumer("rx-stalled", ring, WaitStrategy.blocking(), (data, sequence, endOfBatch) -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }).start();
+        try {
+            for (int i = 0; i < 6; i++) {
+                ring.offer(new byte[]{(byte) 0xF1, (byte) i, 0x00});
+                RxBufferRing.Buffer buffer = ring.poll();
+                if (buffer != null) {
+                    ring.release(buffer);
+                }
+            }
+            // The event loop kept up, the stalled consumer holds the 4 buffers
+            assertEquals(2, ring.getOverflows());
+            assertEquals(6, ring.getDroppedBytes());
+            assertEquals(4, stalled.getLag());
+        } finally {
+            stalled.halt();
+            release.countDown();
+        }
+        assertTrue(ring.offer(new byte[]{(byte) 0xF1}));
+    }
+}
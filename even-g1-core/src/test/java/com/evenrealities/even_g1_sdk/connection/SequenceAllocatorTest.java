@@ -0,0 +1,32 @@
+package com.evenrealities.even_g1_sdk.connection;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SequenceAllocatorTest {
+
+    @Test
+    public void eachOpcodeHasItsOwnWrappingCounter() {
+        SequenceAllocator allocator = new SequenceAllocator();
+        assertEquals(0, allocator.next(0x25));
+        assertEquals(1, allocator.next(0x25));
+        assertEquals(0, allocator.next(0x26));
+        for (int i = 2; i < 256; i++) {
+            assertEquals(i, allocator.next(0x25));
+        }
+        assertEquals(0, allocator.next(0x25));
+    }
+
+    @Test
+    public void bothArmsGetANumberNewForEach() {
+        SequenceAllocator left = new SequenceAllocator();
+        SequenceAllocator right = new SequenceAllocator();
+        left.next(0x25);
+        left.next(0x25);
+        right.next(0x25);
+        assertEquals(2, SequenceAllocator.next(left, right, 0x25));
+        assertEquals(3, left.peek(0x25));
+        assertEquals(3, right.peek(0x25));
+    }
+}
@@ -0,0 +1,71 @@
+package com.evenrealities.even_g1_sdk.connection;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class TimingWheelTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    public void timersFireInOrderNeverEarly() {
+        TimingWheel wheel = new TimingWheel(10, 8, 0);
+        List<String> fired = new ArrayList<>();
+        wheel.schedule(() -> fired.add("25ms"), 25 * MS, 0);
+        wheel.schedule(() -> fired.add("5ms"), 5 * MS, 0);
+        // Further than one turn of the wheel (80ms)
+        wheel.schedule(() -> fired.add("200ms"), 200 * MS, 0);
+
+        wheel.advance(4 * MS);
+        assertTrue(fired.isEmpty());
+        wheel.advance(20 * MS);
+        assertEquals(1, fired.size());
+        wheel.advance(35 * MS);
+        assertEquals(2, fired.size());
+        wheel.advance(199 * MS);
+        assertEquals(2, fired.size());
+        wheel.advance(215 * MS);
+        assertEquals(3, fired.size());
+        assertEquals("5ms", fired.get(0));
+        assertEquals("25ms", fired.get(1));
+        assertEquals("200ms", fired.get(2));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void cancelledTimersNeverFire() {
+        TimingWheel wheel = new TimingWheel(10, 8, 0);
+        List<String> fired = new ArrayList<>();
+        TimingWheel.Timeout first = wheel.schedule(() -> fired.add("first"), 30 * MS, 0);
+        TimingWheel.Timeout second = wheel.schedule(() -> fired.add("second"), 30 * MS, 0);
+        // A task cancelling a timer of the same bucket
+        wheel.schedule(() -> second.cancel(), 30 * MS, 0);
+
+        assertTrue(first.cancel());
+        assertFalse(first.cancel());
+        wheel.advance(100 * MS);
+        assertTrue(fired.isEmpty());
+        assertFalse(second.isPending());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void thousandsOfTimersOnlyCostTheirBucket() {
+        TimingWheel wheel = new TimingWheel(10, 512, 0);
+        int[] fired = new int[1];
+        for (int i = 0; i < 10_000; i++) {
+            wheel.schedule(() -> fired[0]++, (1000 + i) * MS, 0);
+        }
+        wheel.advance(500 * MS);
+        assertEquals(0, fired[0]);
+        wheel.advance(1100 * MS);
+        assertTrue(fired[0] > 0 && fired[0] < 10_000);
+        wheel.advance(20_000 * MS);
+        assertEquals(10_000, fired[0]);
+    }
+}
@@ -0,0 +1,95 @@
+package com.evenrealities.even_g1_sdk.gesture;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.evenrealities.even_g1_sdk.api.EvenOsApi;
+import com.evenrealities.even_g1_sdk.connection.EventBus;
+
+import static org.junit.Assert.*;
+
+public class GestureRecognizerTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000_000L);
+    private final List<GestureEvent> events = new ArrayList<>();
+    private final GestureRecognizer recognizer = new GestureRecognizer(200, null, events::add, now::get);
+
+    private void advanceMillis(long millis) {
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    @Test
+    public void gestureOfBothArmsIsEmittedOnce() {
+        EventBus bus = new EventBus();
+        recognizer.attach(bus, new EvenOsApi(null));
+
+        bus.dispatch(new byte[]{(byte) 0xF5, 0x00}, EvenOsApi.Sides.RIGHT);
+        advanceMillis(15);
+        bus.dispatch(new byte[]{(byte) 0xF5, 0x00}, EvenOsApi.Sides.LEFT);
+
+        assertEquals(1, events.size());
+        assertEquals(Gesture.DOUBLE_TAP, events.get(0).gesture);
+        assertEquals(EvenOsApi.Sides.RIGHT, events.get(0).side);
+        assertEquals(1, recognizer.getDuplicateCount());
+        assertEquals(1, recognizer.getCrossArmSkew().getCount());
+        assertEquals(1, recognizer.getLatency().getCount());
+
+        // Not a gesture
+        bus.dispatch(new byte[]{(byte) 0xF5, 0x06}, EvenOsApi.Sides.LEFT);
+        assertEquals(1, events.size());
+
+        recognizer.close();
+        assertEquals(0, bus.size());
+    }
+
+    @Test
+    public void sameGestureAfterTheWindowIsANewGesture() {
+        assertTrue(recognizer.onGesture(Gesture.SINGLE_TAP, EvenOsApi.Sides.LEFT));
+        advanceMillis(150);
+        assertFalse(recognizer.onGesture(Gesture.SINGLE_TAP, EvenOsApi.Sides.LEFT));
+        advanceMillis(100);
+        assertTrue(recognizer.onGesture(Gesture.SINGLE_TAP, EvenOsApi.Sides.RIGHT));
+        // Other gestures have their own window
+        assertTrue(recognizer.onGesture(Gesture.TRIPLE_TAP, EvenOsApi.Sides.RIGHT));
+        assertEquals(3, recognizer.getRecognizedCount());
+    }
+
+    @Test
+    public void longPressIsHeldAndReleasedOnce() {
+        assertTrue(recognizer.onGesture(Gesture.LONG_PRESS_HELD, EvenOsApi.Sides.LEFT));
+        advanceMillis(10);
+        assertFalse(recognizer.onGesture(Gesture.LONG_PRESS_HELD, EvenOsApi.Sides.RIGHT));
+        // Held longer than the window
+        advanceMillis(1000);
+        assertFalse(recognizer.onGesture(Gesture.LONG_PRESS_HELD, EvenOsApi.Sides.LEFT));
+        assertTrue(recognizer.onGesture(Gesture.LONG_PRESS_RELEASE, EvenOsApi.Sides.LEFT));
+        advanceMillis(10);
+        assertFalse(recognizer.onGesture(Gesture.LONG_PRESS_RELEASE, EvenOsApi.Sides.RIGHT));
+
+        // The next press
+        advanceMillis(500);
+        assertTrue(recognizer.onGesture(Gesture.LONG_PRESS_HELD, EvenOsApi.Sides.RIGHT));
+        assertTrue(recognizer.onGesture(Gesture.LONG_PRESS_RELEASE, EvenOsApi.Sides.RIGHT));
+
+        assertEquals(4, events.size());
+        assertEquals(Gesture.LONG_PRESS_HELD, events.get(2).gesture);
+        assertEquals(Gesture.LONG_PRESS_RELEASE, events.get(3).gesture);
+    }
+
+    @Test
+    public void pressWhoseReleaseWasLostExpires() {
+        assertTrue(recognizer.onGesture(Gesture.LONG_PRESS_HELD, EvenOsApi.Sides.LEFT));
+        assertFalse(recognizer.onGesture(Gesture.LONG_PRESS_HELD, EvenOsApi.Sides.RIGHT));
+        // The release never arrives from either arm, the next press is still emitted
+        advanceMillis(GestureRecognizer.HELD_TIMEOUT_MILLIS);
+        assertTrue(recognizer.onGesture(Gesture.LONG_PRESS_HELD, EvenOsApi.Sides.RIGHT));
+        advanceMillis(10);
+        assertFalse(recognizer.onGesture(Gesture.LONG_PRESS_HELD, EvenOsApi.Sides.LEFT));
+        assertTrue(recognizer.onGesture(Gesture.LONG_PRESS_RELEASE, EvenOsApi.Sides.LEFT));
+        assertEquals(3, events.size());
+    }
+}
@@ -0,0 +1,64 @@
+package com.evenrealities.even_g1_sdk.protocol;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import com.evenrealities.even_g1_sdk.api.ChunkPlanner;
+import com.evenrealities.even_g1_sdk.api.EvenOsApi;
+
+import static org.junit.Assert.*;
+
+public class ProtocolCodecTest {
+
+    @Test
+    public void encodersWriteTheLayoutsOfTheSpec() {
+        byte[] buffer = new byte[16];
+        int length = new HeartbeatEncoder().wrap(buffer, 2).seq(0x41).seq2(0x42).encodedLength();
+        assertEquals(6, length);
+        assertArrayEquals(new byte[]{0x25, 0x06, 0x00, 0x41, 0x04, 0x42},
+            Arrays.copyOfRange(buffer, 2, 2 + length));
+
+        // Fields left unset are zeroed, even in a reused buffer
+        new BrightnessEncoder().wrap(buffer, 0).level(0x3F);
+        assertArrayEquals(new byte[]{0x01, 0x3F, 0x00}, Arrays.copyOf(buffer, 3));
+
+        new BitmapCrcEncoder().wrap(buffer, 0).crc(0xCAFEBABEL);
+        assertArrayEquals(new byte[]{0x16, (byte) 0xCA, (byte) 0xFE, (byte) 0xBA, (byte) 0xBE},
+            Arrays.copyOf(buffer, 5));
+    }
+
+    @Test
+    public void textPacketsCarryTheirHeader() {
+        byte[] text = "Hello".getBytes(StandardCharsets.UTF_8);
+        ChunkPlanner.Plan plan = ChunkPlanner.plan(ChunkPlanner.Format.TEXT, text.length, 509);
+        byte[][] packets = EvenOsApi.encodeText(text, plan, 7);
+        assertArrayEquals(new byte[]{0x4E, 0x07, 0x01, 0x00, 0x71, 0x00, 0x00, 0x01, 0x01, 'H', 'e', 'l', 'l', 'o'},
+            packets[0]);
+    }
+
+    @Test
+    public void decodersMatchTheirMessage() {
+        byte[] battery = {(byte) 0xF5, 0x0A, 0x40};
+        assertTrue(GlassesBatteryDecoder.matches(battery, 0, 3));
+        assertEquals(64, new GlassesBatteryDecoder().wrap(battery, 0, 3).level());
+        // Another subcode, a packet shorter than the message
+        assertFalse(CaseBatteryDecoder.matches(battery, 0, 3));
+        assertFalse(GlassesBatteryDecoder.matches(battery, 0, 2));
+
+        // A message without subcode matches every packet of its opcode
+        byte[] tap = {(byte) 0xF5, 0x01};
+        assertTrue(DeviceEventDecoder.matches(tap, 0, 2));
+        assertTrue(DeviceEventDecoder.matches(battery, 0, 3));
+        assertEquals(1, new DeviceEventDecoder().wrap(tap, 0, 2).code());
+
+        byte[] audio = {0x00, (byte) 0xF1, 0x09, 0x01, 0x02, 0x03};
+        assertTrue(AudioDecoder.matches(audio, 1, 5));
+        AudioDecoder decoder = new AudioDecoder().wrap(audio, 1, 5);
+        byte[] lc3 = new byte[decoder.lc3Length()];
+        decoder.getLc3(lc3, 0);
+        assertEquals(9, decoder.seq());
+        assertArrayEquals(new byte[]{0x01, 0x02, 0x03}, lc3);
+    }
+}
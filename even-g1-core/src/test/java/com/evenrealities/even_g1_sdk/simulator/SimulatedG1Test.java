@@ -0,0 +1,252 @@
+package com.evenrealities.even_g1_sdk.simulator;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.evenrealities.even_g1_sdk.api.EvenOsApi;
+import com.evenrealities.even_g1_sdk.api.EvenOsCommand;
+import com.evenrealities.even_g1_sdk.api.EvenOsEventListener;
+import com.evenrealities.even_g1_sdk.connection.ConnectionManager;
+import com.evenrealities.even_g1_sdk.connection.DualResult;
+import com.evenrealities.even_g1_sdk.connection.FanOut;
+import com.evenrealities.even_g1_sdk.connection.OrderingPolicy;
+import com.evenrealities.even_g1_sdk.connection.Transport;
+
+import static org.junit.Assert.*;
+import static com.evenrealities.even_g1_sdk.simulator.SimulatorFixture.await;
+
+/**
+ * End to end tests of the SDK against the simulated glasses.
+ */
+public class SimulatedG1Test {
+
+    private final SimulatorFixture simulator = new SimulatorFixture();
+    private SimulatedG1 glasses;
+    private ConnectionManager manager;
+
+    private EvenOsApi connect(LinkProfile profile) throws InterruptedException {
+        EvenOsApi api = simulator.connect(profile);
+        glasses = simulator.getGlasses();
+        manager = simulator.getManager();
+        return api;
+    }
+
+    @After
+    public void tearDown() {
+        simulator.shutdown();
+    }
+
+    @Test
+    public void sendText_isDisplayedOnLeftArm() throws Exception {
+        EvenOsApi api = connect(LinkProfile.IDEAL);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            text.append("line ").append(i).append('\n');
+        }
+        api.sendText(text.toString());
+        await(() -> text.toString().equals(glasses.getLeft().getDisplayedText()));
+        int length = text.toString().getBytes(StandardCharsets.UTF_8).length;
+        assertEquals((length + 179) / 180, glasses.getLeft().getPacketsReceived());
+        assertEquals(0, glasses.getRight().getPacketsReceived());
+    }
+
+    @Test
+    public void batteryQuery_returnsSimulatedLevel() throws Exception {
+        EvenOsApi api = connect(new LinkProfile(251, 2, 3, 0.0, 42L));
+        glasses.getRight().setBatteryLevel(57);
+        assertEquals(57, api.getBatteryInfo(EvenOsApi.Sides.RIGHT));
+    }
+
+    @Test
+    public void packetsLargerThanMtu_areRejected() throws Exception {
+        connect(new LinkProfile(23, 0, 0, 0.0, 0L));
+        assertFalse(glasses.getLeft().send(new byte[21]));
+        assertTrue(glasses.getLeft().send(new byte[20]));
+        assertEquals(1, glasses.getLeft().getPacketsRejected());
+    }
+
+    @Test
+    public void packetLoss_isReproducibleWithSameSeed() throws Exception {
+        long[] lost = new long[2];
+        for (int run = 0; run < 2; run++) {
+            connect(new LinkProfile(512, 0, 0, 0.3, 7L));
+            SimulatedArm left = glasses.getLeft();
+            for (int i = 0; i < 200; i++) {
+                left.send(new byte[]{0x23, 0x72}); // no response, only the uplink can lose it
+            }
+            await(() -> left.getPacketsReceived() + left.getPacketsLost() == 200);
+            lost[run] = left.getPacketsLost();
+            simulator.shutdown();
+        }
+        assertTrue(lost[0] > 0);
+        assertEquals(lost[0], lost[1]);
+    }
+
+    @Test
+    public void failedWrite_onlyThatPacketIsSentAgain() throws Exception {
+        connect(LinkProfile.IDEAL);
+        manager.getRetryPolicy().setBackoff(1, 1);
+        SimulatedArm left = glasses.getLeft();
+        byte[][] packets = new byte[5][];
+        for (int i = 0; i < packets.length; i++) {
+            packets[i] = new byte[]{0x23, 0x72}; // no response
+        }
+        left.failWriteAfter(2);
+        manager.sendCommand(new EvenOsCommand<byte[]>(packets, null, EvenOsApi.Sides.LEFT));
+        // Packet 2 is written again once the link reported its write failed, the others only once
+        await(() -> left.getPacketsReceived() == 5);
+        Thread.sleep(50);
+        assertEquals(5, left.getPacketsReceived());
+        assertEquals(1, manager.getScheduler(EvenOsApi.Sides.LEFT).getRetryMetrics().getPacketRetries(0x23));
+    }
+
+    @Test
+    public void sendBoth_reportsEachArm() throws Exception {
+        EvenOsApi api = connect(LinkProfile.IDEAL);
+        EvenOsCommand<byte[]> brightness = new EvenOsCommand<>(new byte[]{0x01, 0x10, 0x00}, new byte[]{0x01}, EvenOsApi.Sides.BOTH);
+        DualResult<byte[]> result = manager.sendBothAndWait(brightness, 1000);
+        assertTrue(result.isSuccess());
+        assertArrayEquals(new byte[]{0x01, (byte) 0xC9}, result.left.value);
+        assertArrayEquals(new byte[]{0x01, (byte) 0xC9}, result.right.value);
+        assertTrue(result.left.latencyNanos > 0 && result.right.latencyNanos > 0);
+        assertTrue(api.setBrightness(50, false));
+
+        // A setting is only applied when both arms confirm it
+        glasses.getRight().disconnect();
+        await(() -> !manager.isSideInitialized(EvenOsApi.Sides.RIGHT));
+        assertFalse(api.setBrightness(50, false));
+        FanOut<byte[]> fanOut = manager.sendBoth(brightness);
+        assertEquals(EvenOsApi.Sides.LEFT, fanOut.anyOf().get(1, TimeUnit.SECONDS).side);
+        result = fanOut.allOf().get(1, TimeUnit.SECONDS);
+        assertFalse(result.isSuccess());
+        assertTrue(result.isAnySuccess());
+        assertTrue(result.right.error instanceof IllegalStateException);
+    }
+
+    @Test
+    public void orderedCommand_reachesRightArmOnceLeftAccepted() throws Exception {
+        // The listener runs right after the command completes: the latency keeps the right leg in flight meanwhile
+        connect(new LinkProfile(251, 20, 0, 0.0, 42L));
+        AtomicLong rightPacketsWhenLeftAnswered = new AtomicLong(-1);
+        manager.getOrderingPolicy().setOrdering(0x2C, OrderingPolicy.Ordering.LEFT_THEN_RIGHT);
+        manager.addResponseListener(new EvenOsEventListener<byte[]>() {
+            @Override
+            public boolean matches(byte[] data, EvenOsApi.Sides side) {
+                return data[0] == 0x2C && side == EvenOsApi.Sides.LEFT;
+            }
+
+            @Override
+            public byte[] parse(byte[] data, EvenOsApi.Sides side) {
+                return data;
+            }
+        }, (data, side) -> rightPacketsWhenLeftAnswered.set(glasses.getRight().getPacketsReceived()));
+
+        EvenOsCommand<byte[]> battery = new EvenOsCommand<>(new byte[]{0x2C, 0x01}, new byte[]{0x2C, 0x66}, EvenOsApi.Sides.BOTH);
+        byte[] response = manager.sendCommand(battery).get(1, TimeUnit.SECONDS);
+        // The right arm only got the command once the left one answered
+        await(() -> rightPacketsWhenLeftAnswered.get() >= 0);
+        assertEquals(0, rightPacketsWhenLeftAnswered.get());
+        assertEquals(0x2C, response[0]);
+        await(() -> glasses.getRight().getPacketsReceived() == 1);
+    }
+
+    @Test
+    public void deviceEvents_reachResponseListeners() throws Exception {
+        EvenOsApi api = connect(LinkProfile.IDEAL);
+        CountDownLatch latch = new CountDownLatch(1);
+        AtomicInteger level = new AtomicInteger();
+        manager.addResponseListener(api.onGlassesBattery(), (data, side) -> {
+            level.set((Integer) data);
+            latch.countDown();
+        });
+        glasses.fireEvent(EvenOsApi.Sides.RIGHT, 0x0A, (byte) 32);
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+        assertEquals(50, level.get());
+    }
+
+    @Test
+    public void microphone_streamsAudioFromRightArm() throws Exception {
+        EvenOsApi api = connect(LinkProfile.IDEAL);
+        glasses.getRight().setAudioIntervalMillis(5);
+        CountDownLatch latch = new CountDownLatch(10);
+        manager.addResponseListener(new EvenOsEventListener<byte[]>() {
+            @Override
+            public boolean matches(byte[] data, EvenOsApi.Sides side) {
+                return data[0] == (byte) 0xF1;
+            }
+
+            @Override
+            public byte[] parse(byte[] data, EvenOsApi.Sides side) {
+                return data;
+            }
+        }, (data, side) -> latch.countDown());
+        api.setMicrophoneEnabled(true);
+        assertTrue(latch.await(2, TimeUnit.SECONDS));
+        api.setMicrophoneEnabled(false);
+    }
+
+    @Test
+    public void callbacksRunOnTheLoopOfEachArm() throws Exception {
+        manager = simulator.create(LinkProfile.IDEAL);
+        CountDownLatch initialized = new CountDownLatch(2);
+        AtomicReference<String> leftThread = new AtomicReference<>();
+        AtomicReference<String> rightThread = new AtomicReference<>();
+        manager.setConnectionStateListener(EvenOsApi.Sides.LEFT, state -> {
+            if (state == Transport.ConnectionState.INITIALIZED) {
+                leftThread.set(Thread.currentThread().getName());
+                initialized.countDown();
+            }
+        });
+        manager.setConnectionStateListener(EvenOsApi.Sides.RIGHT, state -> {
+            if (state == Transport.ConnectionState.INITIALIZED) {
+                rightThread.set(Thread.currentThread().getName());
+                initialized.countDown();
+            }
+        });
+        manager.connect();
+        assertTrue(initialized.await(1, TimeUnit.SECONDS));
+        assertEquals("EvenG1-LEFT", leftThread.get());
+        assertEquals("EvenG1-RIGHT", rightThread.get());
+    }
+
+    @Test
+    public void sendAndWait_fromArmLoop_failsInsteadOfDeadlocking() throws Exception {
+        connect(LinkProfile.IDEAL);
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(1);
+        manager.getEventLoop(EvenOsApi.Sides.LEFT).execute(() -> {
+            try {
+                manager.sendAndWait(new EvenOsCommand<byte[]>(new byte[]{0x2C, 0x01}, new byte[]{0x2C}, EvenOsApi.Sides.LEFT), 1000);
+            } catch (Throwable t) {
+                error.set(t);
+            }
+            done.countDown();
+        });
+        assertTrue(done.await(1, TimeUnit.SECONDS));
+        assertTrue(error.get() instanceof IllegalStateException);
+    }
+
+    @Test
+    public void conflictingCommandsAreQueuedInsteadOfRejected() throws Exception {
+        connect(new LinkProfile(247, 2, 2, 0.0, 3L));
+        glasses.getLeft().setBatteryLevel(42);
+        List<CompletableFuture<byte[]>> futures = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            futures.add(manager.sendCommand(new EvenOsCommand<byte[]>(new byte[]{0x2C, 0x01}, new byte[]{0x2C}, EvenOsApi.Sides.LEFT)));
+        }
+        for (CompletableFuture<byte[]> future : futures) {
+            assertEquals(42, future.get(1, TimeUnit.SECONDS)[2]);
+        }
+        assertEquals(5, manager.getScheduler(EvenOsApi.Sides.LEFT).getCompletedCount());
+    }
+}
@@ -0,0 +1,69 @@
+package com.evenrealities.even_g1_sdk.simulator;
+
+import java.util.function.BooleanSupplier;
+
+import com.evenrealities.even_g1_sdk.api.EvenOsApi;
+import com.evenrealities.even_g1_sdk.connection.ConnectionManager;
+
+import static org.junit.Assert.*;
+
+/**
+ * Simulated glasses and the ConnectionManager of a test, shut down by the @After of the test.
+ */
+public class SimulatorFixture {
+
+    private SimulatedG1 glasses;
+    private ConnectionManager manager;
+
+    /**
+     * Create the glasses and their ConnectionManager, not connected yet
+     */
+    public ConnectionManager create(LinkProfile profile) {
+        glasses = new SimulatedG1(profile);
+        manager = glasses.createConnectionManager();
+        return manager;
+    }
+
+    /**
+     * Create the glasses and connect both arms
+     */
+    public EvenOsApi connect(LinkProfile profile) throws InterruptedException {
+        ConnectionManager connected = create(profile);
+        connected.connect();
+        await(() -> connected.isSideInitialized(EvenOsApi.Sides.BOTH));
+        return new EvenOsApi(connected);
+    }
+
+    public SimulatedG1 getGlasses() {
+        return glasses;
+    }
+
+    public ConnectionManager getManager() {
+        return manager;
+    }
+
+    /**
+     * Shut the manager and the glasses down, if they were created
+     */
+    public void shutdown() {
+        if (manager != null) {
+            manager.shutdown();
+            manager = null;
+        }
+        if (glasses != null) {
+            glasses.shutdown();
+            glasses = null;
+        }
+    }
+
+    /**
+     * Wait for a condition, the test fails if it isn't met within 2 seconds
+     */
+    public static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (!condition.getAsBoolean()) {
+            assertTrue("condition not met in time", System.currentTimeMillis() < deadline);
+            Thread.sleep(1);
+        }
+    }
+}
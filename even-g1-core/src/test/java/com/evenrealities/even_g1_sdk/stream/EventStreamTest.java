@@ -0,0 +1,149 @@
+package com.evenrealities.even_g1_sdk.stream;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.evenrealities.even_g1_sdk.api.EvenOsApi;
+import com.evenrealities.even_g1_sdk.connection.EventBus;
+
+import static org.junit.Assert.*;
+
+public class EventStreamTest {
+
+    private final EvenOsApi api = new EvenOsApi(null);
+    private final EventBus bus = new EventBus();
+    private final Executor direct = Runnable::run;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    /**
+     * Records the items, requests them one by one on demand
+     */
+    private static final class Recorder<T> implements Flow.Subscriber<T> {
+        final List<T> items = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch completed = new CountDownLatch(1);
+        volatile Flow.Subscription subscription;
+        volatile Throwable error;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(T item) {
+            items.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            completed.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completed.countDown();
+        }
+    }
+
+    private void battery(int percent) {
+        bus.dispatch(new byte[]{(byte) 0xF5, 0x0A, (byte) (percent * 64 / 100)}, EvenOsApi.Sides.LEFT);
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void subscriberOnlyGetsWhatItRequestedLatestAreKept() {
+        EventStream<Integer> stream = EventStream.from(bus, api.onGlassesBattery(), EvenOsApi.Sides.BOTH,
+            direct, 2, BufferPolicy.DROP_OLDEST);
+        Recorder<Integer> slow = new Recorder<>();
+        stream.subscribe(slow);
+        assertEquals(1, bus.size());
+
+        for (int level = 1; level <= 4; level++) {
+            battery(level * 25);
+        }
+        assertTrue(slow.items.isEmpty());
+        assertEquals(2, stream.getDroppedCount());
+        slow.subscription.request(5);
+        assertEquals(Arrays.asList(75, 100), slow.items);
+
+        // The last subscriber leaving disconnects the source
+        slow.subscription.cancel();
+        assertEquals(0, bus.size());
+    }
+
+    @Test
+    public void failPolicyEndsTheSubscriptionOfASlowSubscriber() {
+        EventStream<Integer> stream = EventStream.from(bus, api.onGlassesBattery(), EvenOsApi.Sides.BOTH,
+            direct, 1, BufferPolicy.FAIL);
+        Recorder<Integer> slow = new Recorder<>();
+        stream.subscribe(slow);
+        battery(50);
+        battery(75);
+        assertTrue(slow.error instanceof BufferOverflowException);
+    }
+
+    @Test
+    public void bufferGroupsEventsInLists() {
+        EventStream<List<Integer>> stream = EventStream.from(bus, api.onGlassesBattery(), EvenOsApi.Sides.BOTH,
+            direct, 8, BufferPolicy.DROP_LATEST).buffer(2);
+        Recorder<List<Integer>> recorder = new Recorder<>();
+        stream.subscribe(recorder);
+        recorder.subscription.request(Long.MAX_VALUE);
+        for (int level = 1; level <= 5; level++) {
+            battery(level * 25);
+        }
+        assertEquals(Arrays.asList(Arrays.asList(25, 50), Arrays.asList(75, 100)), recorder.items);
+    }
+
+    @Test
+    public void debounceKeepsTheLastEventOfABurst() throws Exception {
+        EventStream<Integer> stream = EventStream.from(bus, api.onGlassesBattery(), EvenOsApi.Sides.BOTH,
+            direct, 8, BufferPolicy.DROP_OLDEST).debounce(30, TimeUnit.MILLISECONDS, scheduler);
+        Recorder<Integer> recorder = new Recorder<>();
+        stream.subscribe(recorder);
+        recorder.subscription.request(Long.MAX_VALUE);
+        for (int level = 1; level <= 4; level++) {
+            battery(level * 25);
+        }
+        long deadline = System.currentTimeMillis() + 1000;
+        while (recorder.items.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        Thread.sleep(50);
+        assertEquals(Collections.singletonList(100), recorder.items);
+    }
+
+    @Test
+    public void sampleEmitsTheLatestEventOfEachPeriod() throws Exception {
+        EventStream<Integer> stream = EventStream.from(bus, api.onGlassesBattery(), EvenOsApi.Sides.BOTH,
+            direct, 8, BufferPolicy.DROP_OLDEST).sample(20, TimeUnit.MILLISECONDS, scheduler);
+        Recorder<Integer> recorder = new Recorder<>();
+        stream.subscribe(recorder);
+        recorder.subscription.request(Long.MAX_VALUE);
+        battery(25);
+        battery(50);
+        long deadline = System.currentTimeMillis() + 1000;
+        while (recorder.items.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        // Quiet periods emit nothing
+        Thread.sleep(60);
+        assertTrue(recorder.items.size() <= 2);
+        assertEquals(Integer.valueOf(50), recorder.items.get(recorder.items.size() - 1));
+    }
+}
@@ -33,6 +33,7 @@ android {
 
 dependencies {
 
+    api(project(":even-g1-core"))
     implementation(libs.appcompat)
     implementation(libs.material)
     testImplementation(libs.junit)
@@ -0,0 +1,68 @@
+/**
+ * BleConnectionManager is the Android entry point of the SDK. It creates the left and right BLE
+ * `Connection` instances for a pair of bonded G1 devices and hands them to the core `ConnectionManager`,
+ * which owns the command queue and the response dispatch.
+ *
+ * It also routes the core module logs to logcat.
+ */
+
+package com.evenrealities.even_g1_sdk.connection;
+
+import java.util.UUID;
+
+import android.Manifest;
+import android.content.Context;
+import android.bluetooth.BluetoothDevice;
+
+import androidx.annotation.RequiresPermission;
+
+import com.evenrealities.even_g1_sdk.connection.ConnectionConfig;
+import com.evenrealities.even_g1_sdk.connection.Connection;
+import com.evenrealities.even_g1_sdk.connection.ConnectionManager;
+import com.evenrealities.even_g1_sdk.log.AndroidLogger;
+import com.evenrealities.even_g1_sdk.log.Log;
+import com.evenrealities.even_g1_sdk.log.Logger;
+
+public class BleConnectionManager extends ConnectionManager {
+
+    // UUIDs for UART service and characteristics
+    private static final UUID UartServiceUuid = UUID.fromString("6e400001-b5a3-f393-e0a9-e50e24dcca9e");
+    private static final UUID uartTxCharUuid = UUID.fromString("6e400002-b5a3-f393-e0a9-e50e24dcca9e");
+    private static final UUID uartRxCharUuid = UUID.fromString("6e400003-b5a3-f393-e0a9-e50e24dcca9e");
+    private static final UUID clientCharacteristicConfigUuid = UUID.fromString("00002902-0000-1000-8000-00805f9b34fb");
+    private static final int mtu = 512;
+
+    private static final ConnectionConfig config = new ConnectionConfig(UartServiceUuid, uartTxCharUuid, uartRxCharUuid, clientCharacteristicConfigUuid, mtu);
+
+    static {
+        // Route the core module logs to logcat, unless the app installed its own logger
+        if (Log.getLogger() == Logger.NONE) {
+            Log.setLogger(AndroidLogger.INSTANCE);
+        }
+    }
+
+    @RequiresPermission(Manifest.permission.BLUETOOTH_CONNECT)
+    public BleConnectionManager(Context context, BluetoothDevice leftDevice, BluetoothDevice rightDevice) {
+        super(new Connection(context, leftDevice, config), new Connection(context, rightDevice, config));
+    }
+
+    public static boolean isLeftDevice(BluetoothDevice device) {
+        String name = device.getName();
+        return name != null && name.startsWith("Even G1_81_L_");
+    }
+
+    public static boolean isRightDevice(BluetoothDevice device) {
+        String name = device.getName();
+        return name != null && name.startsWith("Even G1_81_R_");
+    }
+
+    @Override
+    public Connection getLeftConnection() {
+        return (Connection) super.getLeftConnection();
+    }
+
+    @Override
+    public Connection getRightConnection() {
+        return (Connection) super.getRightConnection();
+    }
+}
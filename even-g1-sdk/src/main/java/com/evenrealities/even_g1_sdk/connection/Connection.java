@@ -8,6 +8,21 @@
  * The class ensures the connection is properly initialized before usage, and automatically handles
  * reconnection, characteristic notification setup, and safe teardown.
  *
+ * GATT allows a single outstanding operation per connection, so every write, descriptor write and
+ * MTU request goes through an OperationQueue and the next one is started from the matching
+ * BluetoothGattCallback completion.
+ *
+ * Multi-packet transfers (sendBulk) use writes without response when the TX characteristic
+ * supports them, and fall back to acknowledged writes when the link degrades. BluetoothGatt
+ * accepts a single outstanding writeCharacteristic whatever its write type, so the credit window
+ * of the queue holds one credit: the writes are paced one after the other and only save the
+ * acknowledgement of the glasses.
+ *
+ * Writes are only queued by send and sendBulk: every packet is reported to the
+ * OnPacketWrittenListener once its write completed, failed or was dropped, so the
+ * ConnectionManager can reuse pooled packet buffers and send again the packets that never
+ * reached the glasses.
+ *
  * This structure allows external components (like ConnectionManager or G1Manager) to interface
  * with the BLE device in a simplified and robust way.
  */
@@ -15,12 +30,11 @@
 package com.evenrealities.even_g1_sdk.connection;
 
 import android.Manifest;
+import android.annotation.SuppressLint;
 import android.bluetooth.BluetoothDevice;
 import android.bluetooth.BluetoothManager;
 import android.bluetooth.BluetoothProfile;
 import android.content.Context;
-import android.os.Handler;
-import android.os.Looper;
 import android.util.Log;
 import androidx.annotation.NonNull;
 import androidx.annotation.RequiresPermission;
@@ -35,14 +49,21 @@ import java.util.UUID;
 import java.util.Arrays;
 
 import com.evenrealities.even_g1_sdk.connection.ConnectionConfig;
+import com.evenrealities.even_g1_sdk.connection.Transport;
 import com.evenrealities.even_g1_sdk.exception.BleInitializationException;
+import com.evenrealities.even_g1_sdk.log.Logger;
 
-public class Connection {
+public class Connection implements Transport {
 
     private BluetoothGatt gatt;
     private BluetoothGattCharacteristic txChar;
     private BluetoothGattCharacteristic rxChar;
     private OnRxDataListener rxDataListener;
+    private volatile OnPacketWrittenListener packetWrittenListener;
+    // One write at a time, a second writeCharacteristic would be refused by BluetoothGatt
+    private final OperationQueue operationQueue = new OperationQueue(new CreditWindow(1, 1,
+        CreditWindow.DEFAULT_DEGRADE_THRESHOLD, CreditWindow.DEFAULT_RECOVERY_THRESHOLD));
+    private volatile boolean bulkModeEnabled = true;
 
     private final Context context;
     private final BluetoothDevice device;
@@ -51,26 +72,15 @@ public class Connection {
     private final UUID uartRxCharUuid;
     private final UUID clientCharacteristicConfigUuid;
     private final int mtu;
+    private volatile int negotiatedMtu = DEFAULT_MTU;
 
     private static final String TAG = "EVEN_G1_Connection";
 
-    public enum ConnectionState {
-        DISCONNECTED,
-        CONNECTING,
-        CONNECTED,
-        INITIALIZING,
-        INITIALIZED,
-        DISCONNECTING
-    }
-
     private ConnectionState connectionState = ConnectionState.DISCONNECTED;
-    
-    public interface OnConnectionStateChangeListener {
-        void onConnectionStateChanged(ConnectionState state);
-    }
 
     private OnConnectionStateChangeListener connectionStateListener;
 
+    @Override
     public void setConnectionStateListener(OnConnectionStateChangeListener listener) {
         this.connectionStateListener = listener;
     }
@@ -93,9 +103,11 @@ public class Connection {
             if (newState == BluetoothProfile.STATE_CONNECTED) {
                 Log.i(TAG, "onConnectionStateChange: Connected, requesting MTU " + mtu);
                 setConnectionState( ConnectionState.CONNECTED);
-                gatt.requestMtu(mtu);
+                operationQueue.enqueue(OperationQueue.Type.MTU_REQUEST, () -> gatt.requestMtu(mtu));
             } else {
                 Log.w(TAG, "onConnectionStateChange: Disconnected");
+                negotiatedMtu = DEFAULT_MTU;
+                operationQueue.clear();
                 setConnectionState( ConnectionState.DISCONNECTED);
             }
         }
@@ -104,9 +116,11 @@ public class Connection {
         @RequiresPermission(Manifest.permission.BLUETOOTH_CONNECT)
         @Override
         public void onMtuChanged(BluetoothGatt gatt, int mtu, int status) {
+            operationQueue.complete(OperationQueue.Type.MTU_REQUEST, status == BluetoothGatt.GATT_SUCCESS);
             if (status == BluetoothGatt.GATT_SUCCESS) {
+                negotiatedMtu = mtu;
                 setConnectionState( ConnectionState.INITIALIZING);
-                Log.i(TAG, "onMtuChanged: Success, discovering services");
+                Log.i(TAG, "onMtuChanged: Success (mtu=" + mtu + "), discovering services");
                 gatt.discoverServices(); 
             } else {
                 Log.e(TAG, "onMtuChanged: Error negotiating MTU (status=" + status + ")");
@@ -122,7 +136,13 @@ public class Connection {
         public void onServicesDiscovered(BluetoothGatt gatt, int status) {
             if (status == BluetoothGatt.GATT_SUCCESS) {
                 Log.i(TAG, "onServicesDiscovered: Success, initializing");
-                new Handler(Looper.getMainLooper()).post(() -> init());               
+                // The descriptor write goes through the operation queue, no need to leave the callback thread
+                try {
+                    init();
+                } catch (BleInitializationException e) {
+                    Log.e(TAG, "onServicesDiscovered: Initialization failed", e);
+                    setConnectionState( ConnectionState.DISCONNECTED);
+                }
             } else {
                 Log.e(TAG, "onServicesDiscovered: Failed");
                 setConnectionState( ConnectionState.DISCONNECTED);
@@ -131,15 +151,36 @@ public class Connection {
 
         @Override   
         public void onCharacteristicChanged(BluetoothGatt gatt, BluetoothGattCharacteristic characteristic) {
-            Log.d(TAG, "onCharacteristicChanged: uuid=" + characteristic.getUuid());
+            // Hot path (audio streams): no logging string is built unless debug logs are enabled
+            boolean debug = com.evenrealities.even_g1_sdk.log.Log.isLoggable(Logger.DEBUG);
+            if (debug) {
+                Log.d(TAG, "onCharacteristicChanged: uuid=" + characteristic.getUuid());
+            }
             if (rxChar != null && characteristic.getUuid().equals(rxChar.getUuid())) {
+                // The listener copies the value, it is not cloned here
                 byte[] data = characteristic.getValue();
-                Log.d(TAG, "onCharacteristicChanged: Data received: " + Arrays.toString(data));
+                if (debug) {
+                    Log.d(TAG, "onCharacteristicChanged: Data received: " + Arrays.toString(data));
+                }
                 if (rxDataListener != null) {
                     rxDataListener.onDataReceived(data);
                 }
             }
         }
+
+        @Override
+        public void onCharacteristicWrite(BluetoothGatt gatt, BluetoothGattCharacteristic characteristic, int status) {
+            if (status != BluetoothGatt.GATT_SUCCESS) {
+                Log.w(TAG, "onCharacteristicWrite: Write failed (status=" + status + ")");
+            }
+            operationQueue.completeWrite(status == BluetoothGatt.GATT_SUCCESS);
+        }
+
+        @Override
+        public void onDescriptorWrite(BluetoothGatt gatt, BluetoothGattDescriptor descriptor, int status) {
+            Log.d(TAG, "onDescriptorWrite: uuid=" + descriptor.getUuid() + ", status=" + status);
+            operationQueue.complete(OperationQueue.Type.DESCRIPTOR_WRITE, status == BluetoothGatt.GATT_SUCCESS);
+        }
     };
 
 
@@ -157,6 +198,7 @@ public class Connection {
     }
 
     @RequiresPermission(Manifest.permission.BLUETOOTH_CONNECT)
+    @Override
     public void connect() {
         Log.i(TAG, "connect: Starting BLE connection");
         if (device == null) {
@@ -181,10 +223,19 @@ public class Connection {
     }
 
     @RequiresPermission(Manifest.permission.BLUETOOTH_CONNECT)
+    @Override
     public ConnectionState getConnectionState() {
         return connectionState;
     }
 
+    /**
+     * MTU negotiated with the device, DEFAULT_MTU until onMtuChanged succeeded
+     */
+    @Override
+    public int getMtu() {
+        return negotiatedMtu;
+    }
+
     /**
      * Initialize the connection
      */
@@ -213,6 +264,7 @@ public class Connection {
     }
 
     @RequiresPermission(Manifest.permission.BLUETOOTH_CONNECT)
+    @Override
     public void reconnect() {
         Log.i(TAG, "reconnect: Reconnecting BLE");
         if (device == null || context == null) {
@@ -227,8 +279,11 @@ public class Connection {
     }
 
     @RequiresPermission(Manifest.permission.BLUETOOTH_CONNECT)
+    @Override
     public void disconnect() {
         Log.i(TAG, "disconnect: Disconnecting BLE");
+        operationQueue.clear();
+        negotiatedMtu = DEFAULT_MTU;
         if (gatt != null) {
             gatt.disconnect();
             gatt.close();
@@ -240,25 +295,147 @@ public class Connection {
     } 
 
     /**
-     * Send data to the glasses
+     * Send data to the glasses.
+     * The write is queued and issued once the previous GATT operation completed.
      * @param data
+     * @return true if the write was queued
      */
     @RequiresPermission(Manifest.permission.BLUETOOTH_CONNECT)
+    @Override
     public boolean send(byte[] data) {
         if (txChar == null || gatt == null) {
             Log.w(TAG, "send: TX characteristic or GATT is null, cannot send");
             return false;
         }
+        operationQueue.enqueue(OperationQueue.Type.WRITE, new PacketWrite(data, false));
+        return true;
+    }
+
+    @Override
+    public boolean setOnPacketWrittenListener(OnPacketWrittenListener listener) {
+        this.packetWrittenListener = listener;
+        return true;
+    }
+
+    /**
+     * Write of a packet, reported to the OnPacketWrittenListener once completed or dropped
+     */
+    private final class PacketWrite implements OperationQueue.Operation {
+        private final byte[] data;
+        private final boolean noResponse;
+
+        PacketWrite(byte[] data, boolean noResponse) {
+            this.data = data;
+            this.noResponse = noResponse;
+        }
+
+        @SuppressLint("MissingPermission")
+        @Override
+        public boolean start() {
+            return noResponse ? writeNoResponse(data) : write(data);
+        }
+
+        @Override
+        public void onComplete(boolean success, long latencyNanos) {
+            // The stack copied the value when the write started, the array can be reused.
+            // A failed write is sent again by the ConnectionManager.
+            OnPacketWrittenListener listener = packetWrittenListener;
+            if (listener != null) {
+                listener.onPacketWritten(data, success);
+            }
+        }
+    }
+
+    /**
+     * GATT operations queued or in flight
+     */
+    @Override
+    public int getPendingWrites() {
+        return operationQueue.size();
+    }
+
+    @RequiresPermission(Manifest.permission.BLUETOOTH_CONNECT)
+    private boolean write(byte[] data) {
+        if (txChar == null || gatt == null) {
+            Log.w(TAG, "write: TX characteristic or GATT is null, cannot write");
+            return false;
+        }
+        txChar.setWriteType(BluetoothGattCharacteristic.WRITE_TYPE_DEFAULT);
         txChar.setValue(data);
         boolean result = gatt.writeCharacteristic(txChar);
-        Log.d(TAG, "send: Data sent: " + Arrays.toString(data) + ", result=" + result);
+        Log.d(TAG, "write: Data sent: " + Arrays.toString(data) + ", result=" + result);
         return result;
     }
 
+    /**
+     * Send the packets of a multi-packet command with writes without response.
+     * Falls back to acknowledged writes when the bulk mode is disabled, not supported by the
+     * TX characteristic, or the link is degraded.
+     * @param packets
+     * @param from first packet, inclusive
+     * @param to last packet, exclusive
+     * @return number of writes queued, all of them or none
+     */
+    @RequiresPermission(Manifest.permission.BLUETOOTH_CONNECT)
+    @Override
+    public int sendBulk(byte[][] packets, int from, int to) {
+        if (txChar == null || gatt == null) {
+            Log.w(TAG, "sendBulk: TX characteristic or GATT is null, cannot send");
+            return 0;
+        }
+        boolean supportsNoResponse = (txChar.getProperties() & BluetoothGattCharacteristic.PROPERTY_WRITE_NO_RESPONSE) != 0;
+        if (!bulkModeEnabled || !supportsNoResponse || operationQueue.getCreditWindow().isDegraded()) {
+            Log.d(TAG, "sendBulk: Using acknowledged writes for " + (to - from) + " packets");
+            // On a degraded link, their results let the credit window recover
+            OperationQueue.Type type = operationQueue.getCreditWindow().isDegraded()
+                ? OperationQueue.Type.BULK_WRITE : OperationQueue.Type.WRITE;
+            for (int i = from; i < to; i++) {
+                operationQueue.enqueue(type, new PacketWrite(packets[i], false));
+            }
+            return to - from;
+        }
+        for (int i = from; i < to; i++) {
+            operationQueue.enqueue(OperationQueue.Type.WRITE_NO_RESPONSE, new PacketWrite(packets[i], true));
+        }
+        return to - from;
+    }
+
+    @RequiresPermission(Manifest.permission.BLUETOOTH_CONNECT)
+    private boolean writeNoResponse(byte[] data) {
+        if (txChar == null || gatt == null) {
+            Log.w(TAG, "writeNoResponse: TX characteristic or GATT is null, cannot write");
+            return false;
+        }
+        // The link may degrade while the transfer is queued
+        int writeType = operationQueue.getCreditWindow().isDegraded()
+            ? BluetoothGattCharacteristic.WRITE_TYPE_DEFAULT
+            : BluetoothGattCharacteristic.WRITE_TYPE_NO_RESPONSE;
+        txChar.setWriteType(writeType);
+        txChar.setValue(data);
+        return gatt.writeCharacteristic(txChar);
+    }
+
+    /**
+     * Enable or disable writes without response for multi-packet transfers (enabled by default)
+     * @param enabled
+     */
+    public void setBulkModeEnabled(boolean enabled) {
+        this.bulkModeEnabled = enabled;
+    }
+
+    /**
+     * Set the listener for the latency of each GATT operation (write, descriptor write, MTU request)
+     * @param listener
+     */
+    public void setOnOperationCompleteListener(OperationQueue.OnOperationCompleteListener listener) {
+        operationQueue.setOnOperationCompleteListener(listener);
+    }
+
     /**
      * Set the listener for the RX data, so the app can receive the data from the glasses
      * @param listener
      */
+    @Override
     public void setOnRxDataListener(OnRxDataListener listener) {
         Log.i(TAG, "setOnRxDataListener: Listener set");
         this.rxDataListener = listener;
@@ -275,19 +452,16 @@ public class Connection {
         }
         boolean notificationSet = gatt.setCharacteristicNotification(rxChar, true);
         BluetoothGattDescriptor descriptor = rxChar.getDescriptor(clientCharacteristicConfigUuid);
-        boolean descriptorWritten = false;
+        boolean descriptorQueued = false;
         if (descriptor != null) {
-            descriptor.setValue(BluetoothGattDescriptor.ENABLE_NOTIFICATION_VALUE);
-            descriptorWritten = gatt.writeDescriptor(descriptor);
+            final BluetoothGatt currentGatt = gatt;
+            operationQueue.enqueue(OperationQueue.Type.DESCRIPTOR_WRITE, () -> {
+                descriptor.setValue(BluetoothGattDescriptor.ENABLE_NOTIFICATION_VALUE);
+                return currentGatt.writeDescriptor(descriptor);
+            });
+            descriptorQueued = true;
         }
-        Log.d(TAG, "enableRxNotification: notificationSet=" + notificationSet + ", descriptorWritten=" + descriptorWritten);
-        return notificationSet && descriptorWritten;
-    }
-
-    /**
-     * Listener for the RX data
-     */
-    public interface OnRxDataListener {
-        void onDataReceived(byte[] data);
+        Log.d(TAG, "enableRxNotification: notificationSet=" + notificationSet + ", descriptorQueued=" + descriptorQueued);
+        return notificationSet && descriptorQueued;
     }
 }
\ No newline at end of file
@@ -0,0 +1,40 @@
+package com.evenrealities.even_g1_sdk.log;
+
+import android.util.Log;
+
+/**
+ * Logger for the core module that writes to logcat.
+ *
+ * Release builds can raise the minimum priority, e.g. {@code new AndroidLogger(Logger.INFO)},
+ * so the SDK skips building the debug messages of its hot paths.
+ */
+public class AndroidLogger implements Logger {
+
+    public static final AndroidLogger INSTANCE = new AndroidLogger();
+
+    private final int minPriority;
+
+    public AndroidLogger() {
+        this(Logger.DEBUG);
+    }
+
+    /**
+     * @param minPriority lowest priority written to logcat
+     */
+    public AndroidLogger(int minPriority) {
+        this.minPriority = minPriority;
+    }
+
+    @Override
+    public boolean isLoggable(int priority) {
+        return priority >= minPriority;
+    }
+
+    @Override
+    public void log(int priority, String tag, String message, Throwable throwable) {
+        if (throwable != null) {
+            message = message + '\n' + Log.getStackTraceString(throwable);
+        }
+        Log.println(priority, tag, message);
+    }
+}
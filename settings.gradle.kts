@@ -22,3 +22,4 @@ dependencyResolutionManagement {
 rootProject.name = "EvenG1SdkProject"
 include(":app")
 include(":even-g1-sdk")
+include(":even-g1-core")